@@ -0,0 +1,116 @@
+package com.codecollab.cache;
+
+import java.util.Collection;
+
+/**
+ * Immutable set of primitive longs backed by an open-addressing table, about 16 bytes
+ * per element instead of a boxed {@code Long} plus a hash node. Updates return a copy,
+ * so instances can be shared between threads without locking.
+ */
+public final class LongHashSet {
+    
+    private static final LongHashSet EMPTY = new LongHashSet(new long[2], 0, false);
+    
+    // 0 marks a free slot, so membership of 0 itself is tracked separately
+    private final long[] slots;
+    private final int size;
+    private final boolean containsZero;
+    
+    private LongHashSet(long[] slots, int size, boolean containsZero) {
+        this.slots = slots;
+        this.size = size;
+        this.containsZero = containsZero;
+    }
+    
+    public static LongHashSet of(Collection<Long> values) {
+        if (values.isEmpty()) {
+            return EMPTY;
+        }
+        long[] slots = new long[capacityFor(values.size())];
+        int size = 0;
+        boolean containsZero = false;
+        for (long value : values) {
+            if (value == 0) {
+                if (!containsZero) {
+                    containsZero = true;
+                    size++;
+                }
+            } else if (insert(slots, value)) {
+                size++;
+            }
+        }
+        return new LongHashSet(slots, size, containsZero);
+    }
+    
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int mask = slots.length - 1;
+        for (int i = index(value, mask); ; i = (i + 1) & mask) {
+            if (slots[i] == value) {
+                return true;
+            }
+            if (slots[i] == 0) {
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Returns a set that also contains {@code value}, or this set if it already does.
+     */
+    public LongHashSet with(long value) {
+        if (contains(value)) {
+            return this;
+        }
+        if (value == 0) {
+            return new LongHashSet(slots, size + 1, true);
+        }
+        int capacity = capacityFor(size + 1);
+        long[] copy;
+        if (capacity == slots.length) {
+            copy = slots.clone();
+        } else {
+            copy = new long[capacity];
+            for (long slot : slots) {
+                if (slot != 0) {
+                    insert(copy, slot);
+                }
+            }
+        }
+        insert(copy, value);
+        return new LongHashSet(copy, size + 1, containsZero);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    private static boolean insert(long[] slots, long value) {
+        int mask = slots.length - 1;
+        for (int i = index(value, mask); ; i = (i + 1) & mask) {
+            if (slots[i] == value) {
+                return false;
+            }
+            if (slots[i] == 0) {
+                slots[i] = value;
+                return true;
+            }
+        }
+    }
+    
+    private static int index(long value, int mask) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+    
+    // Keeps the load factor at or below one half
+    private static int capacityFor(int elements) {
+        return Math.max(2, Integer.highestOneBit(Math.max(1, elements) * 2 - 1) << 1);
+    }
+}
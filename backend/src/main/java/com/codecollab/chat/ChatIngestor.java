@@ -0,0 +1,175 @@
+package com.codecollab.chat;
+
+import com.codecollab.compression.ContentCompressor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persists accepted chat messages in the background. Senders only enqueue, and a single
+ * writer drains the queue into multi-row JDBC batches.
+ */
+@Slf4j
+@Component
+public class ChatIngestor {
+    
+    private static final String INSERT_SQL = "INSERT INTO chat_messages (id, room_id, user_id, message, created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final int MAX_ATTEMPTS = 3;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ContentCompressor compressor;
+    private final int capacity;
+    private final int batchSize;
+    private final Queue<PendingMessage> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final List<PendingMessage> retry = new ArrayList<>();
+    private int retryAttempts;
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chat-ingestor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public ChatIngestor(
+            JdbcTemplate jdbcTemplate,
+            ContentCompressor compressor,
+            @Value("${chat.ingest.queue-capacity:10000}") int capacity,
+            @Value("${chat.ingest.batch-size:200}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.compressor = compressor;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * Accepts a message for persistence, or throws if the queue is full.
+     */
+    public void enqueue(PendingMessage message) {
+        int size;
+        do {
+            size = queued.get();
+            if (size >= capacity) {
+                throw new RuntimeException("Chat is busy, please try again");
+            }
+        } while (!queued.compareAndSet(size, size + 1));
+        queue.offer(message);
+        
+        if (size + 1 >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+    }
+    
+    public int getQueueDepth() {
+        return queued.get();
+    }
+    
+    public long getPersistedCount() {
+        return persisted.sum();
+    }
+    
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    @Scheduled(fixedDelayString = "${chat.ingest.flush-interval:100}")
+    public synchronized void flush() {
+        if (!retry.isEmpty() && !write(retry)) {
+            if (++retryAttempts >= MAX_ATTEMPTS) {
+                // One bad row fails the whole batch; write the rest individually so only it is lost
+                writeEach(retry);
+                retry.clear();
+                retryAttempts = 0;
+            }
+            return;
+        }
+        retry.clear();
+        retryAttempts = 0;
+        
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        PendingMessage message;
+        while ((message = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(message);
+            if (batch.size() == batchSize) {
+                if (!write(batch)) {
+                    retry.addAll(batch);
+                    return;
+                }
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty() && !write(batch)) {
+            retry.addAll(batch);
+        }
+    }
+    
+    private boolean write(List<PendingMessage> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batchSize, this::bind);
+            persisted.add(batch.size());
+            return true;
+        } catch (RuntimeException ex) {
+            log.warn("Failed to persist {} chat messages", batch.size(), ex);
+            return false;
+        }
+    }
+    
+    private void writeEach(List<PendingMessage> messages) {
+        int failed = 0;
+        for (PendingMessage message : messages) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, message));
+            } catch (DuplicateKeyException ex) {
+                // Written by an earlier batch attempt that failed part way through
+            } catch (RuntimeException ex) {
+                log.error("Dropping chat message {} in room {}", message.id(), message.roomId(), ex);
+                failed++;
+                continue;
+            }
+            persisted.increment();
+        }
+        dropped.add(failed);
+    }
+    
+    private void bind(PreparedStatement ps, PendingMessage message) throws SQLException {
+        ps.setLong(1, message.id());
+        ps.setLong(2, message.roomId());
+        ps.setLong(3, message.userId());
+        ps.setString(4, compressor.encodeText(message.message()));
+        ps.setTimestamp(5, Timestamp.valueOf(message.createdAt()));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        flush();
+    }
+    
+    public record PendingMessage(long id, long roomId, long userId, String message, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,98 @@
+package com.codecollab.chat;
+
+import com.codecollab.dto.ChatMessageDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ring buffer holding a room's most recent chat messages in id order, so join-time
+ * history is served from memory.
+ */
+public class ChatTail {
+    
+    private final ChatMessageDTO[] ring;
+    private int start;
+    private int size;
+    private boolean complete;
+    private volatile long lastAccess = System.currentTimeMillis();
+    
+    /**
+     * @param latestFirst the newest messages of the room, newest first
+     * @param complete    whether {@code latestFirst} is the room's entire history
+     */
+    public ChatTail(int capacity, List<ChatMessageDTO> latestFirst, boolean complete) {
+        this.ring = new ChatMessageDTO[capacity];
+        this.complete = complete;
+        for (int i = Math.min(latestFirst.size(), capacity) - 1; i >= 0; i--) {
+            append(latestFirst.get(i));
+        }
+    }
+    
+    public synchronized void append(ChatMessageDTO message) {
+        lastAccess = System.currentTimeMillis();
+        // Find the insertion point from the newest end; out-of-order commits are rare and close to the end
+        int position = size;
+        while (position > 0) {
+            long id = at(position - 1).getId();
+            if (id == message.getId()) {
+                return;
+            }
+            if (id < message.getId()) {
+                break;
+            }
+            position--;
+        }
+        if (position == 0 && size == ring.length) {
+            return;
+        }
+        
+        if (size == ring.length) {
+            // Drop the oldest message; the history is no longer fully in memory
+            start = (start + 1) % ring.length;
+            size--;
+            position--;
+            complete = false;
+        }
+        for (int i = size; i > position; i--) {
+            ring[(start + i) % ring.length] = at(i - 1);
+        }
+        ring[(start + position) % ring.length] = message;
+        size++;
+    }
+    
+    /**
+     * Returns up to {@code limit} messages older than {@code beforeId} (or the newest ones
+     * when null), oldest first, or null if the tail cannot answer without the database.
+     */
+    public synchronized List<ChatMessageDTO> page(Long beforeId, int limit) {
+        lastAccess = System.currentTimeMillis();
+        int end = size;
+        if (beforeId != null) {
+            while (end > 0 && at(end - 1).getId() >= beforeId) {
+                end--;
+            }
+        }
+        int from = Math.max(0, end - limit);
+        if (end - from < limit && !complete) {
+            return null;
+        }
+        List<ChatMessageDTO> page = new ArrayList<>(end - from);
+        for (int i = from; i < end; i++) {
+            page.add(at(i));
+        }
+        return page;
+    }
+    
+    public synchronized boolean hasOlderThan(long id) {
+        return !complete || (size > 0 && at(0).getId() < id);
+    }
+    
+    public long getLastAccess() {
+        return lastAccess;
+    }
+    
+    private ChatMessageDTO at(int index) {
+        return ring[(start + index) % ring.length];
+    }
+}
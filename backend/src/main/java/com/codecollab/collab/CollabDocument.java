@@ -0,0 +1,162 @@
+package com.codecollab.collab;
+
+import com.codecollab.dto.collab.DocumentSnapshot;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live in-memory copy of one file. All edits are sequenced under the document's
+ * monitor; {@code revision} continues from the file's persisted version.
+ */
+public class CollabDocument {
+    
+    private final Long fileId;
+    private final Long roomId;
+    private final StringBuilder content;
+    private final Deque<TextOperation> history = new ArrayDeque<>();
+    private final int maxHistory;
+    private final Set<Long> authorizedUsers = ConcurrentHashMap.newKeySet();
+    private long revision;
+    private boolean dirty;
+    private boolean closed;
+    private volatile long lastAccess = System.currentTimeMillis();
+    
+    public CollabDocument(Long fileId, Long roomId, String content, long revision, int maxHistory) {
+        this.fileId = fileId;
+        this.roomId = roomId;
+        this.content = new StringBuilder(content != null ? content : "");
+        this.revision = revision;
+        this.maxHistory = maxHistory;
+    }
+    
+    /**
+     * Rebases {@code operation}, written against {@code baseRevision}, over every
+     * operation applied since, then applies it. Returns the operation as applied.
+     */
+    public synchronized TextOperation apply(long baseRevision, TextOperation operation) {
+        touch();
+        Iterator<TextOperation> concurrent = operationsSince(baseRevision);
+        while (concurrent.hasNext()) {
+            operation = TextOperation.transform(operation, concurrent.next())[0];
+        }
+        
+        operation.applyTo(content);
+        record(operation);
+        return operation;
+    }
+    
+    public synchronized TextOperation replace(String newContent) {
+        touch();
+        TextOperation operation = TextOperation.replaceAll(content.length(), newContent);
+        operation.applyTo(content);
+        record(operation);
+        return operation;
+    }
+    
+    /**
+     * Length of the document as it was at {@code baseRevision}, needed to build a
+     * full-span operation from positional edits made against that revision.
+     */
+    public synchronized int lengthAt(long baseRevision) {
+        Iterator<TextOperation> since = operationsSince(baseRevision);
+        return since.hasNext() ? since.next().getBaseLength() : content.length();
+    }
+    
+    public synchronized DocumentSnapshot snapshot() {
+        touch();
+        return DocumentSnapshot.builder()
+                .fileId(fileId)
+                .revision(revision)
+                .content(content.toString())
+                .build();
+    }
+    
+    /**
+     * Returns the current state and marks it clean, or null if nothing changed
+     * since the last call.
+     */
+    public synchronized DocumentSnapshot takeDirtySnapshot() {
+        if (!dirty) {
+            return null;
+        }
+        dirty = false;
+        return DocumentSnapshot.builder()
+                .fileId(fileId)
+                .revision(revision)
+                .content(content.toString())
+                .build();
+    }
+    
+    public synchronized long getRevision() {
+        return revision;
+    }
+    
+    public synchronized int getLength() {
+        return content.length();
+    }
+    
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+    
+    /**
+     * Marks the document as no longer resident. Callers holding a reference must check
+     * {@link #isClosed()} under the document's monitor and look the document up again.
+     */
+    public synchronized void close() {
+        closed = true;
+    }
+    
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+    
+    private Iterator<TextOperation> operationsSince(long baseRevision) {
+        long oldestRevision = revision - history.size();
+        if (baseRevision < oldestRevision || baseRevision > revision) {
+            throw new StaleRevisionException(fileId, baseRevision, revision);
+        }
+        Iterator<TextOperation> iterator = history.iterator();
+        for (long skip = baseRevision - oldestRevision; skip > 0; skip--) {
+            iterator.next();
+        }
+        return iterator;
+    }
+    
+    private void record(TextOperation operation) {
+        history.addLast(operation);
+        if (history.size() > maxHistory) {
+            history.removeFirst();
+        }
+        revision++;
+        dirty = true;
+    }
+    
+    public void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+    
+    public Long getFileId() {
+        return fileId;
+    }
+    
+    public Long getRoomId() {
+        return roomId;
+    }
+    
+    public long getLastAccess() {
+        return lastAccess;
+    }
+    
+    public boolean isAuthorized(Long userId) {
+        return authorizedUsers.contains(userId);
+    }
+    
+    public void authorize(Long userId) {
+        authorizedUsers.add(userId);
+    }
+}
@@ -0,0 +1,94 @@
+package com.codecollab.collab;
+
+import com.codecollab.dto.collab.AwarenessDiff;
+import com.codecollab.dto.collab.AwarenessState;
+import com.codecollab.dto.collab.AwarenessUpdate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Latest cursor, selection and active file of every session in a room. Updates are
+ * merged in place and only the sessions that changed since the last tick are emitted.
+ */
+public class RoomAwareness {
+    
+    private final Long roomId;
+    private final Map<String, AwarenessState> states = new HashMap<>();
+    private final Set<String> changed = new LinkedHashSet<>();
+    private final Set<String> removed = new LinkedHashSet<>();
+    
+    public RoomAwareness(Long roomId) {
+        this.roomId = roomId;
+    }
+    
+    public synchronized void update(String sessionId, Long userId, String username, AwarenessUpdate update) {
+        AwarenessState previous = states.get(sessionId);
+        AwarenessState.AwarenessStateBuilder next = previous != null
+                ? previous.toBuilder()
+                : AwarenessState.builder().sessionId(sessionId).userId(userId).username(username);
+        if (update.getFileId() != null) {
+            next.fileId(update.getFileId());
+        }
+        if (update.getCursor() != null) {
+            next.cursor(update.getCursor());
+        }
+        if (update.getSelectionStart() != null) {
+            next.selectionStart(update.getSelectionStart());
+        }
+        if (update.getSelectionEnd() != null) {
+            next.selectionEnd(update.getSelectionEnd());
+        }
+        
+        AwarenessState state = next.build();
+        if (!state.equals(previous)) {
+            states.put(sessionId, state);
+            changed.add(sessionId);
+            removed.remove(sessionId);
+        }
+    }
+    
+    public synchronized void remove(String sessionId) {
+        if (states.remove(sessionId) != null) {
+            changed.remove(sessionId);
+            removed.add(sessionId);
+        }
+    }
+    
+    /**
+     * Returns the changes since the previous call, or null if nothing changed.
+     */
+    public synchronized AwarenessDiff drainDiff() {
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return null;
+        }
+        List<AwarenessState> updated = new ArrayList<>(changed.size());
+        for (String sessionId : changed) {
+            updated.add(states.get(sessionId));
+        }
+        AwarenessDiff diff = AwarenessDiff.builder()
+                .roomId(roomId)
+                .updated(updated)
+                .removed(new ArrayList<>(removed))
+                .build();
+        changed.clear();
+        removed.clear();
+        return diff;
+    }
+    
+    public synchronized List<AwarenessState> snapshot() {
+        return new ArrayList<>(states.values());
+    }
+    
+    public synchronized boolean isEmpty() {
+        return states.isEmpty() && removed.isEmpty();
+    }
+    
+    public Long getRoomId() {
+        return roomId;
+    }
+}
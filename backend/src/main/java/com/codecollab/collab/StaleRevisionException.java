@@ -0,0 +1,13 @@
+package com.codecollab.collab;
+
+public class StaleRevisionException extends RuntimeException {
+    
+    public StaleRevisionException(Long fileId, long baseRevision, long currentRevision) {
+        super("Version " + baseRevision + " of file " + fileId + " is no longer available (current "
+                + currentRevision + "); reload the file");
+    }
+    
+    public StaleRevisionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,215 @@
+package com.codecollab.collab;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A text edit expressed as a sequence of retain / insert / delete components that
+ * spans the whole document. On the wire it is a compact JSON array where a positive
+ * number retains, a negative number deletes and a string inserts, e.g. {@code [5, "x", -2, 10]}.
+ */
+public final class TextOperation {
+    
+    private final List<Object> ops = new ArrayList<>();
+    private int baseLength;
+    private int targetLength;
+    
+    public static TextOperation fromList(List<?> components) {
+        TextOperation operation = new TextOperation();
+        for (Object component : components) {
+            if (component instanceof String text) {
+                operation.insert(text);
+            } else if (component instanceof Number number) {
+                int n = number.intValue();
+                if (n > 0) {
+                    operation.retain(n);
+                } else {
+                    operation.delete(-n);
+                }
+            } else {
+                throw new IllegalArgumentException("Invalid operation component: " + component);
+            }
+        }
+        return operation;
+    }
+    
+    public static TextOperation replaceAll(int currentLength, String newContent) {
+        return new TextOperation().delete(currentLength).insert(newContent);
+    }
+    
+    public TextOperation retain(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("retain expects a non-negative count");
+        }
+        if (n == 0) {
+            return this;
+        }
+        baseLength += n;
+        targetLength += n;
+        int last = ops.size() - 1;
+        if (last >= 0 && isRetain(ops.get(last))) {
+            ops.set(last, (Integer) ops.get(last) + n);
+        } else {
+            ops.add(n);
+        }
+        return this;
+    }
+    
+    public TextOperation insert(String text) {
+        if (text == null || text.isEmpty()) {
+            return this;
+        }
+        targetLength += text.length();
+        int last = ops.size() - 1;
+        if (last >= 0 && ops.get(last) instanceof String previous) {
+            ops.set(last, previous + text);
+        } else if (last >= 0 && isDelete(ops.get(last))) {
+            // Keep inserts ahead of deletes so equivalent operations have one canonical form
+            if (last > 0 && ops.get(last - 1) instanceof String previous) {
+                ops.set(last - 1, previous + text);
+            } else {
+                ops.add(last, text);
+            }
+        } else {
+            ops.add(text);
+        }
+        return this;
+    }
+    
+    public TextOperation delete(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("delete expects a non-negative count");
+        }
+        if (n == 0) {
+            return this;
+        }
+        baseLength += n;
+        int last = ops.size() - 1;
+        if (last >= 0 && isDelete(ops.get(last))) {
+            ops.set(last, (Integer) ops.get(last) - n);
+        } else {
+            ops.add(-n);
+        }
+        return this;
+    }
+    
+    public int getBaseLength() {
+        return baseLength;
+    }
+    
+    public int getTargetLength() {
+        return targetLength;
+    }
+    
+    public boolean isNoop() {
+        return ops.isEmpty() || (ops.size() == 1 && isRetain(ops.get(0)));
+    }
+    
+    public List<Object> toList() {
+        return Collections.unmodifiableList(ops);
+    }
+    
+    public void applyTo(StringBuilder document) {
+        if (document.length() != baseLength) {
+            throw new IllegalArgumentException("Operation base length " + baseLength
+                    + " does not match document length " + document.length());
+        }
+        int index = 0;
+        for (Object op : ops) {
+            if (op instanceof String text) {
+                document.insert(index, text);
+                index += text.length();
+            } else if (isRetain(op)) {
+                index += (Integer) op;
+            } else {
+                document.delete(index, index - (Integer) op);
+            }
+        }
+    }
+    
+    public String apply(String document) {
+        StringBuilder builder = new StringBuilder(document);
+        applyTo(builder);
+        return builder.toString();
+    }
+    
+    /**
+     * Transforms two concurrent operations {@code a} and {@code b} that share a base
+     * document into {@code [a', b']} such that {@code apply(apply(doc, a), b') == apply(apply(doc, b), a')}.
+     * Inserts from {@code a} win ties at the same position.
+     */
+    public static TextOperation[] transform(TextOperation a, TextOperation b) {
+        if (a.baseLength != b.baseLength) {
+            throw new IllegalArgumentException("Both operations must have the same base length");
+        }
+        
+        TextOperation aPrime = new TextOperation();
+        TextOperation bPrime = new TextOperation();
+        List<Object> ops1 = a.ops;
+        List<Object> ops2 = b.ops;
+        int i1 = 0;
+        int i2 = 0;
+        Object op1 = i1 < ops1.size() ? ops1.get(i1++) : null;
+        Object op2 = i2 < ops2.size() ? ops2.get(i2++) : null;
+        
+        while (op1 != null || op2 != null) {
+            if (op1 instanceof String text) {
+                aPrime.insert(text);
+                bPrime.retain(text.length());
+                op1 = i1 < ops1.size() ? ops1.get(i1++) : null;
+                continue;
+            }
+            if (op2 instanceof String text) {
+                aPrime.retain(text.length());
+                bPrime.insert(text);
+                op2 = i2 < ops2.size() ? ops2.get(i2++) : null;
+                continue;
+            }
+            if (op1 == null || op2 == null) {
+                throw new IllegalArgumentException("Operations are not compatible");
+            }
+            
+            int n1 = (Integer) op1;
+            int n2 = (Integer) op2;
+            int min;
+            if (n1 > 0 && n2 > 0) {
+                // retain / retain
+                min = Math.min(n1, n2);
+                aPrime.retain(min);
+                bPrime.retain(min);
+            } else if (n1 < 0 && n2 < 0) {
+                // delete / delete: both removed the same text, nothing left to do for it
+                min = Math.min(-n1, -n2);
+            } else if (n1 < 0) {
+                // delete / retain
+                min = Math.min(-n1, n2);
+                aPrime.delete(min);
+            } else {
+                // retain / delete
+                min = Math.min(n1, -n2);
+                bPrime.delete(min);
+            }
+            
+            int rest1 = n1 > 0 ? n1 - min : n1 + min;
+            int rest2 = n2 > 0 ? n2 - min : n2 + min;
+            op1 = rest1 != 0 ? (Object) rest1 : (i1 < ops1.size() ? ops1.get(i1++) : null);
+            op2 = rest2 != 0 ? (Object) rest2 : (i2 < ops2.size() ? ops2.get(i2++) : null);
+        }
+        
+        return new TextOperation[]{aPrime, bPrime};
+    }
+    
+    private static boolean isRetain(Object op) {
+        return op instanceof Integer n && n > 0;
+    }
+    
+    private static boolean isDelete(Object op) {
+        return op instanceof Integer n && n < 0;
+    }
+    
+    @Override
+    public String toString() {
+        return ops.toString();
+    }
+}
@@ -0,0 +1,26 @@
+package com.codecollab.compression;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Compresses large text attributes on write and transparently restores them on read.
+ * Instantiated through Spring so it shares the configured {@link ContentCompressor}.
+ */
+@Converter
+@RequiredArgsConstructor
+public class CompressedTextConverter implements AttributeConverter<String, String> {
+    
+    private final ContentCompressor contentCompressor;
+    
+    @Override
+    public String convertToDatabaseColumn(String attribute) {
+        return contentCompressor.encodeText(attribute);
+    }
+    
+    @Override
+    public String convertToEntityAttribute(String dbData) {
+        return contentCompressor.decodeText(dbData);
+    }
+}
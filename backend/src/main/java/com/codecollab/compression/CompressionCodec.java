@@ -0,0 +1,29 @@
+package com.codecollab.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A compression algorithm usable by {@link ContentCompressor}. The id is written
+ * into every encoded value, so it must never change once data has been stored with it.
+ */
+public interface CompressionCodec {
+    
+    byte id();
+    
+    String name();
+    
+    byte[] compress(byte[] raw);
+    
+    byte[] decompress(byte[] compressed, int offset, int length, int originalLength);
+    
+    /**
+     * Decompresses a stream. The default buffers the whole payload; codecs that can
+     * inflate incrementally should override it.
+     */
+    default InputStream decompress(InputStream compressed, int originalLength) throws IOException {
+        byte[] payload = compressed.readAllBytes();
+        return new ByteArrayInputStream(decompress(payload, 0, payload.length, originalLength));
+    }
+}
@@ -0,0 +1,148 @@
+package com.codecollab.compression;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transparent compression at the persistence boundary.
+ * <p>
+ * Binary form: values below the threshold, or that do not shrink, are stored as-is.
+ * Otherwise they are stored as {@code 0xC0, codecId, rawLength (4 bytes), payload}.
+ * 0xC0 never starts valid UTF-8, so text stored before compression was enabled
+ * still decodes unchanged.
+ * <p>
+ * Text form (for TEXT columns): plain text as-is, or {@link #TEXT_MARKER} followed by
+ * the Base64 of the binary form.
+ */
+@Component
+public class ContentCompressor {
+    
+    public static final byte MARKER = (byte) 0xC0;
+    static final byte IDENTITY = 0;
+    static final char TEXT_MARKER = '\uE000';
+    private static final int TEXT_MARKER_BYTES = 3;
+    private static final int HEADER_LENGTH = 6;
+    
+    private final Map<Byte, CompressionCodec> codecsById = new HashMap<>();
+    private final CompressionCodec codec;
+    private final int threshold;
+    
+    public ContentCompressor(
+            List<CompressionCodec> codecs,
+            @Value("${storage.compression.codec:deflate}") String codecName,
+            @Value("${storage.compression.threshold:512}") int threshold
+    ) {
+        for (CompressionCodec candidate : codecs) {
+            if (candidate.id() == IDENTITY || codecsById.putIfAbsent(candidate.id(), candidate) != null) {
+                throw new IllegalStateException("Duplicate or reserved codec id " + candidate.id());
+            }
+        }
+        this.codec = "none".equals(codecName) ? null : codecs.stream()
+                .filter(candidate -> candidate.name().equals(codecName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown compression codec: " + codecName));
+        this.threshold = threshold;
+    }
+    
+    public byte[] encode(byte[] raw) {
+        if (codec == null || raw.length < threshold) {
+            return raw;
+        }
+        byte[] compressed = codec.compress(raw);
+        if (compressed.length + HEADER_LENGTH >= raw.length) {
+            return raw;
+        }
+        return ByteBuffer.allocate(HEADER_LENGTH + compressed.length)
+                .put(MARKER)
+                .put(codec.id())
+                .putInt(raw.length)
+                .put(compressed)
+                .array();
+    }
+    
+    public byte[] decode(byte[] stored) {
+        if (!isEncoded(stored)) {
+            return stored;
+        }
+        int rawLength = ByteBuffer.wrap(stored, 2, 4).getInt();
+        if (stored[1] == IDENTITY) {
+            byte[] raw = new byte[rawLength];
+            System.arraycopy(stored, HEADER_LENGTH, raw, 0, rawLength);
+            return raw;
+        }
+        CompressionCodec storedCodec = codecsById.get(stored[1]);
+        if (storedCodec == null) {
+            throw new IllegalStateException("No compression codec registered for id " + stored[1]);
+        }
+        return storedCodec.decompress(stored, HEADER_LENGTH, stored.length - HEADER_LENGTH, rawLength);
+    }
+    
+    /**
+     * Streaming counterpart of {@link #decode(byte[])}, for values too large to hold in memory.
+     */
+    public InputStream decode(InputStream stored) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(stored);
+        in.mark(HEADER_LENGTH);
+        byte[] header = in.readNBytes(HEADER_LENGTH);
+        if (!isEncoded(header)) {
+            in.reset();
+            return in;
+        }
+        int rawLength = ByteBuffer.wrap(header, 2, 4).getInt();
+        if (header[1] == IDENTITY) {
+            return in;
+        }
+        CompressionCodec storedCodec = codecsById.get(header[1]);
+        if (storedCodec == null) {
+            throw new IllegalStateException("No compression codec registered for id " + header[1]);
+        }
+        return storedCodec.decompress(in, rawLength);
+    }
+    
+    public static boolean isEncoded(byte[] stored) {
+        return stored.length >= HEADER_LENGTH && stored[0] == MARKER;
+    }
+    
+    public String encodeText(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = encode(raw);
+        // Base64 and the marker add about a third, so a small binary saving can still lose as text
+        if (encoded != raw && TEXT_MARKER_BYTES + 4 * ((encoded.length + 2) / 3) >= raw.length) {
+            encoded = raw;
+        }
+        if (encoded == raw) {
+            if (text.isEmpty() || text.charAt(0) != TEXT_MARKER) {
+                return text;
+            }
+            // Plain text that happens to start with the marker must be wrapped to stay unambiguous
+            encoded = ByteBuffer.allocate(HEADER_LENGTH + raw.length)
+                    .put(MARKER)
+                    .put(IDENTITY)
+                    .putInt(raw.length)
+                    .put(raw)
+                    .array();
+        }
+        return TEXT_MARKER + Base64.getEncoder().encodeToString(encoded);
+    }
+    
+    public String decodeText(String stored) {
+        if (stored == null || stored.isEmpty() || stored.charAt(0) != TEXT_MARKER) {
+            return stored;
+        }
+        byte[] encoded = Base64.getDecoder().decode(stored.substring(1));
+        return new String(decode(encoded), StandardCharsets.UTF_8);
+    }
+}
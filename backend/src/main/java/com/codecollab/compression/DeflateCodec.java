@@ -0,0 +1,82 @@
+package com.codecollab.compression;
+
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+@Component
+public class DeflateCodec implements CompressionCodec {
+    
+    @Override
+    public byte id() {
+        return 1;
+    }
+    
+    @Override
+    public String name() {
+        return "deflate";
+    }
+    
+    @Override
+    public byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    @Override
+    public byte[] decompress(byte[] compressed, int offset, int length, int originalLength) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed, offset, length);
+            byte[] raw = new byte[originalLength];
+            int read = 0;
+            while (read < originalLength) {
+                int n = inflater.inflate(raw, read, originalLength - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != originalLength) {
+                throw new IllegalStateException("Corrupt deflate payload: expected " + originalLength + " bytes, got " + read);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt deflate payload", e);
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    @Override
+    public InputStream decompress(InputStream compressed, int originalLength) {
+        return new InflaterInputStream(compressed, new Inflater(true), 8192) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inf.end();
+                }
+            }
+        };
+    }
+}
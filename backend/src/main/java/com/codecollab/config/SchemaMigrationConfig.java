@@ -0,0 +1,22 @@
+package com.codecollab.config;
+
+import com.codecollab.storage.FilePathBackfill;
+import com.codecollab.storage.SchemaMigrator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+@Configuration
+public class SchemaMigrationConfig {
+    
+    @Bean(initMethod = "migrate")
+    public SchemaMigrator schemaMigrator(
+            DataSource dataSource,
+            @Value("${schema.migrations:classpath:db/migration/V*__*.sql}") String location
+    ) {
+        return new SchemaMigrator(dataSource, location, List.of(new FilePathBackfill()));
+    }
+}
@@ -0,0 +1,18 @@
+package com.codecollab.config;
+
+import com.codecollab.storage.SchemaMigrator;
+import org.springframework.boot.sql.init.dependency.AbstractBeansOfTypeDatabaseInitializerDetector;
+
+import java.util.Set;
+
+/**
+ * Marks {@link SchemaMigrator} as a database initializer, so Hibernate and JDBC users
+ * are only created once the schema is migrated. Registered in {@code META-INF/spring.factories}.
+ */
+class SchemaMigratorDetector extends AbstractBeansOfTypeDatabaseInitializerDetector {
+    
+    @Override
+    protected Set<Class<?>> getDatabaseInitializerBeanTypes() {
+        return Set.of(SchemaMigrator.class);
+    }
+}
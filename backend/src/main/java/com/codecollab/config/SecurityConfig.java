@@ -33,7 +33,7 @@ public class SecurityConfig {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/auth/**", "/", "/api/health", "/ws/**").permitAll()
+                        .requestMatchers("/api/auth/**", "/", "/api/health", "/ws/**", "/ws-native").permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
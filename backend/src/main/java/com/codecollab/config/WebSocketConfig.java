@@ -1,25 +1,64 @@
 package com.codecollab.config;
 
+import com.codecollab.messaging.BinaryFrameMessageConverter;
+import com.codecollab.messaging.OutboundBackpressureHandler;
+import com.codecollab.messaging.OutboundSessionRegistry;
+import com.codecollab.security.StompAuthInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.List;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
+    private final OutboundSessionRegistry outboundSessionRegistry;
+    private final StompAuthInterceptor stompAuthInterceptor;
+    
+    @Value("${websocket.sockjs.http-message-cache-size:100}")
+    private int httpMessageCacheSize;
+    
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic");
+        registry.enableSimpleBroker("/topic", "/queue");
         registry.setApplicationDestinationPrefixes("/app");
+        registry.setPreservePublishOrder(true);
     }
     
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOrigins("http://localhost:5173", "http://localhost:3000")
-                .withSockJS();
+                .withSockJS()
+                .setHttpMessageCacheSize(httpMessageCacheSize);
+        // Plain WebSocket endpoint; the only transport that can carry binary frames
+        registry.addEndpoint("/ws-native")
+                .setAllowedOrigins("http://localhost:5173", "http://localhost:3000");
+    }
+    
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        messageConverters.add(new BinaryFrameMessageConverter());
+        return true;
+    }
+    
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthInterceptor);
+    }
+    
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(handler -> new OutboundBackpressureHandler(handler, outboundSessionRegistry));
     }
 }
@@ -0,0 +1,39 @@
+package com.codecollab.controller;
+
+import com.codecollab.dto.ChatHistoryResponse;
+import com.codecollab.dto.ChatMessageDTO;
+import com.codecollab.dto.SendChatMessageRequest;
+import com.codecollab.entity.User;
+import com.codecollab.service.ChatService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/chat")
+@RequiredArgsConstructor
+public class ChatController {
+    
+    private final ChatService chatService;
+    
+    @GetMapping("/room/{roomId}/messages")
+    public ResponseEntity<ChatHistoryResponse> getHistory(
+            @PathVariable Long roomId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(chatService.getHistory(roomId, before, limit, user));
+    }
+    
+    @PostMapping("/room/{roomId}/messages")
+    public ResponseEntity<ChatMessageDTO> sendMessage(
+            @PathVariable Long roomId,
+            @Valid @RequestBody SendChatMessageRequest request,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(chatService.sendMessage(roomId, request.getMessage(), user));
+    }
+}
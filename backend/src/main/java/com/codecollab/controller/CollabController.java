@@ -0,0 +1,97 @@
+package com.codecollab.controller;
+
+import com.codecollab.dto.collab.AwarenessState;
+import com.codecollab.dto.collab.AwarenessUpdate;
+import com.codecollab.dto.collab.DocumentSnapshot;
+import com.codecollab.dto.collab.EditOperationMessage;
+import com.codecollab.dto.collab.ResumeRequest;
+import com.codecollab.dto.collab.ResumeResponse;
+import com.codecollab.entity.User;
+import com.codecollab.service.AwarenessService;
+import com.codecollab.service.CollabService;
+import com.codecollab.service.RoomSyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+
+@Controller
+@RequiredArgsConstructor
+public class CollabController {
+    
+    private final CollabService collabService;
+    private final AwarenessService awarenessService;
+    private final RoomSyncService roomSyncService;
+    
+    @SubscribeMapping("/room/{roomId}/file/{fileId}")
+    public DocumentSnapshot openDocument(
+            @DestinationVariable Long roomId,
+            @DestinationVariable Long fileId,
+            Principal principal
+    ) {
+        return collabService.openDocument(roomId, fileId, currentUser(principal));
+    }
+    
+    @MessageMapping("/room/{roomId}/file/{fileId}/edit")
+    public void edit(
+            @DestinationVariable Long roomId,
+            @DestinationVariable Long fileId,
+            @Payload EditOperationMessage message,
+            Principal principal
+    ) {
+        collabService.applyEdit(roomId, fileId, message, currentUser(principal));
+    }
+    
+    @SubscribeMapping("/room/{roomId}/awareness")
+    public List<AwarenessState> joinAwareness(
+            @DestinationVariable Long roomId,
+            SimpMessageHeaderAccessor headers,
+            Principal principal
+    ) {
+        return awarenessService.join(roomId, headers.getSessionId(), currentUser(principal));
+    }
+    
+    @MessageMapping("/room/{roomId}/awareness")
+    public void updateAwareness(
+            @DestinationVariable Long roomId,
+            @Payload AwarenessUpdate update,
+            SimpMessageHeaderAccessor headers,
+            Principal principal
+    ) {
+        awarenessService.update(roomId, headers.getSessionId(), update, currentUser(principal));
+    }
+    
+    @MessageMapping("/room/{roomId}/resume")
+    @SendToUser(destinations = "/queue/resume", broadcast = false)
+    public ResumeResponse resume(
+            @DestinationVariable Long roomId,
+            @Payload ResumeRequest request,
+            Principal principal
+    ) {
+        return roomSyncService.resume(roomId, request, currentUser(principal));
+    }
+    
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, String> handleException(RuntimeException ex) {
+        return Map.of("error", String.valueOf(ex.getMessage()));
+    }
+    
+    private User currentUser(Principal principal) {
+        if (principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        throw new RuntimeException("Not authenticated");
+    }
+}
@@ -1,15 +1,31 @@
 package com.codecollab.controller;
 
 import com.codecollab.dto.CreateFileRequest;
+import com.codecollab.dto.FileContentResponse;
+import com.codecollab.dto.FileImportResponse;
 import com.codecollab.dto.FileNodeResponse;
+import com.codecollab.dto.FilePatchRequest;
+import com.codecollab.dto.FilePatchResponse;
+import com.codecollab.dto.MoveFileRequest;
 import com.codecollab.entity.User;
+import com.codecollab.service.FileExportService;
+import com.codecollab.service.FileImportService;
 import com.codecollab.service.FileService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +35,8 @@ import java.util.Map;
 public class FileController {
     
     private final FileService fileService;
+    private final FileImportService fileImportService;
+    private final FileExportService fileExportService;
     
     @GetMapping("/room/{roomId}")
     public ResponseEntity<List<FileNodeResponse>> getFileTree(
@@ -28,6 +46,29 @@ public class FileController {
         return ResponseEntity.ok(fileService.getFileTree(roomId, user));
     }
     
+    @GetMapping("/room/{roomId}/tree")
+    public ResponseEntity<List<FileNodeResponse>> getFileTreeMetadata(
+            @PathVariable Long roomId,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(fileService.getFileTreeMetadata(roomId, user));
+    }
+    
+    @GetMapping("/{fileId}/content")
+    public ResponseEntity<FileContentResponse> getFileContent(
+            @PathVariable Long fileId,
+            @AuthenticationPrincipal User user,
+            WebRequest webRequest
+    ) {
+        FileContentResponse response = fileService.getFileContent(fileId, user);
+        if (webRequest.checkNotModified(response.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(response.getEtag())
+                .body(response);
+    }
+    
     @PostMapping("/room/{roomId}")
     public ResponseEntity<FileNodeResponse> createFile(
             @PathVariable Long roomId,
@@ -37,6 +78,48 @@ public class FileController {
         return ResponseEntity.ok(fileService.createFile(roomId, request, user));
     }
     
+    /**
+     * Imports a project as a zip {@code archive}, or as {@code files} parts named by their relative paths.
+     */
+    @PostMapping(value = "/room/{roomId}/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<FileImportResponse> importFiles(
+            @PathVariable Long roomId,
+            @RequestParam(required = false) Long parentId,
+            @RequestParam(required = false) String importId,
+            @RequestParam(required = false) MultipartFile archive,
+            @RequestParam(required = false) List<MultipartFile> files,
+            @AuthenticationPrincipal User user
+    ) throws IOException {
+        if (archive != null) {
+            try (InputStream in = archive.getInputStream()) {
+                return ResponseEntity.ok(fileImportService.importArchive(roomId, parentId, importId, in, user));
+            }
+        }
+        if (files == null || files.isEmpty()) {
+            throw new RuntimeException("Nothing to import");
+        }
+        return ResponseEntity.ok(fileImportService.importFiles(roomId, parentId, importId, files, user));
+    }
+    
+    /**
+     * Downloads the room, or the folder {@code folderId}, as a zip streamed straight from storage.
+     */
+    @GetMapping("/room/{roomId}/export")
+    public ResponseEntity<StreamingResponseBody> exportFiles(
+            @PathVariable Long roomId,
+            @RequestParam(required = false) Long folderId,
+            @AuthenticationPrincipal User user
+    ) {
+        FileExportService.RoomExport export = fileExportService.prepare(roomId, folderId, user);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(export.name() + ".zip", StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .body(out -> fileExportService.write(export, out));
+    }
+    
     @PutMapping("/{fileId}")
     public ResponseEntity<FileNodeResponse> updateFileContent(
             @PathVariable Long fileId,
@@ -47,6 +130,24 @@ public class FileController {
         return ResponseEntity.ok(fileService.updateFileContent(fileId, content, user));
     }
     
+    @PatchMapping("/{fileId}/content")
+    public ResponseEntity<FilePatchResponse> patchFileContent(
+            @PathVariable Long fileId,
+            @Valid @RequestBody FilePatchRequest request,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(fileService.patchFileContent(fileId, request, user));
+    }
+    
+    @PatchMapping("/{fileId}/parent")
+    public ResponseEntity<FileNodeResponse> moveFile(
+            @PathVariable Long fileId,
+            @RequestBody MoveFileRequest request,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(fileService.moveFile(fileId, request, user));
+    }
+    
     @DeleteMapping("/{fileId}")
     public ResponseEntity<Map<String, String>> deleteFile(
             @PathVariable Long fileId,
@@ -1,14 +1,28 @@
 package com.codecollab.controller;
 
+import com.codecollab.messaging.OutboundSessionRegistry;
+import com.codecollab.security.MembershipCache;
+import com.codecollab.security.PrincipalCache;
+import com.codecollab.service.CollabService;
+import com.codecollab.service.RoomRuntimeService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
+@RequiredArgsConstructor
 public class HealthController {
     
+    private final OutboundSessionRegistry outboundSessionRegistry;
+    private final RoomRuntimeService roomRuntimeService;
+    private final CollabService collabService;
+    private final PrincipalCache principalCache;
+    private final MembershipCache membershipCache;
+    
     @GetMapping("/")
     public ResponseEntity<Map<String, String>> root() {
         return ResponseEntity.ok(Map.of(
@@ -25,4 +39,24 @@ public class HealthController {
                 "service", "CodeCollab API"
         ));
     }
+    
+    @GetMapping("/api/health/websocket")
+    public ResponseEntity<Map<String, Object>> websocket() {
+        return ResponseEntity.ok(outboundSessionRegistry.getMetrics());
+    }
+    
+    @GetMapping("/api/health/rooms")
+    public ResponseEntity<Map<String, Object>> rooms() {
+        Map<String, Object> metrics = roomRuntimeService.getMetrics();
+        metrics.put("openDocuments", collabService.getOpenDocumentCount());
+        return ResponseEntity.ok(metrics);
+    }
+    
+    @GetMapping("/api/health/caches")
+    public ResponseEntity<Map<String, Object>> caches() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("principals", principalCache.getMetrics());
+        metrics.put("memberships", membershipCache.getMetrics());
+        return ResponseEntity.ok(metrics);
+    }
 }
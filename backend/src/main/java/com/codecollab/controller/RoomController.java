@@ -37,8 +37,12 @@ public class RoomController {
     }
     
     @GetMapping
-    public ResponseEntity<List<RoomResponse>> getMyRooms(@AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(roomService.getMyRooms(user));
+    public ResponseEntity<List<RoomResponse>> getMyRooms(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseEntity.ok(roomService.getMyRooms(user, after, limit));
     }
     
     @GetMapping("/{roomId}")
@@ -0,0 +1,23 @@
+package com.codecollab.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A chat send or history read forwarded to the node that owns the room, on behalf of
+ * the user identified by {@code userId} and {@code username}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatCall {
+    private Long roomId;
+    private Long userId;
+    private String username;
+    private String message;
+    private Long beforeId;
+    private Integer limit;
+}
@@ -0,0 +1,18 @@
+package com.codecollab.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatHistoryResponse {
+    private List<ChatMessageDTO> messages;
+    private Long nextBefore;
+    private boolean hasMore;
+}
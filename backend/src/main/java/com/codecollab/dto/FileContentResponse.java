@@ -0,0 +1,26 @@
+package com.codecollab.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileContentResponse {
+    private Long id;
+    private String name;
+    private String language;
+    private String content;
+    private long version;
+    private long size;
+    private LocalDateTime updatedAt;
+    
+    @JsonIgnore
+    private String etag;
+}
@@ -0,0 +1,25 @@
+package com.codecollab.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileImportResponse {
+    private String importId;
+    private int fileCount;
+    private int folderCount;
+    private long totalBytes;
+    
+    /** Paths that were left out because they are binary or too large. */
+    private List<String> skipped;
+    
+    /** Imported subtrees, metadata only. */
+    private List<FileNodeResponse> files;
+}
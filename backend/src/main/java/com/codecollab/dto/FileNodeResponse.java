@@ -1,6 +1,7 @@
 package com.codecollab.dto;
 
 import com.codecollab.entity.FileNode;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,9 +18,13 @@ public class FileNodeResponse {
     private Long id;
     private String name;
     private FileNode.FileType type;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String content;
+    
     private String language;
     private Long parentId;
+    private Long size;
     private List<FileNodeResponse> children;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -29,12 +34,27 @@ public class FileNodeResponse {
                 .id(fileNode.getId())
                 .name(fileNode.getName())
                 .type(fileNode.getType())
-                .content(fileNode.getContent())
                 .language(fileNode.getLanguage())
                 .parentId(fileNode.getParent() != null ? fileNode.getParent().getId() : null)
+                .size(fileNode.getContentSize() != null ? fileNode.getContentSize() : 0L)
                 .children(children)
                 .createdAt(fileNode.getCreatedAt())
                 .updatedAt(fileNode.getUpdatedAt())
                 .build();
     }
+    
+    public static FileNodeResponse from(FileNodeRow row, List<FileNodeResponse> children) {
+        return FileNodeResponse.builder()
+                .id(row.getId())
+                .name(row.getName())
+                .type(row.getType())
+                .content(row.getContent())
+                .language(row.getLanguage())
+                .parentId(row.getParentId())
+                .size(row.getSize() != null ? row.getSize() : 0L)
+                .children(children)
+                .createdAt(row.getCreatedAt())
+                .updatedAt(row.getUpdatedAt())
+                .build();
+    }
 }
@@ -0,0 +1,53 @@
+package com.codecollab.dto;
+
+import com.codecollab.entity.FileNode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@AllArgsConstructor
+public class FileNodeRow {
+    private Long id;
+    private Long roomId;
+    private Long parentId;
+    private String path;
+    private String name;
+    private FileNode.FileType type;
+    private String contentHash;
+    private String content;
+    private String language;
+    private Long size;
+    private Long version;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    public FileNodeRow(Long id, Long roomId, Long parentId, String path, String name, FileNode.FileType type, String contentHash,
+                       String language, Long size, Long version, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, roomId, parentId, path, name, type, contentHash, null, language, size, version, createdAt, updatedAt);
+    }
+    
+    public FileNodeRow(Long id, Long roomId, Long parentId, String name, FileNode.FileType type, String contentHash,
+                       String language, Long size, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, roomId, parentId, null, name, type, contentHash, null, language, size, null, createdAt, updatedAt);
+    }
+    
+    public static FileNodeRow from(FileNode file) {
+        return new FileNodeRow(file.getId(), file.getRoom().getId(), file.getParent() != null ? file.getParent().getId() : null,
+                file.getPath(), file.getName(), file.getType(), file.getContentHash(), file.getLanguage(), file.getContentSize(),
+                file.getVersion(), file.getCreatedAt(), file.getUpdatedAt());
+    }
+    
+    public FileNodeRow withContent(String content, long size) {
+        return new FileNodeRow(id, roomId, parentId, path, name, type, contentHash, content, language, size, version, createdAt, updatedAt);
+    }
+    
+    public FileNodeRow withStoredContent(String contentHash, long size, long version, LocalDateTime updatedAt) {
+        return new FileNodeRow(id, roomId, parentId, path, name, type, contentHash, null, language, size, version, createdAt, updatedAt);
+    }
+    
+    public FileNodeRow withPath(Long parentId, String path) {
+        return new FileNodeRow(id, roomId, parentId, path, name, type, contentHash, content, language, size, version, createdAt, updatedAt);
+    }
+}
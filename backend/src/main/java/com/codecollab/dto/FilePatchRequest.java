@@ -0,0 +1,40 @@
+package com.codecollab.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilePatchRequest {
+    
+    @NotNull(message = "Base version is required")
+    private Long baseVersion;
+    
+    @NotEmpty(message = "At least one edit is required")
+    private List<@Valid Edit> edits;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Edit {
+        
+        @Min(value = 0, message = "Offset must not be negative")
+        private int offset;
+        
+        @Min(value = 0, message = "Delete count must not be negative")
+        private int deleteCount;
+        
+        private String text;
+    }
+}
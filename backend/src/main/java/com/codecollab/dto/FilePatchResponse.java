@@ -0,0 +1,16 @@
+package com.codecollab.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilePatchResponse {
+    private Long fileId;
+    private long version;
+    private long size;
+}
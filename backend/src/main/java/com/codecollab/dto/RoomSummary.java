@@ -0,0 +1,15 @@
+package com.codecollab.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class RoomSummary {
+    private Long id;
+    private String name;
+    private String description;
+    private String inviteCode;
+    private String ownerUsername;
+    private Integer memberCount;
+}
@@ -0,0 +1,19 @@
+package com.codecollab.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SendChatMessageRequest {
+    
+    @NotBlank(message = "Message is required")
+    @Size(max = 10000, message = "Message must be at most 10000 characters")
+    private String message;
+}
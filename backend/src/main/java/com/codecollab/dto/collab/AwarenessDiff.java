@@ -0,0 +1,18 @@
+package com.codecollab.dto.collab;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AwarenessDiff {
+    private Long roomId;
+    private List<AwarenessState> updated;
+    private List<String> removed;
+}
@@ -0,0 +1,20 @@
+package com.codecollab.dto.collab;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class AwarenessState {
+    private String sessionId;
+    private Long userId;
+    private String username;
+    private Long fileId;
+    private Integer cursor;
+    private Integer selectionStart;
+    private Integer selectionEnd;
+}
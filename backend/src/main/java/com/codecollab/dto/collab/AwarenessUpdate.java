@@ -0,0 +1,20 @@
+package com.codecollab.dto.collab;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Partial awareness change from a client; null fields keep their previous value.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AwarenessUpdate {
+    private Long fileId;
+    private Integer cursor;
+    private Integer selectionStart;
+    private Integer selectionEnd;
+}
@@ -0,0 +1,28 @@
+package com.codecollab.dto.collab;
+
+import com.codecollab.dto.FilePatchRequest;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A document operation forwarded to the node that owns the room, on behalf of the user
+ * identified by {@code userId} and {@code username}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentCall {
+    private Long roomId;
+    private Long fileId;
+    private List<Long> fileIds;
+    private Long userId;
+    private String username;
+    private EditOperationMessage edit;
+    private FilePatchRequest patch;
+    private String content;
+}
@@ -0,0 +1,19 @@
+package com.codecollab.dto.collab;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The owner's answer to a {@link DocumentCall}: a snapshot, or the message of the
+ * stale revision conflict it raised.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentCallResult {
+    private DocumentSnapshot snapshot;
+    private String staleRevision;
+}
@@ -0,0 +1,16 @@
+package com.codecollab.dto.collab;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentSnapshot {
+    private Long fileId;
+    private long revision;
+    private String content;
+}
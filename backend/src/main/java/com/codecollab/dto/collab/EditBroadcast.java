@@ -0,0 +1,20 @@
+package com.codecollab.dto.collab;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EditBroadcast {
+    private Long fileId;
+    private long revision;
+    private String clientId;
+    private String username;
+    private List<Object> ops;
+}
@@ -0,0 +1,27 @@
+package com.codecollab.dto.collab;
+
+import com.codecollab.dto.FileNodeResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FileEvent {
+    
+    public enum Type { CREATED, DELETED, MOVED, IMPORTED }
+    
+    private Type type;
+    private Long fileId;
+    private FileNodeResponse file;
+    
+    /** Imported subtrees, metadata only. */
+    private List<FileNodeResponse> files;
+}
@@ -0,0 +1,26 @@
+package com.codecollab.dto.collab;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportProgress {
+    
+    public enum Phase { READING, SAVING, DONE, FAILED }
+    
+    private String importId;
+    private Phase phase;
+    private String username;
+    private int processed;
+    
+    /** Number of nodes to save, unknown while the upload is still being read. */
+    private Integer total;
+    private String error;
+}
@@ -0,0 +1,28 @@
+package com.codecollab.dto.collab;
+
+import com.codecollab.dto.FileNodeResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Either the events missed since the requested sequence number, or, when those have been
+ * compacted away, a snapshot of the room's file tree to reload from.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResumeResponse {
+    private Long roomId;
+    private long epoch;
+    private long seq;
+    private boolean snapshot;
+    private List<RoomEvent> events;
+    private List<FileNodeResponse> files;
+}
@@ -0,0 +1,20 @@
+package com.codecollab.dto.collab;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoomEvent {
+    private long seq;
+    private String destination;
+    
+    /** The event exactly as it was broadcast. */
+    @JsonRawValue
+    private String payload;
+}
@@ -1,5 +1,6 @@
 package com.codecollab.entity;
 
+import com.codecollab.compression.CompressedTextConverter;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -9,15 +10,18 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+        @Index(name = "idx_chat_messages_room_id", columnList = "room_id, id"),
+        @Index(name = "idx_chat_messages_room_created", columnList = "room_id, created_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class ChatMessage {
     
+    /** Assigned by {@link com.codecollab.storage.IdAllocator} so inserts can be batched. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -29,6 +33,7 @@ public class ChatMessage {
     private User user;
     
     @Column(nullable = false, columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
     private String message;
     
     @Column(name = "created_at")
@@ -7,8 +7,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 @Entity
 @Table(name = "files")
@@ -18,8 +16,8 @@ import java.util.List;
 @AllArgsConstructor
 public class FileNode {
     
+    /** Assigned from the {@code files} sequence of {@link com.codecollab.storage.IdAllocator}. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -30,8 +28,9 @@ public class FileNode {
     @JoinColumn(name = "parent_id")
     private FileNode parent;
     
-    @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, orphanRemoval = true)
-    private List<FileNode> children = new ArrayList<>();
+    /** Materialized ancestor path, see {@link com.codecollab.util.FilePaths}. */
+    @Column(nullable = false, length = 760)
+    private String path;
     
     @Column(nullable = false)
     private String name;
@@ -40,8 +39,14 @@ public class FileNode {
     @Column(nullable = false)
     private FileType type;
     
-    @Column(columnDefinition = "TEXT")
-    private String content;
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
+    @Column(name = "content_size")
+    private Long contentSize;
+    
+    @Column(name = "version")
+    private Long version;
     
     private String language;
     
@@ -58,6 +63,9 @@ public class FileNode {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        if (version == null) {
+            version = 0L;
+        }
     }
     
     @PreUpdate
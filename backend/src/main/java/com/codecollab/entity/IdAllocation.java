@@ -0,0 +1,26 @@
+package com.codecollab.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * High-water mark of an {@link com.codecollab.storage.IdAllocator} sequence, keyed by table name.
+ */
+@Entity
+@Table(name = "id_allocations")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdAllocation {
+    
+    @Id
+    @Column(length = 64)
+    private String name;
+    
+    @Column(name = "next_id", nullable = false)
+    private Long nextId;
+}
@@ -41,6 +41,10 @@ public class Room {
     @OneToMany(mappedBy = "room", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<FileNode> files = new ArrayList<>();
     
+    // Maintained alongside room_members so listings need not count them
+    @Column(name = "member_count")
+    private Integer memberCount;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -51,6 +55,9 @@ public class Room {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        if (memberCount == null) {
+            memberCount = 0;
+        }
     }
     
     @PreUpdate
@@ -0,0 +1,286 @@
+package com.codecollab.messaging;
+
+import com.codecollab.dto.collab.AwarenessDiff;
+import com.codecollab.dto.collab.AwarenessState;
+import com.codecollab.dto.collab.AwarenessUpdate;
+import com.codecollab.dto.collab.EditBroadcast;
+import com.codecollab.dto.collab.EditOperationMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding for high-frequency editor messages. A frame is a type tag
+ * followed by LEB128 varints; signed values are zigzag encoded, nullable values are
+ * shifted by one so zero means null, and strings are a length-prefixed UTF-8 run.
+ * Operation components share one varint: the low bit separates inserts (length of the
+ * text that follows) from retains and deletes (zigzag count).
+ */
+public final class BinaryFrameCodec {
+    
+    static final byte EDIT_BROADCAST = 1;
+    static final byte AWARENESS_DIFF = 2;
+    static final byte EDIT_OPERATION = 3;
+    static final byte AWARENESS_UPDATE = 4;
+    
+    private BinaryFrameCodec() {
+    }
+    
+    public static boolean supports(Class<?> type) {
+        return type == EditBroadcast.class || type == AwarenessDiff.class
+                || type == EditOperationMessage.class || type == AwarenessUpdate.class;
+    }
+    
+    public static byte[] encode(Object payload) {
+        Writer out = new Writer();
+        if (payload instanceof EditBroadcast edit) {
+            out.tag(EDIT_BROADCAST);
+            out.varint(edit.getFileId());
+            out.varint(edit.getRevision());
+            out.string(edit.getClientId());
+            out.string(edit.getUsername());
+            out.ops(edit.getOps());
+        } else if (payload instanceof AwarenessDiff diff) {
+            out.tag(AWARENESS_DIFF);
+            out.varint(diff.getRoomId());
+            out.varint(diff.getUpdated().size());
+            for (AwarenessState state : diff.getUpdated()) {
+                out.string(state.getSessionId());
+                out.nullable(state.getUserId());
+                out.string(state.getUsername());
+                out.nullable(state.getFileId());
+                out.nullable(state.getCursor());
+                out.nullable(state.getSelectionStart());
+                out.nullable(state.getSelectionEnd());
+            }
+            out.varint(diff.getRemoved().size());
+            for (String sessionId : diff.getRemoved()) {
+                out.string(sessionId);
+            }
+        } else if (payload instanceof EditOperationMessage edit) {
+            out.tag(EDIT_OPERATION);
+            out.string(edit.getClientId());
+            out.varint(edit.getRevision());
+            out.ops(edit.getOps());
+        } else if (payload instanceof AwarenessUpdate update) {
+            out.tag(AWARENESS_UPDATE);
+            out.nullable(update.getFileId());
+            out.nullable(update.getCursor());
+            out.nullable(update.getSelectionStart());
+            out.nullable(update.getSelectionEnd());
+        } else {
+            throw new IllegalArgumentException("No binary encoding for " + payload.getClass().getSimpleName());
+        }
+        return out.toByteArray();
+    }
+    
+    public static Object decode(byte[] frame) {
+        Reader in = new Reader(frame);
+        byte tag = in.tag();
+        return switch (tag) {
+            case EDIT_BROADCAST -> EditBroadcast.builder()
+                    .fileId(in.varint())
+                    .revision(in.varint())
+                    .clientId(in.string())
+                    .username(in.string())
+                    .ops(in.ops())
+                    .build();
+            case AWARENESS_DIFF -> {
+                Long roomId = in.varint();
+                int updatedCount = in.count();
+                List<AwarenessState> updated = new ArrayList<>(updatedCount);
+                for (int i = 0; i < updatedCount; i++) {
+                    updated.add(AwarenessState.builder()
+                            .sessionId(in.string())
+                            .userId(in.nullableLong())
+                            .username(in.string())
+                            .fileId(in.nullableLong())
+                            .cursor(in.nullableInt())
+                            .selectionStart(in.nullableInt())
+                            .selectionEnd(in.nullableInt())
+                            .build());
+                }
+                int removedCount = in.count();
+                List<String> removed = new ArrayList<>(removedCount);
+                for (int i = 0; i < removedCount; i++) {
+                    removed.add(in.string());
+                }
+                yield new AwarenessDiff(roomId, updated, removed);
+            }
+            case EDIT_OPERATION -> EditOperationMessage.builder()
+                    .clientId(in.string())
+                    .revision(in.varint())
+                    .ops(in.ops())
+                    .build();
+            case AWARENESS_UPDATE -> AwarenessUpdate.builder()
+                    .fileId(in.nullableLong())
+                    .cursor(in.nullableInt())
+                    .selectionStart(in.nullableInt())
+                    .selectionEnd(in.nullableInt())
+                    .build();
+            default -> throw new IllegalArgumentException("Unknown binary frame type: " + tag);
+        };
+    }
+    
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    private static final class Writer {
+        
+        private byte[] buffer = new byte[64];
+        private int length;
+        
+        void tag(byte tag) {
+            ensure(1);
+            buffer[length++] = tag;
+        }
+        
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+        
+        void nullable(Number value) {
+            varint(value == null ? 0 : zigzag(value.longValue()) + 1);
+        }
+        
+        void string(String value) {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            raw(bytes);
+        }
+        
+        void ops(List<Object> ops) {
+            varint(ops.size());
+            for (Object op : ops) {
+                if (op instanceof String text) {
+                    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                    varint(((long) bytes.length << 1) | 1);
+                    raw(bytes);
+                } else if (op instanceof Number count) {
+                    varint(zigzag(count.longValue()) << 1);
+                } else {
+                    throw new IllegalArgumentException("Invalid operation component: " + op);
+                }
+            }
+        }
+        
+        void raw(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+        
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+        
+        private void ensure(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+    }
+    
+    private static final class Reader {
+        
+        private final byte[] buffer;
+        private int position;
+        
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+        
+        byte tag() {
+            require(1);
+            return buffer[position++];
+        }
+        
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                require(1);
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+        
+        int count() {
+            long count = varint();
+            if (count < 0 || count > buffer.length - position) {
+                throw new IllegalArgumentException("Invalid element count: " + count);
+            }
+            return (int) count;
+        }
+        
+        Long nullableLong() {
+            long value = varint();
+            return value == 0 ? null : unzigzag(value - 1);
+        }
+        
+        Integer nullableInt() {
+            Long value = nullableLong();
+            return value == null ? null : toInt(value);
+        }
+        
+        String string() {
+            long length = varint();
+            return length == 0 ? null : text(length - 1);
+        }
+        
+        List<Object> ops() {
+            int count = count();
+            List<Object> ops = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long header = varint();
+                if ((header & 1) == 1) {
+                    ops.add(text(header >>> 1));
+                } else {
+                    ops.add(toInt(unzigzag(header >>> 1)));
+                }
+            }
+            return ops;
+        }
+        
+        private String text(long length) {
+            if (length < 0 || length > buffer.length - position) {
+                throw new IllegalArgumentException("Invalid string length: " + length);
+            }
+            String text = new String(buffer, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return text;
+        }
+        
+        private void require(int bytes) {
+            if (buffer.length - position < bytes) {
+                throw new IllegalArgumentException("Truncated frame");
+            }
+        }
+        
+        private static int toInt(long value) {
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Value out of range: " + value);
+            }
+            return (int) value;
+        }
+    }
+}
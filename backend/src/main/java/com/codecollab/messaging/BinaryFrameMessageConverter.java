@@ -0,0 +1,37 @@
+package com.codecollab.messaging;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Reads and writes {@link BinaryFrameCodec} payloads for frames sent as
+ * {@code application/octet-stream}. Frames without that content type fall through to JSON.
+ */
+public class BinaryFrameMessageConverter extends AbstractMessageConverter {
+    
+    public BinaryFrameMessageConverter() {
+        super(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        setStrictContentTypeMatch(true);
+    }
+    
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BinaryFrameCodec.supports(clazz);
+    }
+    
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        if (!(message.getPayload() instanceof byte[] payload)) {
+            return null;
+        }
+        Object decoded = BinaryFrameCodec.decode(payload);
+        return targetClass.isInstance(decoded) ? decoded : null;
+    }
+    
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        return BinaryFrameCodec.encode(payload);
+    }
+}
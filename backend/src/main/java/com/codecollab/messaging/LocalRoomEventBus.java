@@ -0,0 +1,59 @@
+package com.codecollab.messaging;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Single-node bus: this node owns every room and envelopes are handed straight to the
+ * local listeners.
+ */
+@Component
+@ConditionalOnProperty(name = "bus.type", havingValue = "local", matchIfMissing = true)
+public class LocalRoomEventBus implements RoomEventBus {
+    
+    private final List<Consumer<RoomEnvelope>> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Function<byte[], byte[]>> handlers = new ConcurrentHashMap<>();
+    
+    @Override
+    public void publish(RoomEnvelope envelope) {
+        for (Consumer<RoomEnvelope> listener : listeners) {
+            listener.accept(envelope);
+        }
+    }
+    
+    @Override
+    public void subscribe(Consumer<RoomEnvelope> listener) {
+        listeners.add(listener);
+    }
+    
+    @Override
+    public boolean isOwner(long roomId) {
+        return true;
+    }
+    
+    @Override
+    public byte[] call(long roomId, String command, byte[] payload) {
+        Function<byte[], byte[]> handler = handlers.get(command);
+        if (handler == null) {
+            throw new RuntimeException("No handler for " + command);
+        }
+        return handler.apply(payload);
+    }
+    
+    @Override
+    public void notifyPeers(String command, byte[] payload) {
+        // No other nodes
+    }
+    
+    @Override
+    public void handle(String command, Function<byte[], byte[]> handler) {
+        handlers.put(command, handler);
+    }
+}
@@ -0,0 +1,31 @@
+package com.codecollab.messaging;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+/**
+ * Hands the STOMP handler a queued session for each connection, so every outbound frame
+ * goes through the session's bounded queue.
+ */
+public class OutboundBackpressureHandler extends WebSocketHandlerDecorator {
+    
+    private final OutboundSessionRegistry registry;
+    
+    public OutboundBackpressureHandler(WebSocketHandler delegate, OutboundSessionRegistry registry) {
+        super(delegate);
+        this.registry = registry;
+    }
+    
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        super.afterConnectionEstablished(registry.register(session));
+    }
+    
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        registry.unregister(session);
+        super.afterConnectionClosed(session, closeStatus);
+    }
+}
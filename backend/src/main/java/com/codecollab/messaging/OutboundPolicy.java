@@ -0,0 +1,22 @@
+package com.codecollab.messaging;
+
+/**
+ * Limits and overflow handling for a session's outbound queue. When a session exceeds
+ * either limit the enabled policies are applied in order until it fits again.
+ *
+ * @param maxQueuedFrames   frames a session may have waiting
+ * @param maxQueuedBytes    payload bytes a session may have waiting
+ * @param sendTimeLimit     millis a session may go without delivering a queued frame
+ * @param dropEphemeral     keep only the latest cursor/presence frame per destination, and drop them all on overflow
+ * @param coalesceDocuments replace a document's queued operations with one snapshot on overflow
+ * @param disconnect        close sessions that still overflow, or that stall past {@code sendTimeLimit}
+ */
+public record OutboundPolicy(
+        int maxQueuedFrames,
+        long maxQueuedBytes,
+        long sendTimeLimit,
+        boolean dropEphemeral,
+        boolean coalesceDocuments,
+        boolean disconnect
+) {
+}
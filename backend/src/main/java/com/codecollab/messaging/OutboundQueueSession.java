@@ -0,0 +1,306 @@
+package com.codecollab.messaging;
+
+import com.codecollab.dto.collab.DocumentSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Session wrapper whose {@link #sendMessage} never blocks. Frames wait in a bounded
+ * per-session queue and are written by a drain task, so a slow client only ever
+ * holds its own frames, and the {@link OutboundPolicy} decides what gives when it falls behind.
+ */
+@Slf4j
+class OutboundQueueSession extends WebSocketSessionDecorator {
+    
+    private static final Pattern EPHEMERAL_DESTINATION = Pattern.compile("/topic/room/\\d+/(awareness|presence|cursors?)(/.*)?");
+    private static final Pattern DOCUMENT_DESTINATION = Pattern.compile("/topic/room/\\d+/file/(\\d+)(/bin)?");
+    
+    enum Kind { EPHEMERAL, DOCUMENT, RELIABLE }
+    
+    record Frame(String destination, Kind kind, WebSocketMessage<?> message, int bytes) {
+    }
+    
+    private final OutboundSessionRegistry registry;
+    private final OutboundPolicy policy;
+    private final Deque<Frame> queue = new ArrayDeque<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private long queuedBytes;
+    private volatile long stalledSince;
+    private volatile boolean closed;
+    
+    OutboundQueueSession(WebSocketSession delegate, OutboundSessionRegistry registry, OutboundPolicy policy) {
+        super(delegate);
+        this.registry = registry;
+        this.policy = policy;
+    }
+    
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) {
+        if (closed) {
+            return;
+        }
+        if (message instanceof BinaryMessage && WebSocketSessionDecorator.unwrap(getDelegate()) instanceof SockJsSession) {
+            // SockJS carries text only; binary destinations are for native WebSocket clients
+            registry.recordDropped(1);
+            return;
+        }
+        Frame frame = classify(message);
+        boolean fits;
+        synchronized (this) {
+            if (frame.kind() == Kind.EPHEMERAL && policy.dropEphemeral()) {
+                registry.recordDropped(remove(frame.destination(), Kind.EPHEMERAL));
+            }
+            if (queue.isEmpty() && !draining.get()) {
+                stalledSince = System.currentTimeMillis();
+            }
+            queue.addLast(frame);
+            queuedBytes += frame.bytes();
+            fits = !isOverLimit() || relieve();
+            if (!fits && !policy.disconnect()) {
+                queue.removeLast();
+                queuedBytes -= frame.bytes();
+                registry.recordDropped(1);
+                fits = true;
+            }
+        }
+        if (!fits) {
+            disconnect("outbound queue overflow");
+            return;
+        }
+        scheduleDrain();
+    }
+    
+    synchronized int getQueueDepth() {
+        return queue.size();
+    }
+    
+    /**
+     * Re-arms the drain after the transport refused a frame, and closes the session if it
+     * has not delivered anything within the send time limit.
+     */
+    void checkStalled(long now) {
+        long since = stalledSince;
+        if (since != 0 && now - since > policy.sendTimeLimit() && policy.disconnect()) {
+            disconnect("no progress for " + (now - since) + "ms");
+            return;
+        }
+        if (getQueueDepth() > 0) {
+            scheduleDrain();
+        }
+    }
+    
+    private boolean isOverLimit() {
+        return queue.size() > policy.maxQueuedFrames() || queuedBytes > policy.maxQueuedBytes();
+    }
+    
+    private boolean relieve() {
+        if (policy.dropEphemeral()) {
+            registry.recordDropped(remove(null, Kind.EPHEMERAL));
+            if (!isOverLimit()) {
+                return true;
+            }
+        }
+        if (policy.coalesceDocuments()) {
+            coalesceDocuments();
+        }
+        return !isOverLimit();
+    }
+    
+    private int remove(String destination, Kind kind) {
+        int removed = 0;
+        for (Iterator<Frame> it = queue.iterator(); it.hasNext(); ) {
+            Frame queued = it.next();
+            if (queued.kind() == kind && (destination == null || destination.equals(queued.destination()))) {
+                it.remove();
+                queuedBytes -= queued.bytes();
+                removed++;
+            }
+        }
+        return removed;
+    }
+    
+    /**
+     * Replaces each document's queued operations with one frame carrying the current
+     * snapshot. Clients skip operations at or below the snapshot revision that arrive after it.
+     */
+    private void coalesceDocuments() {
+        Map<String, Frame> latest = new HashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+        for (Frame queued : queue) {
+            if (queued.kind() == Kind.DOCUMENT && queued.message() instanceof TextMessage) {
+                latest.put(queued.destination(), queued);
+                counts.merge(queued.destination(), 1, Integer::sum);
+            }
+        }
+        
+        Map<String, Frame> snapshots = new HashMap<>();
+        for (Map.Entry<String, Frame> entry : latest.entrySet()) {
+            Matcher matcher = DOCUMENT_DESTINATION.matcher(entry.getKey());
+            DocumentSnapshot snapshot = matcher.matches() ? registry.findSnapshot(Long.valueOf(matcher.group(1))) : null;
+            if (snapshot != null && counts.get(entry.getKey()) > 1) {
+                snapshots.put(entry.getKey(), snapshotFrame(entry.getValue(), registry.toJson(snapshot)));
+            }
+        }
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        
+        Deque<Frame> rebuilt = new ArrayDeque<>(queue.size());
+        queuedBytes = 0;
+        for (Frame queued : queue) {
+            Frame replacement = queued;
+            if (queued.kind() == Kind.DOCUMENT && snapshots.containsKey(queued.destination())) {
+                // The snapshot takes the place of the first operation; the rest are dropped
+                replacement = snapshots.put(queued.destination(), null);
+                if (replacement == null) {
+                    continue;
+                }
+            }
+            rebuilt.addLast(replacement);
+            queuedBytes += replacement.bytes();
+        }
+        registry.recordCoalesced(queue.size() - rebuilt.size());
+        queue.clear();
+        queue.addAll(rebuilt);
+    }
+    
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true) && !registry.execute(this::drain)) {
+            draining.set(false);
+            // No writer can take the session, which is an overflow like any other
+            if (policy.disconnect()) {
+                disconnect("no outbound writer available");
+            }
+        }
+    }
+    
+    private void drain() {
+        while (true) {
+            Frame frame;
+            synchronized (this) {
+                frame = queue.pollFirst();
+                if (frame == null || closed) {
+                    stalledSince = 0;
+                    draining.set(false);
+                    return;
+                }
+                queuedBytes -= frame.bytes();
+            }
+            try {
+                getDelegate().sendMessage(frame.message());
+            } catch (IllegalStateException ex) {
+                if (!getDelegate().isOpen()) {
+                    closed = true;
+                    draining.set(false);
+                    return;
+                }
+                // A SockJS polling session's cache is full; retry once the client polls again
+                synchronized (this) {
+                    queue.addFirst(frame);
+                    queuedBytes += frame.bytes();
+                    draining.set(false);
+                }
+                return;
+            } catch (IOException ex) {
+                log.debug("Failed to write to session {}", getId(), ex);
+                disconnect("write failed");
+                draining.set(false);
+                return;
+            }
+            synchronized (this) {
+                stalledSince = queue.isEmpty() ? 0 : System.currentTimeMillis();
+            }
+        }
+    }
+    
+    private void disconnect(String reason) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            registry.recordDropped(queue.size());
+            queue.clear();
+            queuedBytes = 0;
+        }
+        registry.recordDisconnect();
+        log.info("Closing slow WebSocket session {}: {}", getId(), reason);
+        try {
+            getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException | RuntimeException ex) {
+            log.debug("Failed to close session {}", getId(), ex);
+        }
+    }
+    
+    private static Frame classify(WebSocketMessage<?> message) {
+        String destination = destinationOf(message);
+        Kind kind = Kind.RELIABLE;
+        if (destination != null) {
+            if (EPHEMERAL_DESTINATION.matcher(destination).matches()) {
+                kind = Kind.EPHEMERAL;
+            } else if (DOCUMENT_DESTINATION.matcher(destination).matches()) {
+                kind = Kind.DOCUMENT;
+            }
+        }
+        return new Frame(destination, kind, message, message.getPayloadLength());
+    }
+    
+    static String destinationOf(WebSocketMessage<?> message) {
+        String head;
+        if (message instanceof TextMessage text) {
+            head = text.getPayload();
+        } else if (message instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload().duplicate();
+            byte[] bytes = new byte[Math.min(payload.remaining(), 1024)];
+            payload.get(bytes);
+            head = new String(bytes, StandardCharsets.ISO_8859_1);
+        } else {
+            return null;
+        }
+        if (!head.startsWith("MESSAGE\n")) {
+            return null;
+        }
+        int headersEnd = head.indexOf("\n\n");
+        int start = head.indexOf("\ndestination:");
+        if (start < 0 || (headersEnd >= 0 && start > headersEnd)) {
+            return null;
+        }
+        start += "\ndestination:".length();
+        int end = head.indexOf('\n', start);
+        return end < 0 ? null : head.substring(start, end);
+    }
+    
+    private static Frame snapshotFrame(Frame source, String json) {
+        String frame = ((TextMessage) source.message()).getPayload();
+        int headersEnd = frame.indexOf("\n\n");
+        StringBuilder rebuilt = new StringBuilder(headersEnd + json.length() + 64);
+        for (String header : frame.substring(0, headersEnd).split("\n")) {
+            if (!header.startsWith("content-length:")) {
+                rebuilt.append(header).append('\n');
+            }
+        }
+        rebuilt.append("snapshot:true\n")
+                .append("content-length:").append(json.getBytes(StandardCharsets.UTF_8).length).append("\n\n")
+                .append(json).append('\0');
+        TextMessage message = new TextMessage(rebuilt.toString());
+        return new Frame(source.destination(), Kind.DOCUMENT, message, message.getPayloadLength());
+    }
+}
@@ -0,0 +1,145 @@
+package com.codecollab.messaging;
+
+import com.codecollab.dto.collab.DocumentSnapshot;
+import com.codecollab.service.CollabService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the outbound queue of every WebSocket session and the counters for frames
+ * dropped, coalesced and sessions disconnected by the {@link OutboundPolicy}.
+ */
+@Component
+public class OutboundSessionRegistry {
+    
+    private final ObjectProvider<CollabService> collabService;
+    private final ObjectMapper objectMapper;
+    private final OutboundPolicy policy;
+    private final Map<String, OutboundQueueSession> sessions = new ConcurrentHashMap<>();
+    private final LongAdder droppedFrames = new LongAdder();
+    private final LongAdder coalescedFrames = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+    private final AtomicInteger writerIds = new AtomicInteger();
+    private final ThreadPoolExecutor writers;
+    
+    public OutboundSessionRegistry(
+            ObjectProvider<CollabService> collabService,
+            ObjectMapper objectMapper,
+            @Value("${websocket.outbound.max-queued-frames:1000}") int maxQueuedFrames,
+            @Value("${websocket.outbound.max-queued-bytes:1048576}") long maxQueuedBytes,
+            @Value("${websocket.outbound.send-time-limit:10000}") long sendTimeLimit,
+            @Value("${websocket.outbound.drop-ephemeral:true}") boolean dropEphemeral,
+            @Value("${websocket.outbound.coalesce-documents:true}") boolean coalesceDocuments,
+            @Value("${websocket.outbound.disconnect:true}") boolean disconnect,
+            @Value("${websocket.outbound.writer-threads:64}") int writerThreads,
+            @Value("${websocket.outbound.writer-queue:10000}") int writerQueue
+    ) {
+        this.collabService = collabService;
+        this.objectMapper = objectMapper;
+        this.policy = new OutboundPolicy(maxQueuedFrames, maxQueuedBytes, sendTimeLimit,
+                dropEphemeral, coalesceDocuments, disconnect);
+        // A slow client blocks its writer for as long as a send takes, so the pool is capped
+        // and sessions beyond it wait in a bounded queue rather than each taking a thread
+        this.writers = new ThreadPoolExecutor(writerThreads, writerThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(writerQueue), runnable -> {
+                    Thread thread = new Thread(runnable, "ws-outbound-" + writerIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.writers.allowCoreThreadTimeOut(true);
+    }
+    
+    public WebSocketSession register(WebSocketSession session) {
+        OutboundQueueSession decorated = new OutboundQueueSession(session, this, policy);
+        sessions.put(session.getId(), decorated);
+        return decorated;
+    }
+    
+    public void unregister(WebSocketSession session) {
+        sessions.remove(session.getId());
+    }
+    
+    @Scheduled(fixedDelayString = "${websocket.outbound.check-interval:1000}")
+    public void checkStalledSessions() {
+        long now = System.currentTimeMillis();
+        sessions.values().forEach(session -> session.checkStalled(now));
+    }
+    
+    public Map<String, Object> getMetrics() {
+        int queued = 0;
+        int maxDepth = 0;
+        for (OutboundQueueSession session : sessions.values()) {
+            int depth = session.getQueueDepth();
+            queued += depth;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("sessions", sessions.size());
+        metrics.put("queuedFrames", queued);
+        metrics.put("maxQueueDepth", maxDepth);
+        metrics.put("droppedFrames", droppedFrames.sum());
+        metrics.put("coalescedFrames", coalescedFrames.sum());
+        metrics.put("disconnects", disconnects.sum());
+        metrics.put("activeWriters", writers.getActiveCount());
+        metrics.put("waitingWriters", writers.getQueue().size());
+        return metrics;
+    }
+    
+    /**
+     * Schedules a session's drain, or returns false if every writer is busy and the
+     * backlog of waiting sessions is full.
+     */
+    boolean execute(Runnable task) {
+        try {
+            writers.execute(task);
+            return true;
+        } catch (RejectedExecutionException ex) {
+            return false;
+        }
+    }
+    
+    DocumentSnapshot findSnapshot(Long fileId) {
+        return collabService.getObject().findSnapshot(fileId);
+    }
+    
+    String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException ex) {
+            throw new RuntimeException("Failed to serialize snapshot", ex);
+        }
+    }
+    
+    void recordDropped(int frames) {
+        droppedFrames.add(frames);
+    }
+    
+    void recordCoalesced(int frames) {
+        coalescedFrames.add(frames);
+    }
+    
+    void recordDisconnect() {
+        disconnects.increment();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdown();
+    }
+}
@@ -0,0 +1,187 @@
+package com.codecollab.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Publishes room events to the broker. Each payload is serialized once on the calling
+ * thread, and the broker fan-out runs on a single-threaded shard chosen by room id, so a
+ * large room only delays rooms on its own shard and a room's events keep their order.
+ * Payloads with a {@link BinaryFrameCodec} encoding are also published, encoded once, to
+ * the destination's {@value #BINARY_SUFFIX} variant for clients that negotiated binary frames.
+ * Broadcasts are recorded in the room's {@link RoomEventLog} and carry its {@code epoch}
+ * and {@code seq} as STOMP headers, so reconnecting clients can resume where they left off.
+ * Serialized payloads travel over the {@link RoomEventBus}, so every node fans them out to
+ * its own subscribers. Sequence numbers are assigned by the room's owner node: a broadcast
+ * made elsewhere reaches the owner unnumbered, and the owner numbers and republishes it.
+ */
+@Slf4j
+@Component
+public class RoomBroadcaster {
+    
+    public static final String BINARY_SUFFIX = "/bin";
+    
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final RoomEventBus eventBus;
+    private final ExecutorService[] shards;
+    private final Map<Long, RoomEventLog> logs = new ConcurrentHashMap<>();
+    private final int logMaxEvents;
+    private final long logMaxBytes;
+    private final long logIdleTimeout;
+    
+    public RoomBroadcaster(
+            SimpMessagingTemplate messagingTemplate,
+            ObjectMapper objectMapper,
+            RoomEventBus eventBus,
+            @Value("${broadcast.shards:0}") int shardCount,
+            @Value("${broadcast.log.max-events:1000}") int logMaxEvents,
+            @Value("${broadcast.log.max-bytes:4194304}") long logMaxBytes,
+            @Value("${broadcast.log.idle-timeout:1800000}") long logIdleTimeout
+    ) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.eventBus = eventBus;
+        this.logMaxEvents = logMaxEvents;
+        this.logMaxBytes = logMaxBytes;
+        this.logIdleTimeout = logIdleTimeout;
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            String name = "room-broadcast-" + i;
+            shards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        eventBus.subscribe(this::deliver);
+    }
+    
+    /**
+     * Serializes {@code payload}, records it in the room's event log and publishes it to
+     * {@code destination} on the room's shard. Calls for the same room are delivered in call order.
+     */
+    public void broadcast(Long roomId, String destination, Object payload) {
+        publish(new RoomEnvelope(roomId, destination, toJson(payload), encodeBinary(payload), true));
+    }
+    
+    /**
+     * Like {@link #broadcast} but not recorded in the event log, for state that the next
+     * broadcast supersedes anyway.
+     */
+    public void broadcastTransient(Long roomId, String destination, Object payload) {
+        eventBus.publish(new RoomEnvelope(roomId, destination, toJson(payload), encodeBinary(payload), false));
+    }
+    
+    /**
+     * Returns the room's event log, creating an empty one if the room has none.
+     */
+    public RoomEventLog getEventLog(Long roomId) {
+        return logs.computeIfAbsent(roomId, id -> new RoomEventLog(logMaxEvents, logMaxBytes));
+    }
+    
+    @Scheduled(fixedDelayString = "${broadcast.log.sweep-interval:60000}")
+    public void evictIdleLogs() {
+        long cutoff = System.currentTimeMillis() - logIdleTimeout;
+        logs.values().removeIf(eventLog -> eventLog.getLastAccess() < cutoff);
+    }
+    
+    public int getShardCount() {
+        return shards.length;
+    }
+    
+    private void publish(RoomEnvelope envelope) {
+        if (!eventBus.isOwner(envelope.roomId())) {
+            eventBus.publish(envelope);
+            return;
+        }
+        RoomEventLog eventLog = getEventLog(envelope.roomId());
+        // Numbered and published under the log lock so the room's events leave in seq order
+        synchronized (eventLog) {
+            long seq = eventLog.append(envelope.destination(), envelope.json());
+            eventBus.publish(envelope.sequenced(eventLog.getEpoch(), seq));
+        }
+    }
+    
+    private void deliver(RoomEnvelope envelope) {
+        long roomId = envelope.roomId();
+        if (envelope.logged() && !envelope.isSequenced()) {
+            if (eventBus.isOwner(roomId)) {
+                publish(envelope);
+            } else {
+                log.warn("Dropped an unnumbered event for room {}, which this node does not own", roomId);
+            }
+            return;
+        }
+        shardFor(roomId).execute(() -> {
+            if (envelope.isSequenced() && !eventBus.isOwner(roomId)) {
+                getEventLog(roomId).record(envelope.epoch(), envelope.seq(), envelope.destination(), envelope.json());
+            }
+            send(envelope.destination(), message(envelope.json(), MimeTypeUtils.APPLICATION_JSON, envelope.epoch(), envelope.seq()));
+            if (envelope.binary() != null) {
+                send(envelope.destination() + BINARY_SUFFIX,
+                        message(envelope.binary(), MimeTypeUtils.APPLICATION_OCTET_STREAM, envelope.epoch(), envelope.seq()));
+            }
+        });
+    }
+    
+    private void send(String destination, Message<byte[]> message) {
+        try {
+            messagingTemplate.send(destination, message);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to broadcast to {}", destination, ex);
+        }
+    }
+    
+    private byte[] toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException ex) {
+            throw new RuntimeException("Failed to serialize broadcast", ex);
+        }
+    }
+    
+    private static byte[] encodeBinary(Object payload) {
+        return BinaryFrameCodec.supports(payload.getClass()) ? BinaryFrameCodec.encode(payload) : null;
+    }
+    
+    private static Message<byte[]> message(byte[] body, MimeType contentType, long epoch, long seq) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(contentType);
+        if (seq > 0) {
+            accessor.setNativeHeader("epoch", Long.toString(epoch));
+            accessor.setNativeHeader("seq", Long.toString(seq));
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(body, accessor.getMessageHeaders());
+    }
+    
+    private ExecutorService shardFor(long roomId) {
+        return shards[Math.floorMod(roomId, shards.length)];
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService shard : shards) {
+            shard.shutdown();
+        }
+    }
+}
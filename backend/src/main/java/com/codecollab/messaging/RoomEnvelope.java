@@ -0,0 +1,25 @@
+package com.codecollab.messaging;
+
+/**
+ * A serialized room broadcast as it travels over the {@link RoomEventBus}.
+ *
+ * @param json   the JSON payload
+ * @param binary the {@link BinaryFrameCodec} payload, or null if the type has none
+ * @param logged whether the event is recorded in the room's event log
+ * @param epoch  the owner's log epoch, or 0 if the event is not numbered yet
+ * @param seq    the owner's sequence number, or 0 if the event is not numbered yet
+ */
+public record RoomEnvelope(long roomId, String destination, byte[] json, byte[] binary, boolean logged, long epoch, long seq) {
+    
+    public RoomEnvelope(long roomId, String destination, byte[] json, byte[] binary, boolean logged) {
+        this(roomId, destination, json, binary, logged, 0, 0);
+    }
+    
+    public RoomEnvelope sequenced(long epoch, long seq) {
+        return new RoomEnvelope(roomId, destination, json, binary, logged, epoch, seq);
+    }
+    
+    public boolean isSequenced() {
+        return seq > 0;
+    }
+}
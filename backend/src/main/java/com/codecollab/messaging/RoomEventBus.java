@@ -0,0 +1,36 @@
+package com.codecollab.messaging;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Carries room broadcasts to every node's {@link RoomBroadcaster}, including the
+ * publishing node. Envelopes from one node for the same room arrive in publish order.
+ * <p>
+ * Every room has a single owner node, which holds the room's documents and numbers its
+ * logged events. A logged envelope that is not numbered yet goes to the owner only; the
+ * owner's broadcaster numbers it and publishes it again, so all nodes share one sequence.
+ * Work that must run where the room's state lives goes to the owner through {@link #call}.
+ */
+public interface RoomEventBus {
+    
+    void publish(RoomEnvelope envelope);
+    
+    void subscribe(Consumer<RoomEnvelope> listener);
+    
+    boolean isOwner(long roomId);
+    
+    /**
+     * Runs the handler registered for {@code command} on the room's owner and returns its
+     * result. Throws if the owner cannot be reached or the handler fails.
+     */
+    byte[] call(long roomId, String command, byte[] payload);
+    
+    /**
+     * Runs the handler registered for {@code command} on every other node, without waiting.
+     * Notices from one node arrive in order and ahead of that node's later calls.
+     */
+    void notifyPeers(String command, byte[] payload);
+    
+    void handle(String command, Function<byte[], byte[]> handler);
+}
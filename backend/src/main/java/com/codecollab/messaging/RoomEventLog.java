@@ -0,0 +1,95 @@
+package com.codecollab.messaging;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bounded log of the events broadcast to one room. Every event gets the next sequence
+ * number; the oldest events are compacted away once the log exceeds its size limits.
+ * The epoch changes whenever a log is recreated, so sequence numbers from an earlier
+ * log are never mistaken for current ones.
+ * <p>
+ * Only the room's owner node numbers events; the other nodes keep a replica that
+ * {@link #record}s the owner's numbers, so a client can resume on any node.
+ */
+public class RoomEventLog {
+    
+    private long epoch = ThreadLocalRandom.current().nextLong(1, 1L << 53);
+    private final int maxEvents;
+    private final long maxBytes;
+    private final Deque<LoggedEvent> events = new ArrayDeque<>();
+    private long seq;
+    private long bytes;
+    private volatile long lastAccess = System.currentTimeMillis();
+    
+    public RoomEventLog(int maxEvents, long maxBytes) {
+        this.maxEvents = maxEvents;
+        this.maxBytes = maxBytes;
+    }
+    
+    public synchronized long append(String destination, byte[] payload) {
+        add(++seq, destination, payload);
+        return seq;
+    }
+    
+    /**
+     * Records an event the owner has numbered. A new epoch or a gap in the sequence
+     * (events dropped on the way) starts the replica over, so it never replays a
+     * sequence with holes.
+     */
+    public synchronized void record(long epoch, long seq, String destination, byte[] payload) {
+        if (epoch != this.epoch || seq != this.seq + 1) {
+            this.epoch = epoch;
+            events.clear();
+            bytes = 0;
+        }
+        this.seq = seq;
+        add(seq, destination, payload);
+    }
+    
+    /**
+     * Returns the events after {@code afterSeq}, or null if they are no longer all in the
+     * log (compacted, or {@code epoch} belongs to an earlier log) and the caller needs a snapshot.
+     */
+    public synchronized List<LoggedEvent> since(long epoch, long afterSeq) {
+        lastAccess = System.currentTimeMillis();
+        long oldest = events.isEmpty() ? seq + 1 : events.peekFirst().seq();
+        if (epoch != this.epoch || afterSeq > seq || afterSeq < oldest - 1) {
+            return null;
+        }
+        List<LoggedEvent> missed = new ArrayList<>((int) (seq - afterSeq));
+        for (LoggedEvent event : events) {
+            if (event.seq() > afterSeq) {
+                missed.add(event);
+            }
+        }
+        return missed;
+    }
+    
+    public synchronized long getEpoch() {
+        return epoch;
+    }
+    
+    public synchronized long getSeq() {
+        return seq;
+    }
+    
+    public long getLastAccess() {
+        return lastAccess;
+    }
+    
+    private void add(long seq, String destination, byte[] payload) {
+        lastAccess = System.currentTimeMillis();
+        events.addLast(new LoggedEvent(seq, destination, payload));
+        bytes += payload.length;
+        while (events.size() > maxEvents || (bytes > maxBytes && events.size() > 1)) {
+            bytes -= events.removeFirst().payload().length;
+        }
+    }
+    
+    public record LoggedEvent(long seq, String destination, byte[] payload) {
+    }
+}
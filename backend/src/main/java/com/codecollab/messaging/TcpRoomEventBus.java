@@ -0,0 +1,720 @@
+package com.codecollab.messaging;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Full-mesh bus over TCP. Each node listens on {@code bus.tcp.bind-address} and keeps one
+ * outbound connection per peer in {@code bus.tcp.peers}; a single writer per connection
+ * drains its queue into frames grouped by room, so a peer sees each room's envelopes in
+ * publish order. Envelopes received from a peer are delivered locally only.
+ * <p>
+ * A room's owner is picked by rendezvous hashing over the node ids, so every node agrees
+ * on it as long as they list the same members; the handshake rejects a peer that does not.
+ * Node ids are {@code bus.tcp.node-id}, by default the bind address and port, and must
+ * match how the other nodes list this one in their peers.
+ * <p>
+ * Connections are authenticated with {@code bus.tcp.secret}: the accepting node sends a
+ * random challenge, and every frame carries an HMAC-SHA256 over the challenge, the frame's
+ * index on the connection and its bytes, so frames cannot be forged, replayed or
+ * reordered. Frames are not encrypted, so the bind address must be on a private network.
+ * Frames over {@code bus.tcp.max-frame-bytes}, or that fail their MAC, close the connection.
+ * <p>
+ * While a peer is unreachable its envelopes are dropped rather than buffered: the peer's
+ * clients resync through the resume endpoint once they reconnect. Calls to an unreachable
+ * owner fail, so its rooms cannot be edited until it is back.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "bus.type", havingValue = "tcp")
+public class TcpRoomEventBus implements RoomEventBus {
+    
+    private static final int MAGIC = 0x43434232;
+    private static final String HMAC = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+    private static final int CHALLENGE_LENGTH = 16;
+    private static final int HANDSHAKE_TIMEOUT = 5000;
+    private static final int MAX_HELLO_BYTES = 65536;
+    private static final byte FLAG_LOGGED = 1;
+    private static final byte FLAG_BINARY = 2;
+    private static final byte FLAG_SEQUENCED = 4;
+    private static final byte CALL = 1;
+    private static final byte REPLY = 2;
+    private static final byte NOTICE = 3;
+    
+    private final int port;
+    private final String bindAddress;
+    private final String configuredNodeId;
+    private final List<String> peerAddresses;
+    private final SecretKeySpec key;
+    private final int maxFrameBytes;
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long reconnectDelay;
+    private final long callTimeout;
+    private final SecureRandom random = new SecureRandom();
+    private final List<Consumer<RoomEnvelope>> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, Function<byte[], byte[]>> handlers = new ConcurrentHashMap<>();
+    private final List<Peer> peers = new CopyOnWriteArrayList<>();
+    private final List<Socket> inbound = new CopyOnWriteArrayList<>();
+    private final Map<Long, CompletableFuture<byte[]>> pendingCalls = new ConcurrentHashMap<>();
+    private final AtomicLong nextCallId = new AtomicLong();
+    private final ExecutorService[] callShards;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private ServerSocket serverSocket;
+    private volatile String nodeId;
+    private volatile boolean running;
+    
+    public TcpRoomEventBus(
+            @Value("${bus.tcp.port:9400}") int port,
+            @Value("${bus.tcp.bind-address:127.0.0.1}") String bindAddress,
+            @Value("${bus.tcp.node-id:}") String nodeId,
+            @Value("${bus.tcp.peers:}") List<String> peerAddresses,
+            @Value("${bus.tcp.secret:}") String secret,
+            @Value("${bus.tcp.max-frame-bytes:16777216}") int maxFrameBytes,
+            @Value("${bus.tcp.queue-capacity:10000}") int queueCapacity,
+            @Value("${bus.tcp.batch-size:256}") int batchSize,
+            @Value("${bus.tcp.reconnect-delay:1000}") long reconnectDelay,
+            @Value("${bus.tcp.call-timeout:5000}") long callTimeout
+    ) {
+        if (secret == null || secret.length() < 16) {
+            throw new RuntimeException("bus.tcp.secret must be set to at least 16 characters");
+        }
+        this.port = port;
+        this.bindAddress = bindAddress;
+        this.configuredNodeId = nodeId;
+        this.peerAddresses = peerAddresses;
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC);
+        this.maxFrameBytes = maxFrameBytes;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.reconnectDelay = reconnectDelay;
+        this.callTimeout = callTimeout;
+        this.callShards = new ExecutorService[Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < callShards.length; i++) {
+            String name = "room-bus-call-" + i;
+            callShards[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+    
+    @PostConstruct
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(bindAddress, port));
+        nodeId = configuredNodeId.isBlank() ? bindAddress + ":" + serverSocket.getLocalPort() : configuredNodeId;
+        running = true;
+        startThread("room-bus-accept", this::acceptLoop);
+        for (String address : peerAddresses) {
+            if (!address.isBlank()) {
+                int separator = address.lastIndexOf(':');
+                addPeer(address.substring(0, separator).trim(), Integer.parseInt(address.substring(separator + 1).trim()));
+            }
+        }
+    }
+    
+    public void addPeer(String host, int peerPort) {
+        Peer peer = new Peer(host, peerPort);
+        peers.add(peer);
+        startThread("room-bus-peer-" + peer.id, peer::run);
+    }
+    
+    public int getLocalPort() {
+        return serverSocket.getLocalPort();
+    }
+    
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    @Override
+    public void publish(RoomEnvelope envelope) {
+        if (envelope.logged() && !envelope.isSequenced()) {
+            // Only the owner numbers logged events; it publishes them again to every node
+            Peer owner = peerFor(ownerOf(envelope.roomId()));
+            if (owner == null) {
+                deliver(envelope);
+            } else {
+                owner.offer(envelope);
+            }
+            return;
+        }
+        deliver(envelope);
+        for (Peer peer : peers) {
+            peer.offer(envelope);
+        }
+    }
+    
+    @Override
+    public void subscribe(Consumer<RoomEnvelope> listener) {
+        listeners.add(listener);
+    }
+    
+    @Override
+    public boolean isOwner(long roomId) {
+        return ownerOf(roomId).equals(nodeId);
+    }
+    
+    @Override
+    public byte[] call(long roomId, String command, byte[] payload) {
+        String owner = ownerOf(roomId);
+        Peer peer = peerFor(owner);
+        if (peer == null) {
+            return handlerFor(command).apply(payload);
+        }
+        long id = nextCallId.incrementAndGet();
+        CompletableFuture<byte[]> reply = new CompletableFuture<>();
+        pendingCalls.put(id, reply);
+        try {
+            if (!peer.offer(new Call(id, roomId, command, payload))) {
+                throw new RuntimeException("Room " + roomId + " is unavailable: node " + owner + " is unreachable");
+            }
+            return reply.get(callTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new RuntimeException("Room " + roomId + " is unavailable: node " + owner + " did not answer", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for node " + owner, ex);
+        } finally {
+            pendingCalls.remove(id);
+        }
+    }
+    
+    @Override
+    public void notifyPeers(String command, byte[] payload) {
+        Notice notice = new Notice(command, payload);
+        for (Peer peer : peers) {
+            peer.offer(notice);
+        }
+    }
+    
+    @Override
+    public void handle(String command, Function<byte[], byte[]> handler) {
+        handlers.put(command, handler);
+    }
+    
+    public long getSentCount() {
+        return sent.sum();
+    }
+    
+    public long getReceivedCount() {
+        return received.sum();
+    }
+    
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+    
+    public boolean isConnected() {
+        return peers.stream().allMatch(peer -> peer.connected);
+    }
+    
+    /**
+     * Picks the node with the highest weight for the room, so adding or removing a node
+     * only moves the rooms that it gains or owned.
+     */
+    String ownerOf(long roomId) {
+        String owner = nodeId;
+        long best = weight(nodeId, roomId);
+        for (Peer peer : peers) {
+            long weight = weight(peer.id, roomId);
+            if (weight > best || (weight == best && peer.id.compareTo(owner) < 0)) {
+                owner = peer.id;
+                best = weight;
+            }
+        }
+        return owner;
+    }
+    
+    private List<String> members() {
+        List<String> members = new ArrayList<>();
+        members.add(nodeId);
+        peers.forEach(peer -> members.add(peer.id));
+        members.sort(null);
+        return members;
+    }
+    
+    private Peer peerFor(String id) {
+        for (Peer peer : peers) {
+            if (peer.id.equals(id)) {
+                return peer;
+            }
+        }
+        return null;
+    }
+    
+    private Function<byte[], byte[]> handlerFor(String command) {
+        Function<byte[], byte[]> handler = handlers.get(command);
+        if (handler == null) {
+            throw new RuntimeException("No handler for " + command);
+        }
+        return handler;
+    }
+    
+    private void deliver(RoomEnvelope envelope) {
+        for (Consumer<RoomEnvelope> listener : listeners) {
+            listener.accept(envelope);
+        }
+    }
+    
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                inbound.add(socket);
+                startThread("room-bus-reader-" + socket.getRemoteSocketAddress(), () -> read(socket));
+            } catch (IOException ex) {
+                if (running) {
+                    log.warn("Room event bus failed to accept a peer", ex);
+                }
+            }
+        }
+    }
+    
+    private void read(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            byte[] challenge = new byte[CHALLENGE_LENGTH];
+            random.nextBytes(challenge);
+            out.write(challenge);
+            out.flush();
+            
+            socket.setSoTimeout(HANDSHAKE_TIMEOUT);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not a room event bus peer");
+            }
+            Mac mac = newMac();
+            long index = 0;
+            DataInputStream hello = new DataInputStream(new ByteArrayInputStream(readFrame(in, mac, challenge, index++, MAX_HELLO_BYTES)));
+            String peerId = hello.readUTF();
+            int memberCount = hello.readInt();
+            List<String> theirMembers = new ArrayList<>();
+            for (int i = 0; i < memberCount; i++) {
+                theirMembers.add(hello.readUTF());
+            }
+            if (peerFor(peerId) == null || !theirMembers.equals(members())) {
+                log.error("Room event bus peer {} lists members {} but this node has {}; room owners would disagree",
+                        peerId, theirMembers, members());
+                rejected.increment();
+                return;
+            }
+            socket.setSoTimeout(0);
+            
+            while (running) {
+                readPayload(peerId, new DataInputStream(new ByteArrayInputStream(readFrame(in, mac, challenge, index++, maxFrameBytes))));
+            }
+        } catch (EOFException ex) {
+            log.debug("Room event bus peer {} disconnected", socket.getRemoteSocketAddress());
+        } catch (IOException ex) {
+            if (running) {
+                rejected.increment();
+                log.warn("Room event bus closed the connection from {}: {}", socket.getRemoteSocketAddress(), ex.getMessage());
+            }
+        } finally {
+            inbound.remove(socket);
+        }
+    }
+    
+    private static byte[] readFrame(DataInputStream in, Mac mac, byte[] challenge, long index, int maxLength) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > maxLength) {
+            throw new IOException("frame of " + length + " bytes exceeds the limit of " + maxLength);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        byte[] expected = sign(mac, challenge, index, payload);
+        byte[] actual = new byte[MAC_LENGTH];
+        in.readFully(actual);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            throw new IOException("frame failed authentication");
+        }
+        return payload;
+    }
+    
+    private void readPayload(String peerId, DataInputStream in) throws IOException {
+        int groups = in.readInt();
+        for (int g = 0; g < groups; g++) {
+            long roomId = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String destination = in.readUTF();
+                byte flags = in.readByte();
+                long epoch = 0;
+                long seq = 0;
+                if ((flags & FLAG_SEQUENCED) != 0) {
+                    epoch = in.readLong();
+                    seq = in.readLong();
+                }
+                byte[] json = readBytes(in);
+                byte[] binary = (flags & FLAG_BINARY) != 0 ? readBytes(in) : null;
+                received.increment();
+                deliver(new RoomEnvelope(roomId, destination, json, binary, (flags & FLAG_LOGGED) != 0, epoch, seq));
+            }
+        }
+        int controls = in.readInt();
+        for (int i = 0; i < controls; i++) {
+            byte kind = in.readByte();
+            if (kind == CALL) {
+                Call call = new Call(in.readLong(), in.readLong(), in.readUTF(), readBytes(in));
+                // One thread per shard of rooms keeps a room's calls in the order they were sent
+                callShards[(int) Math.floorMod(call.roomId(), (long) callShards.length)].execute(() -> answer(peerId, call));
+            } else if (kind == REPLY) {
+                long id = in.readLong();
+                boolean ok = in.readBoolean();
+                byte[] body = readBytes(in);
+                CompletableFuture<byte[]> reply = pendingCalls.get(id);
+                if (reply != null) {
+                    if (ok) {
+                        reply.complete(body);
+                    } else {
+                        reply.completeExceptionally(new RuntimeException(new String(body, StandardCharsets.UTF_8)));
+                    }
+                }
+            } else if (kind == NOTICE) {
+                String command = in.readUTF();
+                byte[] payload = readBytes(in);
+                try {
+                    handlerFor(command).apply(payload);
+                } catch (RuntimeException ex) {
+                    log.warn("Room event bus notice {} from {} failed", command, peerId, ex);
+                }
+            } else {
+                throw new IOException("unknown message kind " + kind);
+            }
+        }
+    }
+    
+    private void answer(String peerId, Call call) {
+        Reply reply;
+        try {
+            byte[] result = handlerFor(call.command()).apply(call.payload());
+            reply = new Reply(call.id(), true, result != null ? result : new byte[0]);
+        } catch (RuntimeException ex) {
+            reply = new Reply(call.id(), false, String.valueOf(ex.getMessage()).getBytes(StandardCharsets.UTF_8));
+        }
+        Peer peer = peerFor(peerId);
+        if (peer != null) {
+            peer.offer(reply);
+        }
+    }
+    
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        // The frame is already in memory, so a valid length never exceeds what is left of it
+        if (length < 0 || length > in.available()) {
+            throw new IOException("field of " + length + " bytes overruns its frame");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+    
+    private static byte[] encode(List<Object> batch) throws IOException {
+        Map<Long, List<RoomEnvelope>> byRoom = new LinkedHashMap<>();
+        List<Object> controls = new ArrayList<>();
+        for (Object item : batch) {
+            if (item instanceof RoomEnvelope envelope) {
+                byRoom.computeIfAbsent(envelope.roomId(), id -> new ArrayList<>()).add(envelope);
+            } else {
+                controls.add(item);
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(byRoom.size());
+        for (Map.Entry<Long, List<RoomEnvelope>> group : byRoom.entrySet()) {
+            out.writeLong(group.getKey());
+            out.writeInt(group.getValue().size());
+            for (RoomEnvelope envelope : group.getValue()) {
+                out.writeUTF(envelope.destination());
+                out.writeByte((envelope.logged() ? FLAG_LOGGED : 0)
+                        | (envelope.binary() != null ? FLAG_BINARY : 0)
+                        | (envelope.isSequenced() ? FLAG_SEQUENCED : 0));
+                if (envelope.isSequenced()) {
+                    out.writeLong(envelope.epoch());
+                    out.writeLong(envelope.seq());
+                }
+                writeBytes(out, envelope.json());
+                if (envelope.binary() != null) {
+                    writeBytes(out, envelope.binary());
+                }
+            }
+        }
+        out.writeInt(controls.size());
+        for (Object control : controls) {
+            if (control instanceof Call call) {
+                out.writeByte(CALL);
+                out.writeLong(call.id());
+                out.writeLong(call.roomId());
+                out.writeUTF(call.command());
+                writeBytes(out, call.payload());
+            } else if (control instanceof Reply reply) {
+                out.writeByte(REPLY);
+                out.writeLong(reply.id());
+                out.writeBoolean(reply.ok());
+                writeBytes(out, reply.body());
+            } else if (control instanceof Notice notice) {
+                out.writeByte(NOTICE);
+                out.writeUTF(notice.command());
+                writeBytes(out, notice.payload());
+            }
+        }
+        return bytes.toByteArray();
+    }
+    
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException ex) {
+            throw new RuntimeException("HMAC-SHA256 is unavailable", ex);
+        }
+    }
+    
+    private static byte[] sign(Mac mac, byte[] challenge, long index, byte[] payload) {
+        mac.update(challenge);
+        mac.update(ByteBuffer.allocate(Long.BYTES).putLong(index).array());
+        return mac.doFinal(payload);
+    }
+    
+    private static long weight(String node, long roomId) {
+        // MurmurHash3 finalizer over the node's hash mixed with the room id
+        long h = node.hashCode() * 0x9E3779B97F4A7C15L ^ roomId;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+    
+    private static void startThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        peers.forEach(Peer::close);
+        inbound.forEach(socket -> {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already closing
+            }
+        });
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // Already closing
+        }
+        for (ExecutorService shard : callShards) {
+            shard.shutdown();
+        }
+    }
+    
+    private record Call(long id, long roomId, String command, byte[] payload) {
+    }
+    
+    private record Reply(long id, boolean ok, byte[] body) {
+    }
+    
+    private record Notice(String command, byte[] payload) {
+    }
+    
+    private final class Peer {
+        
+        private final String host;
+        private final int port;
+        private final String id;
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>(queueCapacity);
+        private volatile boolean connected;
+        private volatile Socket socket;
+        
+        Peer(String host, int port) {
+            this.host = host;
+            this.port = port;
+            this.id = host + ":" + port;
+        }
+        
+        boolean offer(Object item) {
+            if (!connected || !queue.offer(item)) {
+                dropped.increment();
+                return false;
+            }
+            return true;
+        }
+        
+        void run() {
+            while (running) {
+                try (Socket connection = new Socket()) {
+                    connection.connect(new InetSocketAddress(host, port), 2000);
+                    connection.setTcpNoDelay(true);
+                    socket = connection;
+                    connection.setSoTimeout(HANDSHAKE_TIMEOUT);
+                    byte[] challenge = new byte[CHALLENGE_LENGTH];
+                    new DataInputStream(connection.getInputStream()).readFully(challenge);
+                    connection.setSoTimeout(0);
+                    
+                    Mac mac = newMac();
+                    long index = 0;
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+                    out.writeInt(MAGIC);
+                    writeFrame(out, mac, challenge, index++, hello());
+                    connected = true;
+                    log.info("Room event bus connected to {}", id);
+                    
+                    List<Object> batch = new ArrayList<>(batchSize);
+                    while (running) {
+                        Object first = queue.poll(1, TimeUnit.SECONDS);
+                        if (first == null) {
+                            continue;
+                        }
+                        batch.add(first);
+                        queue.drainTo(batch, batchSize - 1);
+                        for (byte[] frame : frames(batch)) {
+                            writeFrame(out, mac, challenge, index++, frame);
+                        }
+                        sent.add(batch.size());
+                        batch.clear();
+                    }
+                } catch (IOException ex) {
+                    if (running) {
+                        log.debug("Room event bus peer {} unavailable: {}", id, ex.getMessage());
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    connected = false;
+                    dropped.add(queue.size());
+                    queue.clear();
+                }
+                sleep(reconnectDelay);
+            }
+        }
+        
+        private byte[] hello() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(nodeId);
+            List<String> members = members();
+            out.writeInt(members.size());
+            for (String member : members) {
+                out.writeUTF(member);
+            }
+            return bytes.toByteArray();
+        }
+        
+        /**
+         * Encodes the batch, halving it until every frame fits the peer's limit. A single
+         * item that is still too large is dropped; the peer would close the connection.
+         */
+        private List<byte[]> frames(List<Object> batch) throws IOException {
+            byte[] frame = encode(batch);
+            if (frame.length <= maxFrameBytes) {
+                return List.of(frame);
+            }
+            if (batch.size() == 1) {
+                log.warn("Dropped a {} byte room event bus message for {}", frame.length, id);
+                dropped.increment();
+                return List.of();
+            }
+            List<byte[]> frames = new ArrayList<>(frames(batch.subList(0, batch.size() / 2)));
+            frames.addAll(frames(batch.subList(batch.size() / 2, batch.size())));
+            return frames;
+        }
+        
+        private void writeFrame(DataOutputStream out, Mac mac, byte[] challenge, long index, byte[] frame) throws IOException {
+            out.writeInt(frame.length);
+            out.write(frame);
+            out.write(sign(mac, challenge, index, frame));
+            out.flush();
+        }
+        
+        void close() {
+            Socket current = socket;
+            if (current != null) {
+                try {
+                    current.close();
+                } catch (IOException ignored) {
+                    // Already closing
+                }
+            }
+        }
+        
+        private void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
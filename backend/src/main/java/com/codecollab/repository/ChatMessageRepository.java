@@ -2,7 +2,10 @@ package com.codecollab.repository;
 
 import com.codecollab.entity.ChatMessage;
 import com.codecollab.entity.Room;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +14,10 @@ import java.util.List;
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
     List<ChatMessage> findByRoomOrderByCreatedAtAsc(Room room);
     List<ChatMessage> findTop50ByRoomOrderByCreatedAtDesc(Room room);
+    
+    @Query("select m from ChatMessage m join fetch m.user where m.room.id = :roomId order by m.id desc")
+    List<ChatMessage> findLatest(@Param("roomId") Long roomId, Pageable pageable);
+    
+    @Query("select m from ChatMessage m join fetch m.user where m.room.id = :roomId and m.id < :beforeId order by m.id desc")
+    List<ChatMessage> findBefore(@Param("roomId") Long roomId, @Param("beforeId") Long beforeId, Pageable pageable);
 }
@@ -1,15 +1,71 @@
 package com.codecollab.repository;
 
+import com.codecollab.dto.FileNodeRow;
 import com.codecollab.entity.FileNode;
 import com.codecollab.entity.Room;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface FileNodeRepository extends JpaRepository<FileNode, Long> {
     List<FileNode> findByRoom(Room room);
     List<FileNode> findByRoomOrderBySortOrder(Room room);
     List<FileNode> findByParent(FileNode parent);
+    
+    @Query("select new com.codecollab.dto.FileNodeRow(f.id, f.room.id, p.id, f.path, f.name, f.type, f.contentHash, f.language, " +
+            "f.contentSize, f.version, f.createdAt, f.updatedAt) " +
+            "from FileNode f left join f.parent p where f.room.id = :roomId order by f.sortOrder, f.id")
+    List<FileNodeRow> findTreeRowsByRoomId(@Param("roomId") Long roomId);
+    
+    @Query("select new com.codecollab.dto.FileNodeRow(f.id, f.room.id, p.id, f.path, f.name, f.type, f.contentHash, f.language, " +
+            "f.contentSize, f.version, f.createdAt, f.updatedAt) " +
+            "from FileNode f left join f.parent p where f.id = :id")
+    Optional<FileNodeRow> findMetadataById(@Param("id") Long id);
+    
+    /**
+     * Loads a node under a shared lock, so its path cannot move until the caller commits.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("select f from FileNode f where f.id = :id")
+    Optional<FileNode> findByIdForShare(@Param("id") Long id);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select f from FileNode f where f.id = :id")
+    Optional<FileNode> findByIdForUpdate(@Param("id") Long id);
+    
+    @Query("select max(length(f.path)) from FileNode f where f.room.id = :roomId and f.path like :pattern")
+    Integer findMaxPathLength(@Param("roomId") Long roomId, @Param("pattern") String pattern);
+    
+    /**
+     * Rewrites the path prefix of every node matching {@code pattern}: the first
+     * {@code offset - 1} characters are replaced by {@code path}.
+     */
+    @Modifying
+    @Query("update FileNode f set f.path = concat(:path, substring(f.path, :offset)) " +
+            "where f.room.id = :roomId and f.path like :pattern")
+    int movePaths(@Param("roomId") Long roomId, @Param("pattern") String pattern, @Param("path") String path,
+                  @Param("offset") int offset);
+    
+    /**
+     * Clears parent links inside a subtree so it can be deleted in one statement without
+     * tripping the parent foreign key, whatever order the rows are removed in.
+     */
+    @Modifying
+    @Query("update FileNode f set f.parent = null where f.room.id = :roomId and f.path like :pattern")
+    int detachSubtree(@Param("roomId") Long roomId, @Param("pattern") String pattern);
+    
+    @Modifying
+    @Query("delete from FileNode f where f.room.id = :roomId and f.path like :pattern")
+    int deleteSubtree(@Param("roomId") Long roomId, @Param("pattern") String pattern);
+    
+    @Query("select distinct f.contentHash from FileNode f where f.contentHash is not null")
+    List<String> findAllContentHashes();
 }
@@ -4,6 +4,8 @@ import com.codecollab.entity.Room;
 import com.codecollab.entity.RoomMember;
 import com.codecollab.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,4 +17,11 @@ public interface RoomMemberRepository extends JpaRepository<RoomMember, Long> {
     List<RoomMember> findByUser(User user);
     Optional<RoomMember> findByRoomAndUser(Room room, User user);
     boolean existsByRoomAndUser(Room room, User user);
+    boolean existsByRoomIdAndUserId(Long roomId, Long userId);
+    
+    @Query("select m.room.id from RoomMember m where m.user.id = :userId")
+    List<Long> findRoomIdsByUserId(@Param("userId") Long userId);
+    
+    @Query("select m.user.id from RoomMember m where m.room.id = :roomId")
+    List<Long> findUserIdsByRoomId(@Param("roomId") Long roomId);
 }
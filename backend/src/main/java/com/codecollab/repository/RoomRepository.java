@@ -1,8 +1,15 @@
 package com.codecollab.repository;
 
+import com.codecollab.dto.RoomSummary;
 import com.codecollab.entity.Room;
 import com.codecollab.entity.User;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +19,27 @@ import java.util.Optional;
 public interface RoomRepository extends JpaRepository<Room, Long> {
     Optional<Room> findByInviteCode(String inviteCode);
     List<Room> findByOwner(User owner);
+    
+    @Query("select new com.codecollab.dto.RoomSummary(r.id, r.name, r.description, r.inviteCode, o.username, r.memberCount) " +
+            "from Room r join r.owner o where r.id = :id")
+    Optional<RoomSummary> findSummaryById(@Param("id") Long id);
+    
+    /**
+     * Lists the user's rooms in id order, starting after {@code afterId}, in a single query.
+     */
+    @Query("select new com.codecollab.dto.RoomSummary(r.id, r.name, r.description, r.inviteCode, o.username, r.memberCount) " +
+            "from RoomMember m join m.room r join r.owner o " +
+            "where m.user.id = :userId and r.id > :afterId order by r.id")
+    List<RoomSummary> findSummariesByMember(@Param("userId") Long userId, @Param("afterId") Long afterId, Pageable pageable);
+    
+    /**
+     * Locks the room row; file moves take it so that concurrent moves cannot form a cycle.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from Room r where r.id = :id")
+    Optional<Room> findByIdForUpdate(@Param("id") Long id);
+    
+    @Modifying
+    @Query("update Room r set r.memberCount = r.memberCount + 1 where r.id = :id")
+    int incrementMemberCount(@Param("id") Long id);
 }
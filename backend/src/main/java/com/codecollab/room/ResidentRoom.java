@@ -0,0 +1,196 @@
+package com.codecollab.room;
+
+import com.codecollab.dto.FileNodeRow;
+import com.codecollab.util.FilePaths;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory state of an active room: its metadata and file tree rows. Membership is
+ * kept by {@link com.codecollab.security.MembershipCache}.
+ * Mutations are serialized on the room and publish a new immutable view, so readers
+ * never lock and always see a consistent tree.
+ */
+public class ResidentRoom {
+    
+    private static final long ROW_OVERHEAD_BYTES = 160;
+    
+    private final Long roomId;
+    private final String name;
+    private final String description;
+    private final String inviteCode;
+    private final String ownerUsername;
+    private volatile Map<Long, FileNodeRow> files;
+    private volatile long lastAccess = System.currentTimeMillis();
+    
+    public ResidentRoom(Long roomId, String name, String description, String inviteCode, String ownerUsername,
+                        List<FileNodeRow> files) {
+        this.roomId = roomId;
+        this.name = name;
+        this.description = description;
+        this.inviteCode = inviteCode;
+        this.ownerUsername = ownerUsername;
+        Map<Long, FileNodeRow> byId = new LinkedHashMap<>(files.size() * 2);
+        for (FileNodeRow row : files) {
+            byId.put(row.getId(), row);
+        }
+        this.files = Collections.unmodifiableMap(byId);
+    }
+    
+    /**
+     * Returns the file rows in display order.
+     */
+    public List<FileNodeRow> getFiles() {
+        touch();
+        return new ArrayList<>(files.values());
+    }
+    
+    public FileNodeRow findFile(Long fileId) {
+        touch();
+        return files.get(fileId);
+    }
+    
+    /**
+     * Adds a file, ignoring rows already present (e.g. a row read by the initial load).
+     */
+    public void addFile(FileNodeRow row) {
+        addFiles(List.of(row));
+    }
+    
+    /**
+     * Adds several files with a single copy of the map.
+     */
+    public synchronized void addFiles(Collection<FileNodeRow> rows) {
+        Map<Long, FileNodeRow> updated = new LinkedHashMap<>(files);
+        for (FileNodeRow row : rows) {
+            updated.putIfAbsent(row.getId(), row);
+        }
+        if (updated.size() != files.size()) {
+            files = Collections.unmodifiableMap(updated);
+        }
+    }
+    
+    /**
+     * Points a file at newly persisted content, unless the row already holds a later version.
+     */
+    public synchronized void updateContent(Long fileId, String contentHash, long size, long version, LocalDateTime updatedAt) {
+        FileNodeRow row = files.get(fileId);
+        if (row != null && (row.getVersion() == null || row.getVersion() < version)) {
+            Map<Long, FileNodeRow> updated = new LinkedHashMap<>(files);
+            updated.put(fileId, row.withStoredContent(contentHash, size, version, updatedAt));
+            files = Collections.unmodifiableMap(updated);
+        }
+    }
+    
+    /**
+     * Ids of a file and all of its descendants.
+     */
+    public List<Long> findSubtreeIds(Long fileId) {
+        touch();
+        Map<Long, FileNodeRow> current = files;
+        FileNodeRow root = current.get(fileId);
+        List<Long> ids = new ArrayList<>();
+        if (root != null) {
+            for (FileNodeRow row : current.values()) {
+                if (FilePaths.isWithin(row.getPath(), root.getPath())) {
+                    ids.add(row.getId());
+                }
+            }
+        }
+        return ids;
+    }
+    
+    /**
+     * Removes a file and all of its descendants, returning the removed ids.
+     */
+    public synchronized Set<Long> removeSubtree(Long fileId) {
+        Set<Long> removed = new HashSet<>();
+        FileNodeRow root = files.get(fileId);
+        if (root == null) {
+            return removed;
+        }
+        Map<Long, FileNodeRow> updated = new LinkedHashMap<>(files);
+        for (FileNodeRow row : files.values()) {
+            if (FilePaths.isWithin(row.getPath(), root.getPath())) {
+                removed.add(row.getId());
+                updated.remove(row.getId());
+            }
+        }
+        files = Collections.unmodifiableMap(updated);
+        return removed;
+    }
+    
+    /**
+     * Re-parents a file and rewrites the path prefix of its whole subtree.
+     */
+    public synchronized void moveSubtree(Long fileId, Long parentId, String path) {
+        FileNodeRow root = files.get(fileId);
+        if (root == null || path.equals(root.getPath())) {
+            return;
+        }
+        String oldPath = root.getPath();
+        Map<Long, FileNodeRow> updated = new LinkedHashMap<>(files);
+        for (FileNodeRow row : files.values()) {
+            if (FilePaths.isWithin(row.getPath(), oldPath)) {
+                updated.put(row.getId(), row.withPath(row.getId().equals(fileId) ? parentId : row.getParentId(),
+                        path + row.getPath().substring(oldPath.length())));
+            }
+        }
+        files = Collections.unmodifiableMap(updated);
+    }
+    
+    /**
+     * Rough heap footprint of the resident state, for capacity monitoring.
+     */
+    public long estimateBytes() {
+        long bytes = ROW_OVERHEAD_BYTES + 2L * (length(name) + length(description) + length(inviteCode) + length(ownerUsername));
+        for (FileNodeRow row : files.values()) {
+            bytes += ROW_OVERHEAD_BYTES + 2L * (length(row.getName()) + length(row.getPath()) + length(row.getContentHash()) + length(row.getLanguage()));
+        }
+        return bytes;
+    }
+    
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+    
+    private void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+    
+    public Long getRoomId() {
+        return roomId;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public String getInviteCode() {
+        return inviteCode;
+    }
+    
+    public String getOwnerUsername() {
+        return ownerUsername;
+    }
+    
+    public int getFileCount() {
+        return files.size();
+    }
+    
+    public long getLastAccess() {
+        return lastAccess;
+    }
+}
@@ -0,0 +1,110 @@
+package com.codecollab.security;
+
+import com.codecollab.cache.ExpiringCache;
+import com.codecollab.cache.LongHashSet;
+import com.codecollab.repository.RoomMemberRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Room membership index shared by every authorization check. Each room's member ids are
+ * loaded once into a {@link LongHashSet} and kept current on create and join; a user
+ * missing from the set is re-checked against the database before being denied, so a
+ * join committed elsewhere is never refused.
+ */
+@Component
+public class MembershipCache {
+    
+    private final RoomMemberRepository roomMemberRepository;
+    private final ExpiringCache<Long, LongHashSet> members;
+    private final long ttl;
+    
+    public MembershipCache(
+            RoomMemberRepository roomMemberRepository,
+            @Value("${cache.membership.max-size:10000}") int maxSize,
+            @Value("${cache.membership.ttl:600000}") long ttl
+    ) {
+        this.roomMemberRepository = roomMemberRepository;
+        this.members = new ExpiringCache<>(maxSize);
+        this.ttl = ttl;
+    }
+    
+    public boolean isMember(Long roomId, Long userId) {
+        if (membersOf(roomId).contains(userId)) {
+            return true;
+        }
+        if (roomMemberRepository.existsByRoomIdAndUserId(roomId, userId)) {
+            add(roomId, userId);
+            return true;
+        }
+        return false;
+    }
+    
+    public int getMemberCount(Long roomId) {
+        return membersOf(roomId).size();
+    }
+    
+    public void roomCreated(Long roomId, Long ownerId) {
+        afterCommit(() -> members.put(roomId, LongHashSet.of(List.of(ownerId)), System.currentTimeMillis() + ttl));
+    }
+    
+    public void memberJoined(Long roomId, Long userId) {
+        afterCommit(() -> add(roomId, userId));
+    }
+    
+    public int size() {
+        return members.size();
+    }
+    
+    public long getHitCount() {
+        return members.getHitCount();
+    }
+    
+    public long getMissCount() {
+        return members.getMissCount();
+    }
+    
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", size());
+        metrics.put("hits", getHitCount());
+        metrics.put("misses", getMissCount());
+        return metrics;
+    }
+    
+    private LongHashSet membersOf(Long roomId) {
+        LongHashSet set = members.get(roomId);
+        if (set == null) {
+            set = LongHashSet.of(roomMemberRepository.findUserIdsByRoomId(roomId));
+            members.put(roomId, set, System.currentTimeMillis() + ttl);
+        }
+        return set;
+    }
+    
+    // Sets are immutable, so concurrent adds must not overwrite each other's copy
+    private synchronized void add(Long roomId, Long userId) {
+        LongHashSet set = members.get(roomId);
+        if (set != null) {
+            members.put(roomId, set.with(userId), System.currentTimeMillis() + ttl);
+        }
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
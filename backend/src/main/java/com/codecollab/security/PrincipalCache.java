@@ -0,0 +1,76 @@
+package com.codecollab.security;
+
+import com.codecollab.cache.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+@Component
+public class PrincipalCache {
+    
+    private final ExpiringCache<String, UserDetails> principals;
+    private final long ttl;
+    
+    public PrincipalCache(
+            @Value("${cache.principal.max-size:10000}") int maxSize,
+            @Value("${cache.principal.ttl:300000}") long ttl
+    ) {
+        this.principals = new ExpiringCache<>(maxSize);
+        this.ttl = ttl;
+    }
+    
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        UserDetails userDetails = principals.get(username);
+        if (userDetails == null) {
+            userDetails = loader.apply(username);
+            principals.put(username, userDetails, System.currentTimeMillis() + ttl);
+        }
+        return userDetails;
+    }
+    
+    /**
+     * Evicts now and again once the surrounding transaction commits, so a request
+     * racing the update cannot re-cache the stale row.
+     */
+    public void invalidate(String... usernames) {
+        for (String username : usernames) {
+            principals.invalidate(username);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    for (String username : usernames) {
+                        principals.invalidate(username);
+                    }
+                }
+            });
+        }
+    }
+    
+    public int size() {
+        return principals.size();
+    }
+    
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", size());
+        metrics.put("hits", getHitCount());
+        metrics.put("misses", getMissCount());
+        return metrics;
+    }
+    
+    public long getHitCount() {
+        return principals.getHitCount();
+    }
+    
+    public long getMissCount() {
+        return principals.getMissCount();
+    }
+}
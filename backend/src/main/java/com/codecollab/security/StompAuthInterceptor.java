@@ -0,0 +1,125 @@
+package com.codecollab.security;
+
+import com.codecollab.entity.User;
+import com.codecollab.repository.RoomMemberRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Authenticates STOMP sessions. The JWT is checked once on CONNECT and the user's room
+ * memberships are pinned to the session, so SUBSCRIBE and SEND are authorized with a set lookup.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompAuthInterceptor implements ChannelInterceptor {
+    
+    private static final String SESSION_GRANT = StompAuthInterceptor.class.getName() + ".grant";
+    private static final Pattern ROOM_DESTINATION = Pattern.compile("/(?:topic|app)/room/(\\d+)(?:/.*)?");
+    
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
+    private final RoomMemberRepository roomMemberRepository;
+    private final MembershipCache membershipCache;
+    
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        
+        if (accessor.getCommand() == StompCommand.CONNECT) {
+            authenticate(accessor);
+        } else if (accessor.getCommand() == StompCommand.SUBSCRIBE || accessor.getCommand() == StompCommand.SEND) {
+            authorize(accessor);
+        }
+        return message;
+    }
+    
+    private void authenticate(StompHeaderAccessor accessor) {
+        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            throw new BadCredentialsException("Missing bearer token");
+        }
+        
+        Claims claims;
+        try {
+            claims = jwtService.extractAllClaims(authHeader.substring(7));
+        } catch (JwtException | IllegalArgumentException ex) {
+            throw new BadCredentialsException("Invalid token");
+        }
+        UserDetails userDetails = principalCache.get(claims.getSubject(), userDetailsService::loadUserByUsername);
+        if (!jwtService.isTokenValid(claims, userDetails) || !(userDetails instanceof User user)) {
+            throw new BadCredentialsException("Invalid token");
+        }
+        
+        Set<Long> roomIds = ConcurrentHashMap.newKeySet();
+        roomIds.addAll(roomMemberRepository.findRoomIdsByUserId(user.getId()));
+        sessionAttributes(accessor).put(SESSION_GRANT, new SessionGrant(user, roomIds));
+        accessor.setUser(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+    
+    private void authorize(StompHeaderAccessor accessor) {
+        SessionGrant grant = (SessionGrant) sessionAttributes(accessor).get(SESSION_GRANT);
+        if (grant == null) {
+            throw new AccessDeniedException("Not authenticated");
+        }
+        
+        String destination = accessor.getDestination();
+        if (destination == null) {
+            throw new AccessDeniedException("Missing destination");
+        }
+        boolean subscribe = accessor.getCommand() == StompCommand.SUBSCRIBE;
+        if (subscribe && destination.startsWith("/user/queue/")) {
+            return;
+        }
+        
+        // Clients may only publish through application handlers, never straight to a broker topic
+        Matcher matcher = ROOM_DESTINATION.matcher(destination);
+        if (!matcher.matches() || (!subscribe && !destination.startsWith("/app/"))) {
+            throw new AccessDeniedException("Destination not allowed: " + destination);
+        }
+        Long roomId = Long.valueOf(matcher.group(1));
+        if (grant.roomIds().contains(roomId)) {
+            return;
+        }
+        // The user may have joined the room after connecting
+        if (membershipCache.isMember(roomId, grant.user().getId())) {
+            grant.roomIds().add(roomId);
+            return;
+        }
+        throw new AccessDeniedException("You are not a member of this room");
+    }
+    
+    private static Map<String, Object> sessionAttributes(StompHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        if (attributes == null) {
+            throw new AccessDeniedException("No WebSocket session");
+        }
+        return attributes;
+    }
+    
+    private record SessionGrant(User user, Set<Long> roomIds) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.codecollab.service;
+
+import com.codecollab.collab.RoomAwareness;
+import com.codecollab.dto.collab.AwarenessDiff;
+import com.codecollab.dto.collab.AwarenessState;
+import com.codecollab.dto.collab.AwarenessUpdate;
+import com.codecollab.entity.User;
+import com.codecollab.messaging.RoomBroadcaster;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Room presence. Cursor and selection updates only touch in-memory state; each tick
+ * publishes one diff per changed room, so traffic scales with members per tick rather
+ * than with keystrokes. The tick runs on its own thread so the shared scheduler's flush
+ * and sweep jobs cannot delay presence updates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AwarenessService {
+    
+    private final RoomRuntimeService roomRuntimeService;
+    private final RoomBroadcaster roomBroadcaster;
+    
+    private final Map<Long, RoomAwareness> rooms = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> sessionRooms = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "awareness-tick");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    @Value("${awareness.tick-interval:50}")
+    private long tickInterval;
+    
+    @PostConstruct
+    void start() {
+        ticker.scheduleAtFixedRate(() -> {
+            try {
+                tick();
+            } catch (RuntimeException ex) {
+                // An exception would cancel every later tick
+                log.warn("Awareness tick failed", ex);
+            }
+        }, tickInterval, tickInterval, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    void stop() {
+        ticker.shutdownNow();
+    }
+    
+    public List<AwarenessState> join(Long roomId, String sessionId, User user) {
+        authorize(roomId, sessionId, user);
+        return rooms.computeIfAbsent(roomId, RoomAwareness::new).snapshot();
+    }
+    
+    public void update(Long roomId, String sessionId, AwarenessUpdate update, User user) {
+        authorize(roomId, sessionId, user);
+        rooms.computeIfAbsent(roomId, RoomAwareness::new)
+                .update(sessionId, user.getId(), user.getUsername(), update);
+    }
+    
+    public void leave(String sessionId) {
+        Set<Long> joined = sessionRooms.remove(sessionId);
+        if (joined == null) {
+            return;
+        }
+        for (Long roomId : joined) {
+            RoomAwareness awareness = rooms.get(roomId);
+            if (awareness != null) {
+                awareness.remove(sessionId);
+            }
+        }
+    }
+    
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        leave(event.getSessionId());
+    }
+    
+    public void tick() {
+        for (RoomAwareness awareness : rooms.values()) {
+            AwarenessDiff diff = awareness.drainDiff();
+            if (diff != null) {
+                roomBroadcaster.broadcastTransient(awareness.getRoomId(), "/topic/room/" + awareness.getRoomId() + "/awareness", diff);
+            } else if (awareness.isEmpty()) {
+                rooms.remove(awareness.getRoomId(), awareness);
+            }
+        }
+    }
+    
+    public int getActiveRoomCount() {
+        return rooms.size();
+    }
+    
+    private void authorize(Long roomId, String sessionId, User user) {
+        Set<Long> joined = sessionRooms.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet());
+        if (joined.contains(roomId)) {
+            return;
+        }
+        roomRuntimeService.getAuthorizedRoom(roomId, user);
+        joined.add(roomId);
+    }
+}
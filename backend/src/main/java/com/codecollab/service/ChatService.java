@@ -0,0 +1,203 @@
+package com.codecollab.service;
+
+import com.codecollab.chat.ChatIngestor;
+import com.codecollab.chat.ChatTail;
+import com.codecollab.dto.ChatCall;
+import com.codecollab.dto.ChatHistoryResponse;
+import com.codecollab.dto.ChatMessageDTO;
+import com.codecollab.entity.ChatMessage;
+import com.codecollab.entity.User;
+import com.codecollab.messaging.RoomBroadcaster;
+import com.codecollab.messaging.RoomEventBus;
+import com.codecollab.repository.ChatMessageRepository;
+import com.codecollab.room.ResidentRoom;
+import com.codecollab.storage.IdAllocator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Sends chat messages and serves chat history. A room's recent messages are kept in a
+ * {@link ChatTail} on the node that owns the room only; sends and history reads made
+ * elsewhere are forwarded to the owner over the {@link RoomEventBus}, so the tail sees
+ * every message of the room however clients are spread over nodes.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChatService {
+    
+    private static final String SEND = "chat.send";
+    private static final String HISTORY = "chat.history";
+    
+    private final ChatMessageRepository chatMessageRepository;
+    private final RoomBroadcaster roomBroadcaster;
+    private final ChatIngestor chatIngestor;
+    private final IdAllocator idAllocator;
+    private final RoomRuntimeService roomRuntimeService;
+    private final RoomEventBus eventBus;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${chat.tail-size:200}")
+    private int tailSize;
+    
+    @Value("${chat.page-size:50}")
+    private int defaultPageSize;
+    
+    @Value("${chat.max-page-size:200}")
+    private int maxPageSize;
+    
+    @Value("${chat.tail-idle-timeout:1800000}")
+    private long tailIdleTimeout;
+    
+    private final Map<Long, ChatTail> tails = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void registerHandlers() {
+        eventBus.handle(SEND, payload -> {
+            ChatCall call = fromJson(payload, ChatCall.class);
+            User user = caller(call);
+            return toJson(sendLocal(roomRuntimeService.getAuthorizedRoom(call.getRoomId(), user), call.getMessage(), user));
+        });
+        eventBus.handle(HISTORY, payload -> {
+            ChatCall call = fromJson(payload, ChatCall.class);
+            ResidentRoom room = roomRuntimeService.getAuthorizedRoom(call.getRoomId(), caller(call));
+            return toJson(getHistoryLocal(room, call.getBeforeId(), call.getLimit()));
+        });
+    }
+    
+    public ChatMessageDTO sendMessage(Long roomId, String text, User user) {
+        ResidentRoom room = roomRuntimeService.getAuthorizedRoom(roomId, user);
+        if (!eventBus.isOwner(room.getRoomId())) {
+            return forward(room.getRoomId(), SEND, ChatCall.builder().message(text), user, ChatMessageDTO.class);
+        }
+        return sendLocal(room, text, user);
+    }
+    
+    /**
+     * Returns the page of messages older than {@code beforeId} (the newest page when null),
+     * oldest first. Pages that fall inside the in-memory tail never touch the database.
+     */
+    public ChatHistoryResponse getHistory(Long roomId, Long beforeId, Integer limit, User user) {
+        ResidentRoom room = roomRuntimeService.getAuthorizedRoom(roomId, user);
+        if (!eventBus.isOwner(room.getRoomId())) {
+            return forward(room.getRoomId(), HISTORY, ChatCall.builder().beforeId(beforeId).limit(limit), user, ChatHistoryResponse.class);
+        }
+        return getHistoryLocal(room, beforeId, limit);
+    }
+    
+    /**
+     * Drops tails that are idle, and those of rooms another node has taken over.
+     */
+    @Scheduled(fixedDelayString = "${chat.tail-sweep-interval:60000}")
+    public void evictIdleTails() {
+        long cutoff = System.currentTimeMillis() - tailIdleTimeout;
+        tails.entrySet().removeIf(entry -> entry.getValue().getLastAccess() < cutoff || !eventBus.isOwner(entry.getKey()));
+    }
+    
+    public int getResidentTailCount() {
+        return tails.size();
+    }
+    
+    private ChatMessageDTO sendLocal(ResidentRoom room, String text, User user) {
+        ChatIngestor.PendingMessage message = new ChatIngestor.PendingMessage(
+                idAllocator.nextId("chat_messages"), room.getRoomId(), user.getId(), text, LocalDateTime.now());
+        chatIngestor.enqueue(message);
+        
+        // Broadcast on accept; the ingestor persists the message shortly after.
+        // A tail loaded after the insert already contains it, and append() ignores the duplicate.
+        ChatMessageDTO dto = ChatMessageDTO.builder()
+                .id(message.id())
+                .message(text)
+                .username(user.getUsername())
+                .userId(user.getId())
+                .timestamp(message.createdAt().toString())
+                .build();
+        tailFor(room.getRoomId()).append(dto);
+        roomBroadcaster.broadcast(room.getRoomId(), "/topic/room/" + room.getRoomId() + "/chat", dto);
+        return dto;
+    }
+    
+    private ChatHistoryResponse getHistoryLocal(ResidentRoom room, Long beforeId, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        
+        ChatTail tail = tailFor(room.getRoomId());
+        List<ChatMessageDTO> page = tail.page(beforeId, pageSize);
+        boolean hasMore;
+        if (page != null) {
+            hasMore = !page.isEmpty() && tail.hasOlderThan(page.get(0).getId());
+        } else {
+            // Fetch one extra row to learn whether an older page exists
+            List<ChatMessage> rows = beforeId == null
+                    ? chatMessageRepository.findLatest(room.getRoomId(), PageRequest.of(0, pageSize + 1))
+                    : chatMessageRepository.findBefore(room.getRoomId(), beforeId, PageRequest.of(0, pageSize + 1));
+            hasMore = rows.size() > pageSize;
+            page = rows.stream()
+                    .limit(pageSize)
+                    .map(row -> toDTO(row, row.getUser()))
+                    .collect(Collectors.toList());
+            Collections.reverse(page);
+        }
+        
+        return ChatHistoryResponse.builder()
+                .messages(page)
+                .nextBefore(hasMore ? page.get(0).getId() : null)
+                .hasMore(hasMore)
+                .build();
+    }
+    
+    private ChatTail tailFor(Long roomId) {
+        return tails.computeIfAbsent(roomId, id -> {
+            List<ChatMessageDTO> latest = chatMessageRepository.findLatest(id, PageRequest.of(0, tailSize + 1)).stream()
+                    .map(row -> toDTO(row, row.getUser()))
+                    .collect(Collectors.toList());
+            return new ChatTail(tailSize, latest, latest.size() <= tailSize);
+        });
+    }
+    
+    private ChatMessageDTO toDTO(ChatMessage message, User user) {
+        return ChatMessageDTO.builder()
+                .id(message.getId())
+                .message(message.getMessage())
+                .username(user.getUsername())
+                .userId(user.getId())
+                .timestamp(message.getCreatedAt() != null ? message.getCreatedAt().toString() : null)
+                .build();
+    }
+    
+    private <T> T forward(Long roomId, String command, ChatCall.ChatCallBuilder call, User user, Class<T> type) {
+        byte[] reply = eventBus.call(roomId, command, toJson(call.roomId(roomId).userId(user.getId()).username(user.getUsername()).build()));
+        return fromJson(reply, type);
+    }
+    
+    private static User caller(ChatCall call) {
+        return User.builder().id(call.getUserId()).username(call.getUsername()).build();
+    }
+    
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to serialize chat call", ex);
+        }
+    }
+    
+    private <T> T fromJson(byte[] json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to read chat call", ex);
+        }
+    }
+}
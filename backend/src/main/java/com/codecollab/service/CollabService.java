@@ -0,0 +1,368 @@
+package com.codecollab.service;
+
+import com.codecollab.collab.CollabDocument;
+import com.codecollab.collab.StaleRevisionException;
+import com.codecollab.collab.TextOperation;
+import com.codecollab.dto.FileNodeRow;
+import com.codecollab.dto.FilePatchRequest;
+import com.codecollab.dto.collab.DocumentCall;
+import com.codecollab.dto.collab.DocumentCallResult;
+import com.codecollab.dto.collab.DocumentSnapshot;
+import com.codecollab.dto.collab.EditBroadcast;
+import com.codecollab.dto.collab.EditOperationMessage;
+import com.codecollab.entity.FileNode;
+import com.codecollab.entity.User;
+import com.codecollab.messaging.RoomBroadcaster;
+import com.codecollab.messaging.RoomEventBus;
+import com.codecollab.storage.BlobStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Holds the collaborative documents of the rooms this node owns. Operations on a room
+ * owned by another node are forwarded to it over the {@link RoomEventBus}, so each
+ * document has a single copy and a single writer however clients are spread over nodes.
+ */
+@Service
+@RequiredArgsConstructor
+public class CollabService {
+    
+    private static final String OPEN = "collab.open";
+    private static final String EDIT = "collab.edit";
+    private static final String PATCH = "collab.patch";
+    private static final String REPLACE = "collab.replace";
+    private static final String READ = "collab.read";
+    private static final String CLOSE = "collab.close";
+    
+    private final RoomRuntimeService roomRuntimeService;
+    private final RoomBroadcaster roomBroadcaster;
+    private final ContentWriteBuffer contentWriteBuffer;
+    private final BlobStore blobStore;
+    private final RoomEventBus eventBus;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${collab.max-history:1000}")
+    private int maxHistory;
+    
+    @Value("${collab.idle-timeout:600000}")
+    private long idleTimeout;
+    
+    private final Map<Long, CollabDocument> documents = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void registerHandlers() {
+        eventBus.handle(OPEN, onOwner(call -> openLocal(call.getRoomId(), call.getFileId(), caller(call))));
+        eventBus.handle(EDIT, onOwner(call -> {
+            applyEditLocal(call.getRoomId(), call.getFileId(), call.getEdit(), caller(call));
+            return null;
+        }));
+        eventBus.handle(PATCH, onOwner(call -> applyPatchLocal(call.getFileId(), call.getPatch(), caller(call))));
+        eventBus.handle(REPLACE, onOwner(call -> replaceContentLocal(call.getFileId(), call.getContent(), caller(call))));
+        eventBus.handle(READ, onOwner(call -> readLocal(roomRuntimeService.getAuthorizedFile(call.getFileId(), caller(call)))));
+        eventBus.handle(CLOSE, onOwner(call -> {
+            closeLocal(call.getFileIds());
+            return null;
+        }));
+    }
+    
+    public DocumentSnapshot openDocument(Long roomId, Long fileId, User user) {
+        if (!eventBus.isOwner(roomId)) {
+            return forward(roomId, OPEN, DocumentCall.builder().roomId(roomId).fileId(fileId), user);
+        }
+        return openLocal(roomId, fileId, user);
+    }
+    
+    public void applyEdit(Long roomId, Long fileId, EditOperationMessage message, User user) {
+        if (!eventBus.isOwner(roomId)) {
+            forward(roomId, EDIT, DocumentCall.builder().roomId(roomId).fileId(fileId).edit(message), user);
+            return;
+        }
+        applyEditLocal(roomId, fileId, message, user);
+    }
+    
+    /**
+     * Applies positional edits written against {@code baseVersion}, rebasing them over
+     * any concurrent changes, and hands the result to the write buffer immediately.
+     */
+    public DocumentSnapshot applyPatch(Long fileId, FilePatchRequest request, User user) {
+        Long roomId = roomOf(fileId, user);
+        if (!eventBus.isOwner(roomId)) {
+            return forward(roomId, PATCH, DocumentCall.builder().fileId(fileId).patch(request), user);
+        }
+        return applyPatchLocal(fileId, request, user);
+    }
+    
+    public DocumentSnapshot replaceContent(Long fileId, String content, User user) {
+        Long roomId = roomOf(fileId, user);
+        if (!eventBus.isOwner(roomId)) {
+            return forward(roomId, REPLACE, DocumentCall.builder().fileId(fileId).content(content), user);
+        }
+        return replaceContentLocal(fileId, content, user);
+    }
+    
+    /**
+     * Reads the current content of a file {@code user} is already authorized for. A
+     * resident document is used when one is open; otherwise the content is read from
+     * storage without opening a document, which is only worth doing for edit sessions.
+     */
+    public DocumentSnapshot readContent(FileNodeRow file, User user) {
+        if (file.getType() != FileNode.FileType.FILE) {
+            throw new RuntimeException("Folders have no content");
+        }
+        if (!eventBus.isOwner(file.getRoomId())) {
+            return forward(file.getRoomId(), READ, DocumentCall.builder().fileId(file.getId()), user);
+        }
+        return readLocal(file);
+    }
+    
+    /**
+     * Closes the documents of deleted files and discards their pending writes.
+     */
+    public void closeDocuments(Long roomId, List<Long> fileIds) {
+        if (!eventBus.isOwner(roomId)) {
+            eventBus.call(roomId, CLOSE, toJson(DocumentCall.builder().roomId(roomId).fileIds(fileIds).build()));
+            return;
+        }
+        closeLocal(fileIds);
+    }
+    
+    /**
+     * Returns the current state of a resident document, or null if it is not open.
+     * No authorization is applied; callers must only use it for sessions already subscribed.
+     */
+    public DocumentSnapshot findSnapshot(Long fileId) {
+        CollabDocument document = documents.get(fileId);
+        return document != null ? document.snapshot() : null;
+    }
+    
+    public int getOpenDocumentCount() {
+        return documents.size();
+    }
+    
+    @Scheduled(fixedDelayString = "${collab.flush-interval:2000}")
+    public void flushDirtyDocuments() {
+        long idleSince = System.currentTimeMillis() - idleTimeout;
+        for (CollabDocument document : documents.values()) {
+            persist(document);
+            // Evicting under the document lock means no edit can land on it after its last flush
+            synchronized (document) {
+                if (document.getLastAccess() < idleSince && !document.isDirty()) {
+                    document.close();
+                    documents.remove(document.getFileId(), document);
+                }
+            }
+        }
+    }
+    
+    @PreDestroy
+    public void flushAll() {
+        documents.values().forEach(this::persist);
+    }
+    
+    private DocumentSnapshot openLocal(Long roomId, Long fileId, User user) {
+        CollabDocument document = getAuthorizedDocument(fileId, user);
+        if (!document.getRoomId().equals(roomId)) {
+            throw new RuntimeException("File not found");
+        }
+        return document.snapshot();
+    }
+    
+    private void applyEditLocal(Long roomId, Long fileId, EditOperationMessage message, User user) {
+        TextOperation operation = TextOperation.fromList(message.getOps());
+        
+        // Broadcast under the document lock so subscribers see operations in revision order
+        withDocument(fileId, user, document -> {
+            if (!document.getRoomId().equals(roomId)) {
+                throw new RuntimeException("File not found");
+            }
+            TextOperation applied = document.apply(message.getRevision(), operation);
+            broadcast(document, applied, message.getClientId(), user.getUsername());
+            return null;
+        });
+    }
+    
+    private DocumentSnapshot applyPatchLocal(Long fileId, FilePatchRequest request, User user) {
+        return withDocument(fileId, user, document -> {
+            TextOperation operation = toOperation(request.getEdits(), document.lengthAt(request.getBaseVersion()));
+            TextOperation applied = document.apply(request.getBaseVersion(), operation);
+            broadcast(document, applied, null, user.getUsername());
+            return persist(document);
+        });
+    }
+    
+    private DocumentSnapshot replaceContentLocal(Long fileId, String content, User user) {
+        return withDocument(fileId, user, document -> {
+            TextOperation applied = document.replace(content != null ? content : "");
+            broadcast(document, applied, null, user.getUsername());
+            return persist(document);
+        });
+    }
+    
+    private DocumentSnapshot readLocal(FileNodeRow file) {
+        if (file.getType() != FileNode.FileType.FILE) {
+            throw new RuntimeException("Folders have no content");
+        }
+        CollabDocument document = documents.get(file.getId());
+        return document != null ? document.snapshot() : loadSnapshot(file);
+    }
+    
+    private void closeLocal(List<Long> fileIds) {
+        for (Long fileId : fileIds) {
+            CollabDocument document = documents.remove(fileId);
+            if (document != null) {
+                document.close();
+            }
+            contentWriteBuffer.discard(fileId);
+        }
+    }
+    
+    private Long roomOf(Long fileId, User user) {
+        CollabDocument document = documents.get(fileId);
+        return document != null ? document.getRoomId() : roomRuntimeService.getAuthorizedFile(fileId, user).getRoomId();
+    }
+    
+    private DocumentSnapshot forward(Long roomId, String command, DocumentCall.DocumentCallBuilder call, User user) {
+        byte[] reply = eventBus.call(roomId, command, toJson(call.userId(user.getId()).username(user.getUsername()).build()));
+        DocumentCallResult result = fromJson(reply, DocumentCallResult.class);
+        if (result.getStaleRevision() != null) {
+            throw new StaleRevisionException(result.getStaleRevision());
+        }
+        return result.getSnapshot();
+    }
+    
+    private Function<byte[], byte[]> onOwner(Function<DocumentCall, DocumentSnapshot> action) {
+        return payload -> {
+            DocumentCallResult result;
+            try {
+                result = DocumentCallResult.builder().snapshot(action.apply(fromJson(payload, DocumentCall.class))).build();
+            } catch (StaleRevisionException ex) {
+                result = DocumentCallResult.builder().staleRevision(ex.getMessage()).build();
+            }
+            return toJson(result);
+        };
+    }
+    
+    private static User caller(DocumentCall call) {
+        return User.builder().id(call.getUserId()).username(call.getUsername()).build();
+    }
+    
+    private byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to serialize document call", ex);
+        }
+    }
+    
+    private <T> T fromJson(byte[] json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to read document call", ex);
+        }
+    }
+    
+    private DocumentSnapshot persist(CollabDocument document) {
+        DocumentSnapshot snapshot = document.takeDirtySnapshot();
+        if (snapshot != null) {
+            contentWriteBuffer.put(document.getRoomId(), snapshot.getFileId(), snapshot.getContent(), snapshot.getRevision());
+        }
+        return snapshot;
+    }
+    
+    private TextOperation toOperation(List<FilePatchRequest.Edit> edits, int baseLength) {
+        List<FilePatchRequest.Edit> sorted = edits.stream()
+                .sorted(Comparator.comparingInt(FilePatchRequest.Edit::getOffset))
+                .toList();
+        
+        TextOperation operation = new TextOperation();
+        int cursor = 0;
+        for (FilePatchRequest.Edit edit : sorted) {
+            if (edit.getOffset() < cursor || edit.getOffset() + edit.getDeleteCount() > baseLength) {
+                throw new RuntimeException("Edits must be non-overlapping and within the base version");
+            }
+            operation.retain(edit.getOffset() - cursor)
+                    .delete(edit.getDeleteCount())
+                    .insert(edit.getText());
+            cursor = edit.getOffset() + edit.getDeleteCount();
+        }
+        return operation.retain(baseLength - cursor);
+    }
+    
+    private void broadcast(CollabDocument document, TextOperation applied, String clientId, String username) {
+        EditBroadcast broadcast = EditBroadcast.builder()
+                .fileId(document.getFileId())
+                .revision(document.getRevision())
+                .clientId(clientId)
+                .username(username)
+                .ops(applied.toList())
+                .build();
+        roomBroadcaster.broadcast(document.getRoomId(),
+                "/topic/room/" + document.getRoomId() + "/file/" + document.getFileId(), broadcast);
+    }
+    
+    /**
+     * Runs {@code action} under the document's lock, looking the document up again if it
+     * was evicted between the lookup and taking the lock.
+     */
+    private <T> T withDocument(Long fileId, User user, Function<CollabDocument, T> action) {
+        while (true) {
+            CollabDocument document = getAuthorizedDocument(fileId, user);
+            synchronized (document) {
+                if (!document.isClosed()) {
+                    return action.apply(document);
+                }
+            }
+        }
+    }
+    
+    private CollabDocument getAuthorizedDocument(Long fileId, User user) {
+        CollabDocument document = documents.get(fileId);
+        if (document == null) {
+            FileNodeRow file = roomRuntimeService.getAuthorizedFile(fileId, user);
+            
+            if (file.getType() != FileNode.FileType.FILE) {
+                throw new RuntimeException("Folders have no content");
+            }
+            
+            document = documents.computeIfAbsent(fileId, id -> load(file));
+        }
+        
+        if (!document.isAuthorized(user.getId())) {
+            roomRuntimeService.getAuthorizedRoom(document.getRoomId(), user);
+            document.authorize(user.getId());
+        }
+        
+        document.touch();
+        return document;
+    }
+    
+    private CollabDocument load(FileNodeRow file) {
+        DocumentSnapshot snapshot = loadSnapshot(file);
+        return new CollabDocument(file.getId(), file.getRoomId(), snapshot.getContent(), snapshot.getRevision(), maxHistory);
+    }
+    
+    private DocumentSnapshot loadSnapshot(FileNodeRow file) {
+        // A write still waiting in the buffer is newer than the resident row
+        ContentWriteBuffer.PendingWrite pending = contentWriteBuffer.get(file.getId());
+        String content = pending != null ? pending.content() : blobStore.read(file.getContentHash());
+        long version = pending != null ? pending.version() : (file.getVersion() != null ? file.getVersion() : 0L);
+        return DocumentSnapshot.builder()
+                .fileId(file.getId())
+                .revision(version)
+                .content(content != null ? content : "")
+                .build();
+    }
+}
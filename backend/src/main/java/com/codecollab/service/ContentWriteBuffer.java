@@ -0,0 +1,216 @@
+package com.codecollab.service;
+
+import com.codecollab.dto.FileNodeRow;
+import com.codecollab.storage.BlobStore;
+import com.codecollab.util.Utf8;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind buffer for file contents. Each file has a single pending slot, so
+ * repeated saves coalesce and only the latest content reaches MySQL, in JDBC batches.
+ */
+@Slf4j
+@Component
+public class ContentWriteBuffer {
+    
+    private static final String UPDATE_SQL = "UPDATE files SET content_hash = ?, content_size = ?, version = ?, updated_at = ? "
+            + "WHERE id = ? AND (version IS NULL OR version < ?)";
+    private static final int SHUTDOWN_ATTEMPTS = 3;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final BlobStore blobStore;
+    private final RoomRuntimeService roomRuntimeService;
+    private final long maxDirtyBytes;
+    private final int batchSize;
+    private final Map<Long, PendingWrite> pending = new ConcurrentHashMap<>();
+    private final AtomicLong dirtyBytes = new AtomicLong();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "content-write-buffer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public ContentWriteBuffer(
+            JdbcTemplate jdbcTemplate,
+            BlobStore blobStore,
+            RoomRuntimeService roomRuntimeService,
+            @Value("${files.write-behind.max-dirty-bytes:8388608}") long maxDirtyBytes,
+            @Value("${files.write-behind.batch-size:100}") int batchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blobStore = blobStore;
+        this.roomRuntimeService = roomRuntimeService;
+        this.maxDirtyBytes = maxDirtyBytes;
+        this.batchSize = batchSize;
+    }
+    
+    public void put(Long roomId, Long fileId, String content, long version) {
+        PendingWrite write = new PendingWrite(roomId, content, version, Utf8.encodedLength(content), LocalDateTime.now());
+        AtomicLong delta = new AtomicLong();
+        pending.compute(fileId, (id, previous) -> {
+            if (previous != null && previous.version() > version) {
+                return previous;
+            }
+            delta.set(write.size() - (previous != null ? previous.size() : 0));
+            return write;
+        });
+        if (dirtyBytes.addAndGet(delta.get()) >= maxDirtyBytes && flushScheduled.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+    }
+    
+    /**
+     * Returns a write that has been accepted but not yet persisted, or null.
+     */
+    public PendingWrite get(Long fileId) {
+        return pending.get(fileId);
+    }
+    
+    public List<FileNodeRow> overlayContent(List<FileNodeRow> rows) {
+        if (pending.isEmpty()) {
+            return rows;
+        }
+        return rows.stream()
+                .map(row -> {
+                    PendingWrite write = pending.get(row.getId());
+                    return write != null ? row.withContent(write.content(), write.size()) : row;
+                })
+                .collect(Collectors.toList());
+    }
+    
+    public List<FileNodeRow> overlaySize(List<FileNodeRow> rows) {
+        if (pending.isEmpty()) {
+            return rows;
+        }
+        return rows.stream()
+                .map(row -> {
+                    PendingWrite write = pending.get(row.getId());
+                    return write != null ? row.withContent(null, write.size()) : row;
+                })
+                .collect(Collectors.toList());
+    }
+    
+    public void discard(Long fileId) {
+        PendingWrite removed = pending.remove(fileId);
+        if (removed != null) {
+            dirtyBytes.addAndGet(-removed.size());
+        }
+    }
+    
+    public long getDirtyBytes() {
+        return dirtyBytes.get();
+    }
+    
+    public int getPendingCount() {
+        return pending.size();
+    }
+    
+    @Scheduled(fixedDelayString = "${files.write-behind.flush-interval:1000}")
+    public void flush() {
+        // Slots stay in place on failure and are retried on the next flush
+        writeBatch();
+    }
+    
+    private synchronized boolean writeBatch() {
+        if (pending.isEmpty()) {
+            return true;
+        }
+        
+        List<Map.Entry<Long, PendingWrite>> batch = new ArrayList<>(pending.entrySet());
+        Map<Long, String> hashes = new HashMap<>();
+        try {
+            // Blobs are written before the rows that reference them
+            for (Map.Entry<Long, PendingWrite> entry : batch) {
+                hashes.put(entry.getKey(), blobStore.put(entry.getValue().content()));
+            }
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batchSize, (ps, entry) -> bind(ps, entry, hashes.get(entry.getKey())));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to flush {} buffered file writes", batch.size(), ex);
+            return false;
+        }
+        
+        for (Map.Entry<Long, PendingWrite> entry : batch) {
+            persisted(entry, hashes.get(entry.getKey()));
+        }
+        return true;
+    }
+    
+    /**
+     * Writes the slots one by one, so a single bad row does not take the others with it.
+     * Writes that still fail are logged with their file and version, as there is no later flush.
+     */
+    private synchronized void writeEach() {
+        for (Map.Entry<Long, PendingWrite> entry : new ArrayList<>(pending.entrySet())) {
+            String hash;
+            try {
+                hash = blobStore.put(entry.getValue().content());
+                jdbcTemplate.update(UPDATE_SQL, ps -> bind(ps, entry, hash));
+            } catch (RuntimeException ex) {
+                log.error("Lost buffered write of file {} at version {}", entry.getKey(), entry.getValue().version(), ex);
+                continue;
+            }
+            persisted(entry, hash);
+        }
+    }
+    
+    private void persisted(Map.Entry<Long, PendingWrite> entry, String hash) {
+        // Resident rooms learn the new blob first so readers never fall back to the old one.
+        // Only slots that were not overwritten while the write was running are cleared.
+        roomRuntimeService.contentPersisted(entry.getValue().roomId(), entry.getKey(), hash,
+                entry.getValue().size(), entry.getValue().version(), entry.getValue().updatedAt());
+        if (pending.remove(entry.getKey(), entry.getValue())) {
+            dirtyBytes.addAndGet(-entry.getValue().size());
+        }
+    }
+    
+    private static void bind(PreparedStatement ps, Map.Entry<Long, PendingWrite> entry, String hash) throws SQLException {
+        ps.setString(1, hash);
+        ps.setLong(2, entry.getValue().size());
+        ps.setLong(3, entry.getValue().version());
+        ps.setTimestamp(4, Timestamp.valueOf(entry.getValue().updatedAt()));
+        ps.setLong(5, entry.getKey());
+        ps.setLong(6, entry.getValue().version());
+    }
+    
+    /**
+     * Flushes everything still buffered, retrying a failed batch before falling back to
+     * row-by-row writes.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        for (int attempt = 0; attempt < SHUTDOWN_ATTEMPTS; attempt++) {
+            if (writeBatch()) {
+                return;
+            }
+        }
+        writeEach();
+    }
+    
+    public record PendingWrite(Long roomId, String content, long version, long size, LocalDateTime updatedAt) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.codecollab.service;
+
+import com.codecollab.dto.FileNodeRow;
+import com.codecollab.entity.FileNode;
+import com.codecollab.entity.User;
+import com.codecollab.room.ResidentRoom;
+import com.codecollab.storage.BlobStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams a room, or one folder of it, as a zip archive. Only file metadata is held in
+ * memory; contents are copied one file at a time from the blob store, or from the
+ * write-behind buffer when a newer version has not been flushed yet.
+ * <p>
+ * Missing blobs are reported by {@link #prepare} before any byte is sent, and {@link #write}
+ * reads each file's current hash so content saved during the download is not looked up
+ * under a hash that may already have been collected.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileExportService {
+    
+    private final RoomRuntimeService roomRuntimeService;
+    private final ContentWriteBuffer contentWriteBuffer;
+    private final BlobStore blobStore;
+    
+    /**
+     * Checks access and snapshots the entries to export, so the archive can be written
+     * later outside the request thread.
+     */
+    public RoomExport prepare(Long roomId, Long folderId, User user) {
+        ResidentRoom room = roomRuntimeService.getAuthorizedRoom(roomId, user);
+        String name = room.getName();
+        if (folderId != null) {
+            FileNodeRow folder = room.findFile(folderId);
+            if (folder == null || folder.getType() != FileNode.FileType.FOLDER) {
+                throw new RuntimeException("Folder not found");
+            }
+            name = folder.getName();
+        }
+        
+        Map<Long, List<FileNodeRow>> children = new HashMap<>();
+        for (FileNodeRow row : room.getFiles()) {
+            children.computeIfAbsent(row.getParentId(), id -> new ArrayList<>()).add(row);
+        }
+        List<Entry> entries = new ArrayList<>();
+        collect(children, folderId, "", new HashSet<>(), entries);
+        for (Entry entry : entries) {
+            FileNodeRow row = entry.row();
+            if (row.getContentHash() != null && contentWriteBuffer.get(row.getId()) == null
+                    && !blobStore.exists(row.getContentHash())) {
+                throw new RuntimeException("Content of " + entry.path() + " is missing");
+            }
+        }
+        return new RoomExport(room.getRoomId(), user, name, entries);
+    }
+    
+    public void write(RoomExport export, OutputStream out) throws IOException {
+        ResidentRoom room = roomRuntimeService.getAuthorizedRoom(export.roomId(), export.user());
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        long bytes = 0;
+        for (Entry entry : export.entries()) {
+            FileNodeRow row = entry.row();
+            ZipEntry zipEntry = new ZipEntry(entry.path());
+            if (row.getUpdatedAt() != null) {
+                zipEntry.setTimeLocal(row.getUpdatedAt());
+            }
+            zip.putNextEntry(zipEntry);
+            if (row.getType() == FileNode.FileType.FILE) {
+                FileNodeRow current = room.findFile(row.getId());
+                bytes += writeContent(current != null ? current : row, zip);
+            }
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+        log.debug("Exported {} entries ({} bytes) from room {}", export.entries().size(), bytes, export.roomId());
+    }
+    
+    private long writeContent(FileNodeRow row, OutputStream out) throws IOException {
+        ContentWriteBuffer.PendingWrite pending = contentWriteBuffer.get(row.getId());
+        if (pending != null) {
+            byte[] content = pending.content() != null ? pending.content().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            out.write(content);
+            return content.length;
+        }
+        return row.getContentHash() != null ? blobStore.copyTo(row.getContentHash(), out) : 0;
+    }
+    
+    private static void collect(Map<Long, List<FileNodeRow>> children, Long parentId, String prefix,
+                                Set<String> paths, List<Entry> entries) {
+        for (FileNodeRow row : children.getOrDefault(parentId, List.of())) {
+            boolean folder = row.getType() == FileNode.FileType.FOLDER;
+            String path = prefix + row.getName();
+            // Sibling names are not unique, but zip entry names must be
+            if (!paths.add(path + (folder ? "/" : ""))) {
+                path = path + "~" + row.getId();
+                paths.add(path + (folder ? "/" : ""));
+            }
+            entries.add(new Entry(folder ? path + "/" : path, row));
+            if (folder) {
+                collect(children, row.getId(), path + "/", paths, entries);
+            }
+        }
+    }
+    
+    public record RoomExport(Long roomId, User user, String name, List<Entry> entries) {
+    }
+    
+    public record Entry(String path, FileNodeRow row) {
+    }
+}
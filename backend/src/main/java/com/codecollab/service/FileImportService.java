@@ -0,0 +1,287 @@
+package com.codecollab.service;
+
+import com.codecollab.dto.FileImportResponse;
+import com.codecollab.dto.FileNodeResponse;
+import com.codecollab.dto.FileNodeRow;
+import com.codecollab.dto.collab.FileEvent;
+import com.codecollab.dto.collab.ImportProgress;
+import com.codecollab.entity.FileNode;
+import com.codecollab.entity.User;
+import com.codecollab.messaging.RoomBroadcaster;
+import com.codecollab.repository.FileNodeRepository;
+import com.codecollab.room.ResidentRoom;
+import com.codecollab.storage.BlobStore;
+import com.codecollab.storage.IdAllocator;
+import com.codecollab.util.FilePaths;
+import com.codecollab.util.Utf8;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Imports a whole project into a room. The upload is read into an {@link ImportTree}
+ * first, then every node is inserted in one transaction through JDBC batches, using ids
+ * reserved up front so children can reference their parents without a round trip.
+ * Progress is published transiently on {@code /topic/room/{roomId}/import}.
+ */
+@Slf4j
+@Service
+public class FileImportService {
+    
+    private static final String INSERT_SQL = "INSERT INTO files (id, room_id, parent_id, path, name, type, content_hash, "
+            + "content_size, version, language, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int BINARY_PROBE_BYTES = 8000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FileNodeRepository fileNodeRepository;
+    private final IdAllocator idAllocator;
+    private final BlobStore blobStore;
+    private final RoomRuntimeService roomRuntimeService;
+    private final RoomBroadcaster roomBroadcaster;
+    private final int maxEntries;
+    private final long maxFileSize;
+    private final long maxTotalSize;
+    private final int batchSize;
+    private final int progressInterval;
+    
+    public FileImportService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            FileNodeRepository fileNodeRepository,
+            IdAllocator idAllocator,
+            BlobStore blobStore,
+            RoomRuntimeService roomRuntimeService,
+            RoomBroadcaster roomBroadcaster,
+            @Value("${files.import.max-entries:10000}") int maxEntries,
+            @Value("${files.import.max-file-size:1048576}") long maxFileSize,
+            @Value("${files.import.max-total-size:104857600}") long maxTotalSize,
+            @Value("${files.import.batch-size:500}") int batchSize,
+            @Value("${files.import.progress-interval:250}") int progressInterval
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fileNodeRepository = fileNodeRepository;
+        this.idAllocator = idAllocator;
+        this.blobStore = blobStore;
+        this.roomRuntimeService = roomRuntimeService;
+        this.roomBroadcaster = roomBroadcaster;
+        this.maxEntries = maxEntries;
+        this.maxFileSize = maxFileSize;
+        this.maxTotalSize = maxTotalSize;
+        this.batchSize = batchSize;
+        this.progressInterval = progressInterval;
+    }
+    
+    /**
+     * Imports every entry of a zip archive, read as a stream.
+     */
+    public FileImportResponse importArchive(Long roomId, Long parentId, String importId, InputStream archive, User user) {
+        return importTree(roomId, parentId, importId, user, (tree, reader) -> {
+            try (ZipInputStream zip = new ZipInputStream(archive, StandardCharsets.UTF_8)) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    if (entry.isDirectory()) {
+                        tree.addFolder(entry.getName());
+                    } else {
+                        reader.addFile(entry.getName(), zip);
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Imports uploaded parts, each named by its path relative to the import root.
+     */
+    public FileImportResponse importFiles(Long roomId, Long parentId, String importId, List<MultipartFile> files, User user) {
+        return importTree(roomId, parentId, importId, user, (tree, reader) -> {
+            for (MultipartFile file : files) {
+                if (file.getOriginalFilename() == null) {
+                    throw new RuntimeException("Uploaded file has no name");
+                }
+                try (InputStream in = file.getInputStream()) {
+                    reader.addFile(file.getOriginalFilename(), in);
+                }
+            }
+        });
+    }
+    
+    private FileImportResponse importTree(Long roomId, Long parentId, String importId, User user, TreeSource source) {
+        ResidentRoom room = roomRuntimeService.getAuthorizedRoom(roomId, user);
+        if (parentId != null) {
+            FileNodeRow parent = room.findFile(parentId);
+            if (parent == null || parent.getType() != FileNode.FileType.FOLDER) {
+                throw new RuntimeException("Parent folder not found");
+            }
+        }
+        
+        String id = importId != null && !importId.isBlank() ? importId : UUID.randomUUID().toString();
+        ImportProgress.ImportProgressBuilder progress = ImportProgress.builder().importId(id).username(user.getUsername());
+        try {
+            ImportTree tree = new ImportTree(maxEntries);
+            EntryReader reader = new EntryReader(tree, roomId, progress);
+            source.read(tree, reader);
+            if (tree.size() == 0) {
+                throw new RuntimeException("Nothing to import");
+            }
+            
+            List<FileNodeRow> rows = persist(roomId, parentId, tree, progress);
+            List<FileNodeResponse> files = FileTreeBuilder.build(rows, parentId);
+            log.info("Imported {} nodes ({} bytes) into room {}", rows.size(), reader.totalBytes, roomId);
+            return FileImportResponse.builder()
+                    .importId(id)
+                    .fileCount(reader.fileCount)
+                    .folderCount(rows.size() - reader.fileCount)
+                    .totalBytes(reader.totalBytes)
+                    .skipped(tree.getSkipped())
+                    .files(files)
+                    .build();
+        } catch (IOException ex) {
+            publish(roomId, progress.phase(ImportProgress.Phase.FAILED).error("Failed to read upload").build());
+            throw new RuntimeException("Failed to read upload", ex);
+        } catch (RuntimeException ex) {
+            publish(roomId, progress.phase(ImportProgress.Phase.FAILED).error(ex.getMessage()).build());
+            throw ex;
+        }
+    }
+    
+    private List<FileNodeRow> persist(Long roomId, Long parentId, ImportTree tree, ImportProgress.ImportProgressBuilder progress) {
+        List<ImportTree.Node> nodes = tree.nodes();
+        long firstId = idAllocator.reserve("files", nodes.size());
+        LocalDateTime now = LocalDateTime.now();
+        
+        return transactionTemplate.execute(status -> {
+            // The target folder is read under a shared lock so a concurrent move cannot leave these paths stale
+            String parentPath = parentId == null ? null : fileNodeRepository.findByIdForShare(parentId)
+                    .orElseThrow(() -> new RuntimeException("Parent folder not found"))
+                    .getPath();
+            long nextId = firstId;
+            List<FileNodeRow> rows = new ArrayList<>(nodes.size());
+            for (ImportTree.Node node : nodes) {
+                node.id = nextId++;
+                node.path = FilePaths.child(node.parent != null ? node.parent.path : parentPath, node.id);
+                rows.add(new FileNodeRow(node.id, roomId, node.parent != null ? node.parent.id : parentId, node.path, node.name,
+                        node.type, node.contentHash, FileService.detectLanguage(node.name), node.size, 0L, now, now));
+            }
+            
+            Timestamp timestamp = Timestamp.valueOf(now);
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                List<FileNodeRow> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                // Parents precede their children, so the parent_id foreign key holds row by row
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, row) -> {
+                    ps.setLong(1, row.getId());
+                    ps.setLong(2, roomId);
+                    ps.setObject(3, row.getParentId());
+                    ps.setString(4, row.getPath());
+                    ps.setString(5, row.getName());
+                    ps.setString(6, row.getType().name());
+                    ps.setString(7, row.getContentHash());
+                    ps.setLong(8, row.getSize());
+                    ps.setLong(9, 0L);
+                    ps.setString(10, row.getLanguage());
+                    ps.setTimestamp(11, timestamp);
+                    ps.setTimestamp(12, timestamp);
+                });
+                publish(roomId, progress.phase(ImportProgress.Phase.SAVING)
+                        .processed(from + batch.size()).total(rows.size()).build());
+            }
+            
+            roomRuntimeService.filesCreated(roomId, rows);
+            ImportProgress done = progress.phase(ImportProgress.Phase.DONE).processed(rows.size()).total(rows.size()).build();
+            FileEvent event = FileEvent.builder()
+                    .type(FileEvent.Type.IMPORTED)
+                    .files(FileTreeBuilder.build(rows, parentId))
+                    .build();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    roomBroadcaster.broadcast(roomId, "/topic/room/" + roomId + "/files", event);
+                    publish(roomId, done);
+                }
+            });
+            return rows;
+        });
+    }
+    
+    private void publish(Long roomId, ImportProgress progress) {
+        roomBroadcaster.broadcastTransient(roomId, "/topic/room/" + roomId + "/import", progress);
+    }
+    
+    @FunctionalInterface
+    private interface TreeSource {
+        void read(ImportTree tree, EntryReader reader) throws IOException;
+    }
+    
+    /**
+     * Stores file contents as they are read and enforces the size limits.
+     */
+    private final class EntryReader {
+        
+        private final ImportTree tree;
+        private final Long roomId;
+        private final ImportProgress.ImportProgressBuilder progress;
+        private long totalBytes;
+        private int fileCount;
+        private int entries;
+        
+        private EntryReader(ImportTree tree, Long roomId, ImportProgress.ImportProgressBuilder progress) {
+            this.tree = tree;
+            this.roomId = roomId;
+            this.progress = progress;
+        }
+        
+        void addFile(String path, InputStream in) throws IOException {
+            List<String> names = ImportTree.split(path);
+            if (names == null || names.isEmpty()) {
+                return;
+            }
+            // Reading one byte past the limit tells an oversized file apart without buffering it
+            byte[] bytes = in.readNBytes((int) Math.min(maxFileSize + 1, Integer.MAX_VALUE));
+            if (bytes.length > maxFileSize) {
+                throw new RuntimeException("File exceeds the import limit of " + maxFileSize + " bytes: " + path);
+            }
+            totalBytes += bytes.length;
+            if (totalBytes > maxTotalSize) {
+                throw new RuntimeException("Import exceeds " + maxTotalSize + " bytes");
+            }
+            
+            if (isBinary(bytes)) {
+                tree.skip(path);
+            } else {
+                String content = new String(bytes, StandardCharsets.UTF_8);
+                tree.addFile(path, blobStore.put(content), Utf8.encodedLength(content));
+                fileCount++;
+            }
+            if (++entries % progressInterval == 0) {
+                publish(roomId, progress.phase(ImportProgress.Phase.READING).processed(entries).build());
+            }
+        }
+        
+        private boolean isBinary(byte[] bytes) {
+            for (int i = 0; i < Math.min(bytes.length, BINARY_PROBE_BYTES); i++) {
+                if (bytes[i] == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1,18 +1,32 @@
 package com.codecollab.service;
 
 import com.codecollab.dto.CreateFileRequest;
+import com.codecollab.dto.FileContentResponse;
 import com.codecollab.dto.FileNodeResponse;
+import com.codecollab.dto.FileNodeRow;
+import com.codecollab.dto.FilePatchRequest;
+import com.codecollab.dto.FilePatchResponse;
+import com.codecollab.dto.MoveFileRequest;
+import com.codecollab.dto.collab.DocumentSnapshot;
+import com.codecollab.dto.collab.FileEvent;
 import com.codecollab.entity.FileNode;
-import com.codecollab.entity.Room;
 import com.codecollab.entity.User;
+import com.codecollab.messaging.RoomBroadcaster;
 import com.codecollab.repository.FileNodeRepository;
-import com.codecollab.repository.RoomMemberRepository;
 import com.codecollab.repository.RoomRepository;
+import com.codecollab.room.ResidentRoom;
+import com.codecollab.storage.BlobStore;
+import com.codecollab.storage.IdAllocator;
+import com.codecollab.util.ContentHash;
+import com.codecollab.util.FilePaths;
+import com.codecollab.util.Utf8;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -23,94 +37,206 @@ public class FileService {
     
     private final FileNodeRepository fileNodeRepository;
     private final RoomRepository roomRepository;
-    private final RoomMemberRepository roomMemberRepository;
+    private final CollabService collabService;
+    private final ContentWriteBuffer contentWriteBuffer;
+    private final BlobStore blobStore;
+    private final RoomBroadcaster roomBroadcaster;
+    private final RoomRuntimeService roomRuntimeService;
+    private final IdAllocator idAllocator;
     
     public List<FileNodeResponse> getFileTree(Long roomId, User user) {
-        Room room = getAuthorizedRoom(roomId, user);
-        List<FileNode> allFiles = fileNodeRepository.findByRoomOrderBySortOrder(room);
-        return buildTree(allFiles);
+        ResidentRoom room = roomRuntimeService.getAuthorizedRoom(roomId, user);
+        List<FileNodeRow> rows = contentWriteBuffer.overlayContent(room.getFiles());
+        return FileTreeBuilder.build(rows.stream()
+                .map(row -> row.getContent() == null && row.getContentHash() != null
+                        ? row.withContent(blobStore.read(row.getContentHash()), row.getSize())
+                        : row)
+                .collect(Collectors.toList()));
+    }
+    
+    public List<FileNodeResponse> getFileTreeMetadata(Long roomId, User user) {
+        ResidentRoom room = roomRuntimeService.getAuthorizedRoom(roomId, user);
+        return FileTreeBuilder.build(contentWriteBuffer.overlaySize(room.getFiles()));
+    }
+    
+    public FileContentResponse getFileContent(Long fileId, User user) {
+        FileNodeRow file = roomRuntimeService.getAuthorizedFile(fileId, user);
+        
+        DocumentSnapshot snapshot = collabService.readContent(file, user);
+        FileContentResponse response = FileContentResponse.builder()
+                .id(file.getId())
+                .name(file.getName())
+                .language(file.getLanguage())
+                .content(snapshot.getContent())
+                .version(snapshot.getRevision())
+                .size(Utf8.encodedLength(snapshot.getContent()))
+                .updatedAt(file.getUpdatedAt())
+                .build();
+        response.setEtag(etag(response));
+        return response;
     }
     
     @Transactional
     public FileNodeResponse createFile(Long roomId, CreateFileRequest request, User user) {
-        Room room = getAuthorizedRoom(roomId, user);
+        ResidentRoom room = roomRuntimeService.getAuthorizedRoom(roomId, user);
         
+        // The parent is read under a shared lock so a concurrent move cannot leave this path stale
         FileNode parent = null;
         if (request.getParentId() != null) {
-            parent = fileNodeRepository.findById(request.getParentId())
+            if (room.findFile(request.getParentId()) == null) {
+                throw new RuntimeException("Parent folder not found");
+            }
+            parent = fileNodeRepository.findByIdForShare(request.getParentId())
                     .orElseThrow(() -> new RuntimeException("Parent folder not found"));
         }
+        long id = idAllocator.nextId("files");
+        
+        String content = request.getType() == FileNode.FileType.FILE && request.getContent() != null
+                ? request.getContent()
+                : null;
         
         FileNode file = FileNode.builder()
-                .room(room)
+                .id(id)
+                .room(roomRepository.getReferenceById(room.getRoomId()))
                 .parent(parent)
+                .path(FilePaths.child(parent != null ? parent.getPath() : null, id))
                 .name(request.getName())
                 .type(request.getType())
-                .content(request.getContent())
+                .contentHash(request.getType() == FileNode.FileType.FILE ? blobStore.put(content) : null)
+                .contentSize(Utf8.encodedLength(content))
                 .language(request.getLanguage() != null ? request.getLanguage() : detectLanguage(request.getName()))
                 .build();
         
         file = fileNodeRepository.save(file);
-        return FileNodeResponse.from(file, Collections.emptyList());
+        roomRuntimeService.fileCreated(FileNodeRow.from(file));
+        
+        // Members receive metadata only and fetch content on demand
+        afterCommit(room.getRoomId(), FileEvent.builder()
+                .type(FileEvent.Type.CREATED)
+                .fileId(file.getId())
+                .file(FileNodeResponse.from(file, Collections.emptyList()))
+                .build());
+        
+        FileNodeResponse response = FileNodeResponse.from(file, Collections.emptyList());
+        response.setContent(content);
+        return response;
     }
     
-    @Transactional
     public FileNodeResponse updateFileContent(Long fileId, String content, User user) {
-        FileNode file = fileNodeRepository.findById(fileId)
-                .orElseThrow(() -> new RuntimeException("File not found"));
-        
-        getAuthorizedRoom(file.getRoom().getId(), user);
+        FileNodeRow file = roomRuntimeService.getAuthorizedFile(fileId, user);
         
-        file.setContent(content);
-        file = fileNodeRepository.save(file);
+        // Applied to the live document and persisted asynchronously by the write-behind buffer
+        DocumentSnapshot snapshot = collabService.replaceContent(fileId, content, user);
         
-        return FileNodeResponse.from(file, Collections.emptyList());
+        FileNodeResponse response = FileNodeResponse.from(file, Collections.emptyList());
+        response.setContent(snapshot.getContent());
+        response.setSize(Utf8.encodedLength(snapshot.getContent()));
+        response.setUpdatedAt(LocalDateTime.now());
+        return response;
+    }
+    
+    public FilePatchResponse patchFileContent(Long fileId, FilePatchRequest request, User user) {
+        DocumentSnapshot snapshot = collabService.applyPatch(fileId, request, user);
+        return FilePatchResponse.builder()
+                .fileId(fileId)
+                .version(snapshot.getRevision())
+                .size(Utf8.encodedLength(snapshot.getContent()))
+                .build();
     }
     
+    /**
+     * Moves a file or folder under {@code parentId}, or to the room root when it is null.
+     * The whole subtree's paths are rewritten by one range update.
+     */
     @Transactional
-    public void deleteFile(Long fileId, User user) {
-        FileNode file = fileNodeRepository.findById(fileId)
+    public FileNodeResponse moveFile(Long fileId, MoveFileRequest request, User user) {
+        FileNodeRow row = roomRuntimeService.getAuthorizedFile(fileId, user);
+        roomRepository.findByIdForUpdate(row.getRoomId());
+        
+        // Paths are re-read under lock; the resident copies may still predate a move that just committed
+        FileNode file = fileNodeRepository.findByIdForUpdate(fileId)
                 .orElseThrow(() -> new RuntimeException("File not found"));
+        FileNode parent = null;
+        if (request.getParentId() != null) {
+            parent = fileNodeRepository.findByIdForUpdate(request.getParentId())
+                    .filter(folder -> folder.getType() == FileNode.FileType.FOLDER && folder.getRoom().getId().equals(row.getRoomId()))
+                    .orElseThrow(() -> new RuntimeException("Parent folder not found"));
+            if (FilePaths.isWithin(parent.getPath(), file.getPath())) {
+                throw new RuntimeException("Cannot move a folder into itself");
+            }
+        }
         
-        getAuthorizedRoom(file.getRoom().getId(), user);
+        String oldPath = file.getPath();
+        String newPath = FilePaths.child(parent != null ? parent.getPath() : null, fileId);
+        if (!newPath.equals(oldPath)) {
+            String subtree = FilePaths.subtreePattern(oldPath);
+            Integer deepest = fileNodeRepository.findMaxPathLength(row.getRoomId(), subtree);
+            if (deepest != null && deepest - oldPath.length() + newPath.length() > FilePaths.MAX_LENGTH) {
+                throw new RuntimeException("Folders are nested too deeply");
+            }
+            file.setParent(parent);
+            fileNodeRepository.saveAndFlush(file);
+            // Rewrites the moved node's own path too, keeping the managed entity in step
+            fileNodeRepository.movePaths(row.getRoomId(), subtree, newPath, oldPath.length() + 1);
+            file.setPath(newPath);
+            roomRuntimeService.fileMoved(row.getRoomId(), fileId, request.getParentId(), newPath);
+        }
         
-        fileNodeRepository.delete(file);
+        FileNodeResponse response = FileNodeResponse.from(file, Collections.emptyList());
+        afterCommit(row.getRoomId(), FileEvent.builder()
+                .type(FileEvent.Type.MOVED)
+                .fileId(fileId)
+                .file(response)
+                .build());
+        return response;
     }
     
-    private Room getAuthorizedRoom(Long roomId, User user) {
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new RuntimeException("Room not found"));
-        
-        if (!roomMemberRepository.existsByRoomAndUser(room, user)) {
-            throw new RuntimeException("You are not a member of this room");
-        }
+    /**
+     * Deletes a file or a folder with everything below it, in two range statements.
+     */
+    @Transactional
+    public void deleteFile(Long fileId, User user) {
+        FileNodeRow row = roomRuntimeService.getAuthorizedFile(fileId, user);
+        FileNode file = fileNodeRepository.findByIdForUpdate(fileId)
+                .orElseThrow(() -> new RuntimeException("File not found"));
         
-        return room;
+        String subtree = FilePaths.subtreePattern(file.getPath());
+        fileNodeRepository.detachSubtree(row.getRoomId(), subtree);
+        fileNodeRepository.deleteSubtree(row.getRoomId(), subtree);
+        collabService.closeDocuments(row.getRoomId(),
+                roomRuntimeService.getAuthorizedRoom(row.getRoomId(), user).findSubtreeIds(fileId));
+        roomRuntimeService.fileDeleted(row.getRoomId(), fileId);
+        afterCommit(row.getRoomId(), FileEvent.builder()
+                .type(FileEvent.Type.DELETED)
+                .fileId(fileId)
+                .build());
     }
     
-    private List<FileNodeResponse> buildTree(List<FileNode> allFiles) {
-        List<FileNode> rootFiles = allFiles.stream()
-                .filter(file -> file.getParent() == null)
-                .collect(Collectors.toList());
-        
-        return rootFiles.stream()
-                .map(file -> buildNode(file, allFiles))
-                .collect(Collectors.toList());
+    private void afterCommit(Long roomId, FileEvent event) {
+        String destination = "/topic/room/" + roomId + "/files";
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            roomBroadcaster.broadcast(roomId, destination, event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                roomBroadcaster.broadcast(roomId, destination, event);
+            }
+        });
     }
     
-    private FileNodeResponse buildNode(FileNode node, List<FileNode> allFiles) {
-        List<FileNode> children = allFiles.stream()
-                .filter(file -> file.getParent() != null && file.getParent().getId().equals(node.getId()))
-                .collect(Collectors.toList());
-        
-        List<FileNodeResponse> childResponses = children.stream()
-                .map(child -> buildNode(child, allFiles))
-                .collect(Collectors.toList());
-        
-        return FileNodeResponse.from(node, childResponses);
+    /**
+     * Keyed by revision rather than content alone, so an undone edit or a rename still changes the tag.
+     * The update time is left out because it only trails the revision once the write-behind flush lands.
+     */
+    static String etag(FileContentResponse response) {
+        String representation = String.join("\n", String.valueOf(response.getId()), String.valueOf(response.getVersion()),
+                response.getName(), String.valueOf(response.getLanguage()), ContentHash.sha256Hex(response.getContent()));
+        return "\"" + ContentHash.sha256Hex(representation) + "\"";
     }
     
-    private String detectLanguage(String filename) {
+    static String detectLanguage(String filename) {
         if (filename.endsWith(".java")) return "java";
         if (filename.endsWith(".js") || filename.endsWith(".jsx")) return "javascript";
         if (filename.endsWith(".ts") || filename.endsWith(".tsx")) return "typescript";
@@ -0,0 +1,48 @@
+package com.codecollab.service;
+
+import com.codecollab.dto.FileNodeResponse;
+import com.codecollab.dto.FileNodeRow;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Assembles a room's file tree from flat rows in O(n). Rows are expected in
+ * display order; children keep that order under their parent.
+ */
+final class FileTreeBuilder {
+    
+    private FileTreeBuilder() {
+    }
+    
+    static List<FileNodeResponse> build(List<FileNodeRow> rows) {
+        return build(rows, null);
+    }
+    
+    /**
+     * Builds the subtrees hanging off {@code rootParentId}, or the whole tree when it is null.
+     */
+    static List<FileNodeResponse> build(List<FileNodeRow> rows, Long rootParentId) {
+        Map<Long, FileNodeResponse> nodesById = new HashMap<>(rows.size() * 2);
+        for (FileNodeRow row : rows) {
+            nodesById.put(row.getId(), FileNodeResponse.from(row, new ArrayList<>()));
+        }
+        
+        List<FileNodeResponse> roots = new ArrayList<>();
+        for (FileNodeRow row : rows) {
+            FileNodeResponse node = nodesById.get(row.getId());
+            if (Objects.equals(row.getParentId(), rootParentId)) {
+                roots.add(node);
+                continue;
+            }
+            FileNodeResponse parent = nodesById.get(row.getParentId());
+            if (parent != null) {
+                parent.getChildren().add(node);
+            }
+        }
+        return roots;
+    }
+}
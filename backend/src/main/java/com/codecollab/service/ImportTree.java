@@ -0,0 +1,146 @@
+package com.codecollab.service;
+
+import com.codecollab.entity.FileNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Folder hierarchy of an uploaded project, built from entry paths in whatever order they
+ * arrive. Missing parent folders are created on demand.
+ */
+final class ImportTree {
+    
+    private static final int MAX_NAME_LENGTH = 255;
+    
+    private final Node root = new Node("", FileNode.FileType.FOLDER, null, 0);
+    private final int maxNodes;
+    private final List<String> skipped = new ArrayList<>();
+    private int nodeCount;
+    
+    ImportTree(int maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+    
+    /**
+     * Splits an entry path into its names, or returns null for archive clutter such as
+     * {@code __MACOSX/} and {@code .DS_Store}.
+     */
+    static List<String> split(String path) {
+        List<String> names = new ArrayList<>();
+        for (String name : path.replace('\\', '/').split("/")) {
+            if (name.isEmpty() || name.equals(".")) {
+                continue;
+            }
+            if (name.equals("..") || name.length() > MAX_NAME_LENGTH) {
+                throw new RuntimeException("Invalid path: " + path);
+            }
+            if (name.equals("__MACOSX") || name.equals(".DS_Store")) {
+                return null;
+            }
+            names.add(name);
+        }
+        return names;
+    }
+    
+    void addFolder(String path) {
+        List<String> names = split(path);
+        if (names != null) {
+            folder(names, names.size(), path);
+        }
+    }
+    
+    void addFile(String path, String contentHash, long size) {
+        List<String> names = split(path);
+        if (names == null || names.isEmpty()) {
+            return;
+        }
+        Node parent = folder(names, names.size() - 1, path);
+        String name = names.get(names.size() - 1);
+        if (parent.children.containsKey(name)) {
+            throw new RuntimeException("Duplicate path: " + path);
+        }
+        parent.children.put(name, newNode(name, FileNode.FileType.FILE, contentHash, size));
+    }
+    
+    void skip(String path) {
+        skipped.add(path);
+    }
+    
+    List<String> getSkipped() {
+        return skipped;
+    }
+    
+    int size() {
+        return nodeCount;
+    }
+    
+    /**
+     * Returns every node with parents ahead of their children, folders before files and
+     * siblings by name.
+     */
+    List<Node> nodes() {
+        List<Node> ordered = new ArrayList<>(nodeCount);
+        collect(root, ordered);
+        return ordered;
+    }
+    
+    private void collect(Node folder, List<Node> ordered) {
+        for (Node child : folder.children.values()) {
+            if (child.type == FileNode.FileType.FOLDER) {
+                child.parent = folder == root ? null : folder;
+                ordered.add(child);
+                collect(child, ordered);
+            }
+        }
+        for (Node child : folder.children.values()) {
+            if (child.type == FileNode.FileType.FILE) {
+                child.parent = folder == root ? null : folder;
+                ordered.add(child);
+            }
+        }
+    }
+    
+    private Node folder(List<String> names, int depth, String path) {
+        Node folder = root;
+        for (int i = 0; i < depth; i++) {
+            String name = names.get(i);
+            Node child = folder.children.get(name);
+            if (child == null) {
+                child = newNode(name, FileNode.FileType.FOLDER, null, 0);
+                folder.children.put(name, child);
+            } else if (child.type != FileNode.FileType.FOLDER) {
+                throw new RuntimeException("Duplicate path: " + path);
+            }
+            folder = child;
+        }
+        return folder;
+    }
+    
+    private Node newNode(String name, FileNode.FileType type, String contentHash, long size) {
+        if (++nodeCount > maxNodes) {
+            throw new RuntimeException("Import exceeds " + maxNodes + " files and folders");
+        }
+        return new Node(name, type, contentHash, size);
+    }
+    
+    static final class Node {
+        final String name;
+        final FileNode.FileType type;
+        final String contentHash;
+        final long size;
+        final Map<String, Node> children = new TreeMap<>();
+        Node parent;
+        Long id;
+        String path;
+        
+        private Node(String name, FileNode.FileType type, String contentHash, long size) {
+            this.name = name;
+            this.type = type;
+            this.contentHash = contentHash;
+            this.size = size;
+        }
+    }
+}
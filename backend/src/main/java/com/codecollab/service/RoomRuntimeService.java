@@ -0,0 +1,278 @@
+package com.codecollab.service;
+
+import com.codecollab.dto.FileNodeRow;
+import com.codecollab.dto.RoomSummary;
+import com.codecollab.entity.User;
+import com.codecollab.messaging.RoomEventBus;
+import com.codecollab.repository.FileNodeRepository;
+import com.codecollab.repository.RoomRepository;
+import com.codecollab.room.ResidentRoom;
+import com.codecollab.security.MembershipCache;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Keeps active rooms resident in memory. A room's metadata and file tree are
+ * loaded on first access and then served without touching the database; services report
+ * their committed mutations here so the resident view stays current. Rooms idle for
+ * {@code room.idle-timeout} are evicted and reloaded on next access.
+ * <p>
+ * Each room is loaded once behind its own future, so a slow load only holds up callers of
+ * that room. A notice for a committed change waits for an in-flight load of its room and
+ * then applies; every {@link ResidentRoom} mutation is idempotent or version-checked, so
+ * applying a change the load already read is harmless. A notice that finds no room is
+ * dropped, since the next load reads the change from the database.
+ * <p>
+ * Other nodes keep their own resident copies, so every change applied here is also
+ * sent to them over the {@link RoomEventBus}. Persisted content is applied to their copy
+ * directly, as it is version-checked; for structural changes they evict the room and
+ * reload it on next access.
+ */
+@Service
+@RequiredArgsConstructor
+public class RoomRuntimeService {
+    
+    private final RoomRepository roomRepository;
+    private final FileNodeRepository fileNodeRepository;
+    private final MembershipCache membershipCache;
+    private final RoomEventBus eventBus;
+    
+    private static final String INVALIDATE = "room.invalidate";
+    private static final String CONTENT = "room.content";
+    
+    @Value("${room.idle-timeout:600000}")
+    private long idleTimeout;
+    
+    private final Map<Long, CompletableFuture<ResidentRoom>> rooms = new ConcurrentHashMap<>();
+    // Points at the resident instance, so evicting a room cannot remove a reload's entries
+    private final Map<Long, ResidentRoom> fileRooms = new ConcurrentHashMap<>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    
+    @PostConstruct
+    public void registerHandlers() {
+        eventBus.handle(INVALIDATE, payload -> {
+            evict(ByteBuffer.wrap(payload).getLong());
+            return null;
+        });
+        eventBus.handle(CONTENT, payload -> {
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            long roomId = buffer.getLong();
+            long fileId = buffer.getLong();
+            long size = buffer.getLong();
+            long version = buffer.getLong();
+            LocalDateTime updatedAt = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+            String contentHash = StandardCharsets.US_ASCII.decode(buffer).toString();
+            withResidentRoom(roomId, room -> room.updateContent(fileId, contentHash, size, version, updatedAt));
+            return null;
+        });
+    }
+    
+    public ResidentRoom getAuthorizedRoom(Long roomId, User user) {
+        // Checked first so non-members cannot make the server load arbitrary rooms
+        if (!membershipCache.isMember(roomId, user.getId())) {
+            throw new RuntimeException("You are not a member of this room");
+        }
+        CompletableFuture<ResidentRoom> future = rooms.get(roomId);
+        if (future == null) {
+            CompletableFuture<ResidentRoom> loading = new CompletableFuture<>();
+            future = rooms.putIfAbsent(roomId, loading);
+            if (future == null) {
+                future = loading;
+                try {
+                    loading.complete(load(roomId));
+                } catch (RuntimeException ex) {
+                    rooms.remove(roomId, loading);
+                    loading.completeExceptionally(ex);
+                }
+            }
+        }
+        return await(future);
+    }
+    
+    /**
+     * Returns the file after checking that {@code user} is a member of its room. Files of
+     * resident rooms are resolved in memory.
+     */
+    public FileNodeRow getAuthorizedFile(Long fileId, User user) {
+        ResidentRoom resident = fileRooms.get(fileId);
+        Long roomId = resident != null ? resident.getRoomId() : fileNodeRepository.findMetadataById(fileId)
+                .orElseThrow(() -> new RuntimeException("File not found"))
+                .getRoomId();
+        FileNodeRow file = getAuthorizedRoom(roomId, user).findFile(fileId);
+        if (file == null) {
+            throw new RuntimeException("File not found");
+        }
+        return file;
+    }
+    
+    public void fileCreated(FileNodeRow row) {
+        afterCommit(() -> applyChange(row.getRoomId(), room -> {
+            room.addFile(row);
+            fileRooms.put(row.getId(), room);
+        }));
+    }
+    
+    public void filesCreated(Long roomId, List<FileNodeRow> rows) {
+        afterCommit(() -> applyChange(roomId, room -> {
+            room.addFiles(rows);
+            rows.forEach(row -> fileRooms.put(row.getId(), room));
+        }));
+    }
+    
+    public void fileMoved(Long roomId, Long fileId, Long parentId, String path) {
+        afterCommit(() -> applyChange(roomId, room -> room.moveSubtree(fileId, parentId, path)));
+    }
+    
+    public void fileDeleted(Long roomId, Long fileId) {
+        afterCommit(() -> applyChange(roomId, room -> room.removeSubtree(fileId).forEach(id -> fileRooms.remove(id, room))));
+    }
+    
+    /**
+     * Records content the write-behind buffer has persisted, so the resident row points at
+     * the new blob once the pending write is cleared.
+     */
+    public void contentPersisted(Long roomId, Long fileId, String contentHash, long size, long version, LocalDateTime updatedAt) {
+        withResidentRoom(roomId, room -> room.updateContent(fileId, contentHash, size, version, updatedAt));
+        byte[] hash = contentHash.getBytes(StandardCharsets.US_ASCII);
+        eventBus.notifyPeers(CONTENT, ByteBuffer.allocate(5 * Long.BYTES + Integer.BYTES + hash.length)
+                .putLong(roomId)
+                .putLong(fileId)
+                .putLong(size)
+                .putLong(version)
+                .putLong(updatedAt.toEpochSecond(ZoneOffset.UTC))
+                .putInt(updatedAt.getNano())
+                .put(hash)
+                .array());
+    }
+    
+    @Scheduled(fixedDelayString = "${room.sweep-interval:60000}")
+    public void evictIdleRooms() {
+        long cutoff = System.currentTimeMillis() - idleTimeout;
+        for (Map.Entry<Long, CompletableFuture<ResidentRoom>> entry : rooms.entrySet()) {
+            ResidentRoom room = entry.getValue().getNow(null);
+            if (room != null && room.getLastAccess() < cutoff && rooms.remove(entry.getKey(), entry.getValue())) {
+                room.getFiles().forEach(row -> fileRooms.remove(row.getId(), room));
+                evictions.increment();
+            }
+        }
+    }
+    
+    /**
+     * Drops the resident copy of a room another node changed. A load still in flight may
+     * have read the room before the change, so it is dropped as well.
+     */
+    private void evict(Long roomId) {
+        CompletableFuture<ResidentRoom> future = rooms.remove(roomId);
+        ResidentRoom room = future != null ? future.getNow(null) : null;
+        if (room != null) {
+            room.getFiles().forEach(row -> fileRooms.remove(row.getId(), room));
+            evictions.increment();
+        }
+    }
+    
+    public int getResidentRoomCount() {
+        return residentRooms().size();
+    }
+    
+    public Map<String, Object> getMetrics() {
+        List<ResidentRoom> resident = residentRooms();
+        long files = 0;
+        long bytes = 0;
+        for (ResidentRoom room : resident) {
+            files += room.getFileCount();
+            bytes += room.estimateBytes();
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("residentRooms", resident.size());
+        metrics.put("residentFiles", files);
+        metrics.put("estimatedBytes", bytes);
+        metrics.put("loads", loads.sum());
+        metrics.put("evictions", evictions.sum());
+        return metrics;
+    }
+    
+    private ResidentRoom load(Long roomId) {
+        RoomSummary summary = roomRepository.findSummaryById(roomId)
+                .orElseThrow(() -> new RuntimeException("Room not found"));
+        ResidentRoom room = new ResidentRoom(summary.getId(), summary.getName(), summary.getDescription(),
+                summary.getInviteCode(), summary.getOwnerUsername(), fileNodeRepository.findTreeRowsByRoomId(roomId));
+        room.getFiles().forEach(row -> fileRooms.put(row.getId(), room));
+        loads.increment();
+        return room;
+    }
+    
+    private void applyChange(Long roomId, Consumer<ResidentRoom> action) {
+        withResidentRoom(roomId, action);
+        eventBus.notifyPeers(INVALIDATE, ByteBuffer.allocate(Long.BYTES).putLong(roomId).array());
+    }
+    
+    private void withResidentRoom(Long roomId, Consumer<ResidentRoom> action) {
+        CompletableFuture<ResidentRoom> future = rooms.get(roomId);
+        if (future == null) {
+            return;
+        }
+        ResidentRoom room;
+        try {
+            room = await(future);
+        } catch (RuntimeException ex) {
+            // The failed load was discarded; the next one reads the change from the database
+            return;
+        }
+        action.accept(room);
+    }
+    
+    private List<ResidentRoom> residentRooms() {
+        List<ResidentRoom> resident = new ArrayList<>(rooms.size());
+        for (CompletableFuture<ResidentRoom> future : rooms.values()) {
+            ResidentRoom room = future.getNow(null);
+            if (room != null) {
+                resident.add(room);
+            }
+        }
+        return resident;
+    }
+    
+    private static ResidentRoom await(CompletableFuture<ResidentRoom> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+    
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
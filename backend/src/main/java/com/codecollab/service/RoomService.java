@@ -8,7 +8,12 @@ import com.codecollab.entity.RoomMember;
 import com.codecollab.entity.User;
 import com.codecollab.repository.RoomMemberRepository;
 import com.codecollab.repository.RoomRepository;
+import com.codecollab.room.ResidentRoom;
+import com.codecollab.security.MembershipCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +27,11 @@ public class RoomService {
     
     private final RoomRepository roomRepository;
     private final RoomMemberRepository roomMemberRepository;
+    private final RoomRuntimeService roomRuntimeService;
+    private final MembershipCache membershipCache;
+    
+    @Value("${room.max-page-size:200}")
+    private int maxPageSize;
     
     @Transactional
     public RoomResponse createRoom(CreateRoomRequest request, User user) {
@@ -32,6 +42,7 @@ public class RoomService {
                 .description(request.getDescription())
                 .inviteCode(inviteCode)
                 .owner(user)
+                .memberCount(1)
                 .build();
         
         room = roomRepository.save(room);
@@ -43,6 +54,7 @@ public class RoomService {
                 .build();
         
         roomMemberRepository.save(member);
+        membershipCache.roomCreated(room.getId(), user.getId());
         
         return toRoomResponse(room);
     }
@@ -52,7 +64,7 @@ public class RoomService {
         Room room = roomRepository.findByInviteCode(request.getInviteCode())
                 .orElseThrow(() -> new RuntimeException("Invalid invite code"));
         
-        if (roomMemberRepository.existsByRoomAndUser(room, user)) {
+        if (membershipCache.isMember(room.getId(), user.getId())) {
             throw new RuntimeException("You are already a member of this room");
         }
         
@@ -62,26 +74,43 @@ public class RoomService {
                 .build();
         
         roomMemberRepository.save(member);
+        roomRepository.incrementMemberCount(room.getId());
+        membershipCache.memberJoined(room.getId(), user.getId());
         
-        return toRoomResponse(room);
+        // The loaded entity predates the increment
+        RoomResponse response = toRoomResponse(room);
+        response.setMemberCount(response.getMemberCount() + 1);
+        return response;
     }
     
-    public List<RoomResponse> getMyRooms(User user) {
-        List<RoomMember> memberships = roomMemberRepository.findByUser(user);
-        return memberships.stream()
-                .map(membership -> toRoomResponse(membership.getRoom()))
+    /**
+     * Lists the user's rooms in id order. With a {@code limit}, returns one page starting
+     * after room {@code afterId}; the last id of a page is the cursor for the next.
+     */
+    public List<RoomResponse> getMyRooms(User user, Long afterId, Integer limit) {
+        Pageable page = limit == null ? Pageable.unpaged() : PageRequest.of(0, Math.max(1, Math.min(limit, maxPageSize)));
+        return roomRepository.findSummariesByMember(user.getId(), afterId != null ? afterId : 0L, page).stream()
+                .map(summary -> RoomResponse.builder()
+                        .id(summary.getId())
+                        .name(summary.getName())
+                        .description(summary.getDescription())
+                        .inviteCode(summary.getInviteCode())
+                        .ownerUsername(summary.getOwnerUsername())
+                        .memberCount(summary.getMemberCount() != null ? summary.getMemberCount() : 0)
+                        .build())
                 .collect(Collectors.toList());
     }
     
     public RoomResponse getRoomById(Long roomId, User user) {
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new RuntimeException("Room not found"));
-        
-        if (!roomMemberRepository.existsByRoomAndUser(room, user)) {
-            throw new RuntimeException("You are not a member of this room");
-        }
-        
-        return toRoomResponse(room);
+        ResidentRoom room = roomRuntimeService.getAuthorizedRoom(roomId, user);
+        return RoomResponse.builder()
+                .id(room.getRoomId())
+                .name(room.getName())
+                .description(room.getDescription())
+                .inviteCode(room.getInviteCode())
+                .ownerUsername(room.getOwnerUsername())
+                .memberCount(membershipCache.getMemberCount(room.getRoomId()))
+                .build();
     }
     
     private RoomResponse toRoomResponse(Room room) {
@@ -91,7 +120,7 @@ public class RoomService {
                 .description(room.getDescription())
                 .inviteCode(room.getInviteCode())
                 .ownerUsername(room.getOwner().getUsername())
-                .memberCount(roomMemberRepository.findByRoom(room).size())
+                .memberCount(room.getMemberCount() != null ? room.getMemberCount() : 0)
                 .build();
     }
 }
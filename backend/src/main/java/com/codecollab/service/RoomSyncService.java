@@ -0,0 +1,67 @@
+package com.codecollab.service;
+
+import com.codecollab.dto.collab.ResumeRequest;
+import com.codecollab.dto.collab.ResumeResponse;
+import com.codecollab.dto.collab.RoomEvent;
+import com.codecollab.entity.User;
+import com.codecollab.messaging.RoomBroadcaster;
+import com.codecollab.messaging.RoomEventLog;
+import com.codecollab.room.ResidentRoom;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class RoomSyncService {
+    
+    private final RoomBroadcaster roomBroadcaster;
+    private final FileService fileService;
+    private final RoomRuntimeService roomRuntimeService;
+    
+    /**
+     * Replays the room events after {@code request.seq}, or returns a file tree snapshot if
+     * they are no longer in the log. Clients should subscribe to the room topics first and
+     * drop live events at or below the returned seq.
+     */
+    public ResumeResponse resume(Long roomId, ResumeRequest request, User user) {
+        ResidentRoom room = roomRuntimeService.getAuthorizedRoom(roomId, user);
+        RoomEventLog eventLog = roomBroadcaster.getEventLog(room.getRoomId());
+        
+        // Read the position before the snapshot so nothing between the two is missed, and
+        // in one step since a replica log can move to the owner's epoch at any time
+        long epoch;
+        long seq;
+        List<RoomEventLog.LoggedEvent> missed;
+        synchronized (eventLog) {
+            epoch = eventLog.getEpoch();
+            seq = eventLog.getSeq();
+            missed = eventLog.since(request.getEpoch(), request.getSeq());
+        }
+        if (missed == null) {
+            return ResumeResponse.builder()
+                    .roomId(room.getRoomId())
+                    .epoch(epoch)
+                    .seq(seq)
+                    .snapshot(true)
+                    .files(fileService.getFileTreeMetadata(room.getRoomId(), user))
+                    .build();
+        }
+        
+        return ResumeResponse.builder()
+                .roomId(room.getRoomId())
+                .epoch(epoch)
+                .seq(missed.isEmpty() ? request.getSeq() : missed.get(missed.size() - 1).seq())
+                .events(missed.stream()
+                        .map(event -> RoomEvent.builder()
+                                .seq(event.seq())
+                                .destination(event.destination())
+                                .payload(new String(event.payload(), StandardCharsets.UTF_8))
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+}
@@ -2,6 +2,7 @@ package com.codecollab.service;
 
 import com.codecollab.entity.User;
 import com.codecollab.repository.UserRepository;
+import com.codecollab.security.PrincipalCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -14,6 +15,7 @@ public class UserService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
     
     @Transactional
     public User updateUsername(String currentUsername, String newUsername) {
@@ -26,6 +28,7 @@ public class UserService {
         }
         
         user.setUsername(newUsername);
+        principalCache.invalidate(currentUsername, newUsername);
         return userRepository.save(user);
     }
     
@@ -41,6 +44,7 @@ public class UserService {
         
         // Update password
         user.setPassword(passwordEncoder.encode(newPassword));
+        principalCache.invalidate(username);
         userRepository.save(user);
     }
     
@@ -0,0 +1,43 @@
+package com.codecollab.storage;
+
+import com.codecollab.repository.FileNodeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BlobGarbageCollector {
+    
+    private final BlobStore blobStore;
+    private final FileNodeRepository fileNodeRepository;
+    
+    @Value("${storage.blob.gc-grace-period:3600000}")
+    private long gracePeriod;
+    
+    @Scheduled(fixedDelayString = "${storage.blob.gc-interval:3600000}", initialDelayString = "${storage.blob.gc-interval:3600000}")
+    public void collect() {
+        List<String> candidates = blobStore.findUnreferenced(new HashSet<>(fileNodeRepository.findAllContentHashes()), gracePeriod);
+        if (candidates.isEmpty()) {
+            return;
+        }
+        // Rows committed during the walk may reference blobs the first snapshot did not
+        Set<String> referenced = new HashSet<>(fileNodeRepository.findAllContentHashes());
+        int deleted = 0;
+        for (String hash : candidates) {
+            if (!referenced.contains(hash) && blobStore.deleteIfUnused(hash, gracePeriod)) {
+                deleted++;
+            }
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} unreferenced blobs", deleted);
+        }
+    }
+}
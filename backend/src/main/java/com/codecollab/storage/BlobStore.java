@@ -0,0 +1,208 @@
+package com.codecollab.storage;
+
+import com.codecollab.compression.ContentCompressor;
+import com.codecollab.util.ContentHash;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for file contents on local disk. Each distinct content is
+ * written once under the SHA-256 hash of its text ({@code root/ab/cd/abcd...}); identical
+ * files in different rooms share a blob. Blob bytes pass through {@link ContentCompressor}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BlobStore {
+    
+    private final ContentCompressor contentCompressor;
+    
+    @Value("${storage.blob.root:./data/blobs}")
+    private String rootDirectory;
+    
+    @Value("${storage.blob.mmap-threshold:65536}")
+    private long mmapThreshold;
+    
+    private Path root;
+    
+    // Serialises put and garbage collection of the same hash, so a blob handed out by put
+    // cannot be deleted before its row is committed
+    private final Object[] locks = Stream.generate(Object::new).limit(64).toArray();
+    
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(rootDirectory).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+    }
+    
+    /**
+     * Stores {@code content} if it is not already present and returns its hash.
+     */
+    public String put(String content) {
+        byte[] bytes = (content != null ? content : "").getBytes(StandardCharsets.UTF_8);
+        String hash = ContentHash.sha256Hex(bytes);
+        Path path = pathOf(hash);
+        synchronized (lockFor(hash)) {
+            try {
+                if (Files.exists(path)) {
+                    // Refresh the timestamp so the next GC pass treats the blob as recently used
+                    Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+                    return hash;
+                }
+                Files.createDirectories(path.getParent());
+                Path temp = Files.createTempFile(path.getParent(), hash, ".tmp");
+                Files.write(temp, contentCompressor.encode(bytes));
+                try {
+                    Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException | AtomicMoveNotSupportedException e) {
+                    Files.deleteIfExists(temp);
+                    if (!Files.exists(path)) {
+                        throw e;
+                    }
+                }
+                return hash;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to store blob " + hash, e);
+            }
+        }
+    }
+    
+    /**
+     * Reads a blob as text. Large blobs are memory-mapped rather than copied through
+     * a heap buffer.
+     */
+    public String read(String hash) {
+        if (hash == null) {
+            return null;
+        }
+        Path path = pathOf(hash);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < mmapThreshold) {
+                return new String(contentCompressor.decode(Files.readAllBytes(path)), StandardCharsets.UTF_8);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.get(0) != ContentCompressor.MARKER) {
+                return StandardCharsets.UTF_8.decode(mapped).toString();
+            }
+            byte[] stored = new byte[(int) size];
+            mapped.get(stored);
+            return new String(contentCompressor.decode(stored), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read blob " + hash, e);
+        }
+    }
+    
+    /**
+     * Writes a blob's text bytes to {@code out} without holding the whole blob in memory.
+     * Uncompressed blobs are handed over with {@link FileChannel#transferTo}; compressed
+     * ones are inflated as a stream. Returns the number of bytes written.
+     */
+    public long copyTo(String hash, OutputStream out) {
+        Path path = pathOf(hash);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer first = ByteBuffer.allocate(1);
+            if (channel.read(first, 0) < 1 || first.get(0) != ContentCompressor.MARKER) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long size = channel.size();
+                long position = 0;
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+                return size;
+            }
+            try (InputStream in = contentCompressor.decode(Channels.newInputStream(channel))) {
+                return in.transferTo(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to copy blob " + hash, e);
+        }
+    }
+    
+    public boolean exists(String hash) {
+        return hash != null && Files.exists(pathOf(hash));
+    }
+    
+    public Path pathOf(String hash) {
+        if (hash == null || !isHash(hash)) {
+            throw new IllegalArgumentException("Invalid blob hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+    
+    /**
+     * Lists blobs that are not in {@code referenced} and have not been touched within
+     * {@code gracePeriodMillis}, so blobs written ahead of their row are kept.
+     */
+    public List<String> findUnreferenced(Set<String> referenced, long gracePeriodMillis) {
+        long cutoff = System.currentTimeMillis() - gracePeriodMillis;
+        List<String> candidates = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = path.getFileName().toString();
+                if (!referenced.contains(name) && isHash(name) && Files.getLastModifiedTime(path).toMillis() < cutoff) {
+                    candidates.add(name);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Blob garbage collection stopped early", e);
+        }
+        return candidates;
+    }
+    
+    /**
+     * Deletes a blob unless {@link #put} has touched it within {@code gracePeriodMillis}.
+     * The check and the delete run under the same lock as put.
+     */
+    public boolean deleteIfUnused(String hash, long gracePeriodMillis) {
+        Path path = pathOf(hash);
+        synchronized (lockFor(hash)) {
+            try {
+                if (Files.getLastModifiedTime(path).toMillis() >= System.currentTimeMillis() - gracePeriodMillis) {
+                    return false;
+                }
+                return Files.deleteIfExists(path);
+            } catch (NoSuchFileException e) {
+                return false;
+            } catch (IOException e) {
+                log.warn("Failed to delete blob {}", hash, e);
+                return false;
+            }
+        }
+    }
+    
+    private Object lockFor(String hash) {
+        return locks[Integer.parseInt(hash, 0, 2, 16) % locks.length];
+    }
+    
+    private static boolean isHash(String name) {
+        return name.length() == 64 && name.chars().allMatch(c -> Character.digit(c, 16) >= 0);
+    }
+}
@@ -0,0 +1,45 @@
+package com.codecollab.storage;
+
+import com.codecollab.util.FilePaths;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Fills {@code files.path} for rows created before paths were maintained, one tree level
+ * at a time: each pass picks up children whose parent already has a path.
+ */
+@Slf4j
+public class FilePathBackfill implements SchemaMigrator.JavaMigration {
+    
+    private static final int BATCH_SIZE = 1000;
+    
+    @Override
+    public int version() {
+        return 9;
+    }
+    
+    @Override
+    public String description() {
+        return "backfill file paths";
+    }
+    
+    @Override
+    public void migrate(JdbcTemplate jdbcTemplate) {
+        int filled = jdbcTemplate.update("UPDATE files SET path = CONCAT('/', id, '/') WHERE parent_id IS NULL AND path IS NULL");
+        List<Object[]> batch;
+        do {
+            batch = jdbcTemplate.query("SELECT c.id, p.path FROM files c JOIN files p ON p.id = c.parent_id "
+                            + "WHERE c.path IS NULL AND p.path IS NOT NULL LIMIT " + BATCH_SIZE,
+                    (rs, rowNum) -> new Object[] {FilePaths.child(rs.getString(2), rs.getLong(1)), rs.getLong(1)});
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE files SET path = ? WHERE id = ?", batch);
+            }
+            filled += batch.size();
+        } while (!batch.isEmpty());
+        if (filled > 0) {
+            log.info("Backfilled paths for {} files", filled);
+        }
+    }
+}
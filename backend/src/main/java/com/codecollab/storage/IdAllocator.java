@@ -0,0 +1,85 @@
+package com.codecollab.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Hi-lo id allocator for rows written through plain JDBC batches. Each sequence is named
+ * after its table and reserves ids from the {@code id_allocations} row in blocks, so
+ * handing out an id is usually an in-memory increment.
+ */
+@Component
+public class IdAllocator {
+    
+    private static final Pattern TABLE_NAME = Pattern.compile("[a-z_]+");
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+    
+    public IdAllocator(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${ids.block-size:100}") int blockSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+    
+    public long nextId(String table) {
+        Block block = blocks.computeIfAbsent(table, name -> new Block());
+        synchronized (block) {
+            if (block.next >= block.limit) {
+                long start = reserve(table, blockSize);
+                block.next = start;
+                block.limit = start + blockSize;
+            }
+            return block.next++;
+        }
+    }
+    
+    /**
+     * Reserves {@code count} consecutive ids directly from the database and returns the first.
+     */
+    public long reserve(String table, int count) {
+        if (!TABLE_NAME.matcher(table).matches()) {
+            throw new IllegalArgumentException("Invalid sequence name: " + table);
+        }
+        Long start = transactionTemplate.execute(status -> {
+            // The UPDATE takes the row lock, so concurrent nodes reserve disjoint ranges
+            if (advance(table, count) == 0) {
+                try {
+                    jdbcTemplate.update("INSERT INTO id_allocations (name, next_id) "
+                            + "SELECT ?, COALESCE(MAX(id), 0) + 1 FROM " + table, table);
+                } catch (DuplicateKeyException ignored) {
+                    // Another node seeded the sequence first
+                }
+                advance(table, count);
+            }
+            Long end = jdbcTemplate.queryForObject("SELECT next_id FROM id_allocations WHERE name = ?", Long.class, table);
+            return end - count;
+        });
+        return start;
+    }
+    
+    private int advance(String table, int count) {
+        return jdbcTemplate.update("UPDATE id_allocations SET next_id = next_id + ? WHERE name = ?", count, table);
+    }
+    
+    private static final class Block {
+        private long next;
+        private long limit;
+    }
+}
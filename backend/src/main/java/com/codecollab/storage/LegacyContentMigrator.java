@@ -0,0 +1,52 @@
+package com.codecollab.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves file contents still stored inline in {@code files.content} into the blob store.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LegacyContentMigrator {
+    
+    private static final int BATCH_SIZE = 500;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final BlobStore blobStore;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        int migrated = 0;
+        try {
+            List<Map<String, Object>> rows;
+            do {
+                rows = jdbcTemplate.queryForList(
+                        "SELECT id, content FROM files WHERE content IS NOT NULL AND content_hash IS NULL LIMIT " + BATCH_SIZE);
+                for (Map<String, Object> row : rows) {
+                    String content = (String) row.get("content");
+                    String hash = blobStore.put(content);
+                    jdbcTemplate.update("UPDATE files SET content_hash = ?, content_size = ?, content = NULL WHERE id = ?",
+                            hash, (long) content.getBytes(StandardCharsets.UTF_8).length, row.get("id"));
+                }
+                migrated += rows.size();
+            } while (rows.size() == BATCH_SIZE);
+        } catch (DataAccessException ex) {
+            log.error("Inline content migration stopped after {} files", migrated, ex);
+            return;
+        }
+        if (migrated > 0) {
+            log.info("Moved {} inline file contents into the blob store", migrated);
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.codecollab.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Applies versioned SQL scripts named {@code V<version>__<description>.sql} in version
+ * order and records each one in {@code schema_version}. Applied scripts must not change:
+ * a checksum mismatch stops startup. A database whose tables were created by Hibernate
+ * before migrations existed is baselined at version 1 instead of being recreated.
+ * <p>
+ * Nodes starting together take turns: each holds a row lock on version 0 of
+ * {@code schema_version} while it migrates, so the others wait and then find the
+ * scripts applied. The lock is held on a connection of its own, since MySQL commits the
+ * current transaction on every DDL statement.
+ * <p>
+ * Data changes that plain SQL cannot express portably are supplied as {@link JavaMigration}s
+ * and run in the same version sequence.
+ */
+@Slf4j
+public class SchemaMigrator {
+    
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final String HISTORY_TABLE = "schema_version";
+    private static final String BASELINE_TABLE = "rooms";
+    private static final String LOCK_DESCRIPTION = "migration lock";
+    
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final String location;
+    private final List<JavaMigration> javaMigrations;
+    
+    public SchemaMigrator(DataSource dataSource, String location, List<JavaMigration> javaMigrations) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.location = location;
+        this.javaMigrations = javaMigrations;
+    }
+    
+    public void migrate() {
+        List<Migration> migrations = discover();
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE + " (version INT NOT NULL, description VARCHAR(200) NOT NULL, "
+                + "checksum BIGINT NOT NULL, installed_at TIMESTAMP NOT NULL, PRIMARY KEY (version))");
+        try (Connection lock = dataSource.getConnection()) {
+            lock(lock);
+            try {
+                apply(migrations);
+            } finally {
+                lock.rollback();
+                lock.setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException("Failed to lock " + HISTORY_TABLE + " for migration", ex);
+        }
+    }
+    
+    private void lock(Connection connection) throws SQLException {
+        try {
+            jdbcTemplate.update("INSERT INTO " + HISTORY_TABLE + " (version, description, checksum, installed_at) VALUES (0, ?, 0, ?)",
+                    LOCK_DESCRIPTION, Timestamp.valueOf(LocalDateTime.now()));
+        } catch (DuplicateKeyException ignored) {
+            // Created by an earlier run or another node
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT version FROM " + HISTORY_TABLE + " WHERE version = 0 FOR UPDATE")) {
+            statement.executeQuery().close();
+        }
+    }
+    
+    private void apply(List<Migration> migrations) {
+        Map<Integer, Long> applied = new HashMap<>();
+        jdbcTemplate.query("SELECT version, checksum FROM " + HISTORY_TABLE + " WHERE version > 0",
+                (RowCallbackHandler) rs -> applied.put(rs.getInt(1), rs.getLong(2)));
+        if (applied.isEmpty() && !migrations.isEmpty() && tableExists(BASELINE_TABLE)) {
+            Migration baseline = migrations.get(0);
+            record(baseline);
+            applied.put(baseline.version(), baseline.checksum());
+            log.info("Baselined existing schema at V{}", baseline.version());
+        }
+        
+        for (Migration migration : migrations) {
+            Long checksum = applied.get(migration.version());
+            if (checksum != null) {
+                if (checksum != migration.checksum()) {
+                    throw new RuntimeException("Migration V" + migration.version() + " changed after it was applied");
+                }
+                continue;
+            }
+            log.info("Applying schema migration V{} {}", migration.version(), migration.description());
+            if (migration.code() != null) {
+                migration.code().migrate(jdbcTemplate);
+            } else {
+                try (Connection connection = dataSource.getConnection()) {
+                    ScriptUtils.executeSqlScript(connection, new EncodedResource(migration.resource(), StandardCharsets.UTF_8));
+                } catch (SQLException ex) {
+                    throw new RuntimeException("Failed to apply migration V" + migration.version(), ex);
+                }
+            }
+            record(migration);
+        }
+    }
+    
+    private List<Migration> discover() {
+        List<Migration> migrations = new ArrayList<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location)) {
+                Matcher matcher = SCRIPT_NAME.matcher(String.valueOf(resource.getFilename()));
+                if (!matcher.matches()) {
+                    continue;
+                }
+                migrations.add(new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '),
+                        checksum(resource), resource, null));
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to read migrations from " + location, ex);
+        }
+        for (JavaMigration code : javaMigrations) {
+            migrations.add(new Migration(code.version(), code.description(), 0, null, code));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        if (!migrations.isEmpty() && migrations.get(0).version() < 1) {
+            throw new RuntimeException("Migration versions start at 1; version 0 holds the migration lock");
+        }
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+                throw new RuntimeException("Duplicate migration version V" + migrations.get(i).version());
+            }
+        }
+        return migrations;
+    }
+    
+    private void record(Migration migration) {
+        jdbcTemplate.update("INSERT INTO " + HISTORY_TABLE + " (version, description, checksum, installed_at) VALUES (?, ?, ?, ?)",
+                migration.version(), migration.description(), migration.checksum(), Timestamp.valueOf(LocalDateTime.now()));
+    }
+    
+    private boolean tableExists(String table) {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : List.of(table, table.toUpperCase())) {
+                try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[] {"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } catch (SQLException ex) {
+            throw new RuntimeException("Failed to inspect schema", ex);
+        }
+    }
+    
+    private static long checksum(Resource resource) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = resource.getInputStream()) {
+            crc.update(in.readAllBytes());
+        }
+        return crc.getValue();
+    }
+    
+    /**
+     * A migration implemented in code. It is recorded like a script, so it runs exactly once.
+     */
+    public interface JavaMigration {
+        
+        int version();
+        
+        String description();
+        
+        void migrate(JdbcTemplate jdbcTemplate);
+    }
+    
+    private record Migration(int version, String description, long checksum, Resource resource, JavaMigration code) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.codecollab.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public final class ContentHash {
+    
+    private ContentHash() {
+    }
+    
+    public static String sha256Hex(String content) {
+        return sha256Hex(content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+    }
+    
+    public static String sha256Hex(byte[] bytes) {
+        return HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+    
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
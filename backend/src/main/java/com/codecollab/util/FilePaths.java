@@ -0,0 +1,35 @@
+package com.codecollab.util;
+
+/**
+ * Materialized paths of the file tree. A node's path lists the ids from the root down to
+ * and including itself, e.g. {@code /12/45/} for node 45 in folder 12, so a subtree is
+ * every path that starts with its root's path.
+ */
+public final class FilePaths {
+    
+    /** Length of {@code files.path}; bounds how deep folders can nest. */
+    public static final int MAX_LENGTH = 760;
+    
+    private FilePaths() {
+    }
+    
+    public static String child(String parentPath, long id) {
+        String path = (parentPath != null ? parentPath : "/") + id + "/";
+        if (path.length() > MAX_LENGTH) {
+            throw new RuntimeException("Folders are nested too deeply");
+        }
+        return path;
+    }
+    
+    /**
+     * LIKE pattern matching {@code path} and everything below it. Paths only contain
+     * digits and slashes, so nothing needs escaping.
+     */
+    public static String subtreePattern(String path) {
+        return path + "%";
+    }
+    
+    public static boolean isWithin(String path, String ancestorPath) {
+        return path != null && path.startsWith(ancestorPath);
+    }
+}
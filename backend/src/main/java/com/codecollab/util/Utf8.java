@@ -0,0 +1,32 @@
+package com.codecollab.util;
+
+public final class Utf8 {
+    
+    private Utf8() {
+    }
+    
+    /**
+     * Number of bytes {@code text} occupies in UTF-8, computed without encoding it.
+     */
+    public static long encodedLength(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        long bytes = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,4 @@
+ALTER TABLE files MODIFY COLUMN path VARCHAR(760) NOT NULL;
+
+-- Subtree reads, moves and deletes are prefix ranges on this index
+CREATE INDEX idx_files_room_path ON files (room_id, path);
@@ -0,0 +1,65 @@
+-- Schema as previously generated by Hibernate (ddl-auto: update) from the original entities.
+-- Existing databases that already hold these tables are baselined at this version, so it
+-- must not change: every later change goes into its own migration.
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role ENUM('USER', 'ADMIN') NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE rooms (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    description VARCHAR(1000),
+    invite_code VARCHAR(255) NOT NULL,
+    owner_id BIGINT NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_rooms_invite_code UNIQUE (invite_code),
+    CONSTRAINT fk_rooms_owner FOREIGN KEY (owner_id) REFERENCES users (id)
+);
+
+CREATE TABLE room_members (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    room_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    joined_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_room_members_room FOREIGN KEY (room_id) REFERENCES rooms (id),
+    CONSTRAINT fk_room_members_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE files (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    room_id BIGINT NOT NULL,
+    parent_id BIGINT,
+    name VARCHAR(255) NOT NULL,
+    type ENUM('FILE', 'FOLDER') NOT NULL,
+    content TEXT,
+    language VARCHAR(255),
+    sort_order INT,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_files_room FOREIGN KEY (room_id) REFERENCES rooms (id),
+    CONSTRAINT fk_files_parent FOREIGN KEY (parent_id) REFERENCES files (id)
+);
+
+CREATE TABLE chat_messages (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    room_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    message TEXT NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_chat_messages_room FOREIGN KEY (room_id) REFERENCES rooms (id),
+    CONSTRAINT fk_chat_messages_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
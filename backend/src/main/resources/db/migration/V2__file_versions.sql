@@ -0,0 +1,3 @@
+-- Revision of the stored content, checked by range edits against a base version.
+-- Rows without one are treated as version 0.
+ALTER TABLE files ADD COLUMN version BIGINT;
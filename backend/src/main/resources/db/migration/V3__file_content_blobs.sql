@@ -0,0 +1,4 @@
+-- File contents move to the content-addressed blob store. files.content is kept until
+-- LegacyContentMigrator has moved every inline content at startup; it clears each row it moves.
+ALTER TABLE files ADD COLUMN content_hash VARCHAR(64);
+ALTER TABLE files ADD COLUMN content_size BIGINT;
@@ -0,0 +1,5 @@
+-- Keyset pages of a room's history, newest first
+CREATE INDEX idx_chat_messages_room_id ON chat_messages (room_id, id);
+
+-- A room's history in time order
+CREATE INDEX idx_chat_messages_room_created ON chat_messages (room_id, created_at);
@@ -0,0 +1,8 @@
+-- High-water marks for IdAllocator, which hands out chat and file ids in blocks so inserts
+-- can be batched. A sequence starts above the table's current maximum id on first use;
+-- the id columns keep AUTO_INCREMENT, which explicit ids simply bypass.
+CREATE TABLE id_allocations (
+    name VARCHAR(64) NOT NULL,
+    next_id BIGINT NOT NULL,
+    PRIMARY KEY (name)
+);
@@ -0,0 +1,4 @@
+ALTER TABLE rooms ADD COLUMN member_count INT;
+
+-- Distinct, since duplicate memberships are only removed in V7
+UPDATE rooms SET member_count = (SELECT COUNT(DISTINCT m.user_id) FROM room_members m WHERE m.room_id = rooms.id);
@@ -0,0 +1,13 @@
+-- Duplicate memberships predate the unique key; keep the earliest of each
+DELETE FROM room_members WHERE id NOT IN (
+    SELECT keep_id FROM (SELECT MIN(id) AS keep_id FROM room_members GROUP BY room_id, user_id) AS keep
+);
+
+-- Membership checks and per-room member lookups
+CREATE UNIQUE INDEX uk_room_members_room_user ON room_members (room_id, user_id);
+
+-- A user's rooms in id order, served from the index alone
+CREATE INDEX idx_room_members_user_room ON room_members (user_id, room_id);
+
+-- Room tree loads and sibling listings in display order
+CREATE INDEX idx_files_room_parent_sort ON files (room_id, parent_id, sort_order);
@@ -0,0 +1,3 @@
+-- Materialized ancestor path of each file, e.g. '/12/45/' for node 45 inside folder 12.
+-- Filled by the V9 backfill and made mandatory in V10.
+ALTER TABLE files ADD COLUMN path VARCHAR(760);
@@ -0,0 +1,37 @@
+package com.codecollab;
+
+import com.codecollab.entity.Role;
+import com.codecollab.entity.Room;
+import com.codecollab.entity.RoomMember;
+import com.codecollab.entity.User;
+import com.codecollab.repository.RoomMemberRepository;
+import com.codecollab.repository.RoomRepository;
+import com.codecollab.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.util.UUID;
+
+/**
+ * Creates a user who owns and is the only member of a fresh room. Names are
+ * suffixed so tests sharing one context do not collide.
+ */
+@TestComponent
+@RequiredArgsConstructor
+public class RoomFixture {
+
+	private final UserRepository userRepository;
+	private final RoomRepository roomRepository;
+	private final RoomMemberRepository roomMemberRepository;
+
+	public Member create(String prefix) {
+		String name = prefix + "-" + UUID.randomUUID().toString().substring(0, 8);
+		User user = userRepository.save(User.builder().username(name).email(name + "@example.com").password("x").role(Role.USER).build());
+		Room room = roomRepository.save(Room.builder().name(prefix).inviteCode(name).owner(user).memberCount(1).build());
+		roomMemberRepository.save(RoomMember.builder().room(room).user(user).build());
+		return new Member(user, room);
+	}
+
+	public record Member(User user, Room room) {
+	}
+}
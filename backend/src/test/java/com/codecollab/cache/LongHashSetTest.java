@@ -0,0 +1,44 @@
+package com.codecollab.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+
+	@Test
+	void matchesHashSetAcrossGrowth() {
+		Random random = new Random(42);
+		Set<Long> expected = new HashSet<>();
+		LongHashSet set = LongHashSet.of(List.of());
+		for (int i = 0; i < 5000; i++) {
+			long value = random.nextInt(2000) - 100;
+			expected.add(value);
+			set = set.with(value);
+		}
+
+		assertEquals(expected.size(), set.size());
+		for (long value = -200; value < 2100; value++) {
+			assertEquals(expected.contains(value), set.contains(value), "value " + value);
+		}
+	}
+
+	@Test
+	void copiesOnWriteAndDeduplicates() {
+		List<Long> values = new ArrayList<>(List.of(3L, 0L, 3L, 9L, 0L));
+		LongHashSet base = LongHashSet.of(values);
+		LongHashSet extended = base.with(11L);
+
+		assertEquals(3, base.size());
+		assertFalse(base.contains(11L));
+		assertTrue(extended.contains(11L));
+		assertTrue(extended.contains(0L));
+		assertSame(extended, extended.with(9L));
+	}
+}
@@ -0,0 +1,59 @@
+package com.codecollab.chat;
+
+import com.codecollab.RoomFixture;
+import com.codecollab.compression.ContentCompressor;
+import com.codecollab.storage.IdAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(RoomFixture.class)
+class ChatIngestorTest {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ContentCompressor compressor;
+
+	@Autowired
+	private IdAllocator idAllocator;
+
+	@Autowired
+	private RoomFixture roomFixture;
+
+	@Test
+	void dropsOnlyTheRowThatKeepsFailing() {
+		RoomFixture.Member member = roomFixture.create("chat");
+		ChatIngestor ingestor = new ChatIngestor(jdbcTemplate, compressor, 100, 100);
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			long id = idAllocator.nextId("chat_messages");
+			ids.add(id);
+			// The third message references a room that does not exist
+			long roomId = i == 2 ? -1L : member.room().getId();
+			ingestor.enqueue(new ChatIngestor.PendingMessage(id, roomId, member.user().getId(), "message " + i, LocalDateTime.now()));
+		}
+
+		for (int attempt = 0; attempt < 10 && ingestor.getDroppedCount() == 0; attempt++) {
+			ingestor.flush();
+		}
+
+		assertThat(ingestor.getDroppedCount()).isEqualTo(1);
+		assertThat(ingestor.getPersistedCount()).isEqualTo(3);
+		assertThat(jdbcTemplate.queryForList("SELECT id FROM chat_messages WHERE room_id = ? ORDER BY id", Long.class,
+				member.room().getId())).containsExactly(ids.get(0), ids.get(1), ids.get(3));
+		ingestor.shutdown();
+	}
+}
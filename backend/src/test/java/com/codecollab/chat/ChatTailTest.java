@@ -0,0 +1,60 @@
+package com.codecollab.chat;
+
+import com.codecollab.dto.ChatMessageDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatTailTest {
+
+	@Test
+	void pagesBackwardsThroughCompleteHistory() {
+		ChatTail tail = new ChatTail(10, latestFirst(5), true);
+
+		assertEquals(List.of(3L, 4L, 5L), ids(tail.page(null, 3)));
+		assertEquals(List.of(1L, 2L), ids(tail.page(3L, 3)));
+		assertEquals(List.of(), ids(tail.page(1L, 3)));
+		assertTrue(tail.hasOlderThan(3L));
+		assertFalse(tail.hasOlderThan(1L));
+	}
+
+	@Test
+	void fallsBackToDatabaseOncePastTheRing() {
+		ChatTail tail = new ChatTail(4, latestFirst(3), true);
+		tail.append(message(4));
+		tail.append(message(5));
+
+		assertEquals(List.of(2L, 3L, 4L, 5L), ids(tail.page(null, 4)));
+		assertNull(tail.page(3L, 2), "oldest message was evicted, so the page is incomplete");
+		assertTrue(tail.hasOlderThan(2L));
+	}
+
+	@Test
+	void appendIgnoresDuplicatesAndKeepsIdOrder() {
+		ChatTail tail = new ChatTail(10, latestFirst(2), true);
+		tail.append(message(4));
+		tail.append(message(3));
+		tail.append(message(4));
+
+		assertEquals(List.of(1L, 2L, 3L, 4L), ids(tail.page(null, 10)));
+	}
+
+	private static List<ChatMessageDTO> latestFirst(int count) {
+		List<ChatMessageDTO> messages = new ArrayList<>();
+		for (int id = count; id >= 1; id--) {
+			messages.add(message(id));
+		}
+		return messages;
+	}
+
+	private static ChatMessageDTO message(long id) {
+		return ChatMessageDTO.builder().id(id).message("m" + id).build();
+	}
+
+	private static List<Long> ids(List<ChatMessageDTO> page) {
+		return page.stream().map(ChatMessageDTO::getId).toList();
+	}
+}
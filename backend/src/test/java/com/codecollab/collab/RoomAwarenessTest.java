@@ -0,0 +1,45 @@
+package com.codecollab.collab;
+
+import com.codecollab.dto.collab.AwarenessDiff;
+import com.codecollab.dto.collab.AwarenessState;
+import com.codecollab.dto.collab.AwarenessUpdate;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomAwarenessTest {
+
+	@Test
+	void mergesUpdatesBetweenTicks() {
+		RoomAwareness awareness = new RoomAwareness(1L);
+		awareness.update("s1", 10L, "alice", AwarenessUpdate.builder().fileId(5L).cursor(1).build());
+		for (int i = 2; i <= 100; i++) {
+			awareness.update("s1", 10L, "alice", AwarenessUpdate.builder().cursor(i).build());
+		}
+
+		AwarenessDiff diff = awareness.drainDiff();
+		assertEquals(1, diff.getUpdated().size());
+		AwarenessState state = diff.getUpdated().get(0);
+		assertEquals(5L, state.getFileId());
+		assertEquals(100, state.getCursor());
+		assertNull(awareness.drainDiff());
+	}
+
+	@Test
+	void skipsUnchangedStateAndReportsRemovals() {
+		RoomAwareness awareness = new RoomAwareness(1L);
+		awareness.update("s1", 10L, "alice", AwarenessUpdate.builder().cursor(3).build());
+		awareness.update("s2", 11L, "bob", AwarenessUpdate.builder().cursor(4).build());
+		awareness.drainDiff();
+
+		awareness.update("s1", 10L, "alice", AwarenessUpdate.builder().cursor(3).build());
+		awareness.remove("s2");
+
+		AwarenessDiff diff = awareness.drainDiff();
+		assertEquals(List.of(), diff.getUpdated());
+		assertEquals(List.of("s2"), diff.getRemoved());
+		assertEquals(1, awareness.snapshot().size());
+	}
+}
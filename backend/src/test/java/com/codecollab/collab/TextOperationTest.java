@@ -0,0 +1,96 @@
+package com.codecollab.collab;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TextOperationTest {
+
+	@Test
+	void appliesCompactWireFormat() {
+		TextOperation operation = TextOperation.fromList(List.of(6, "brave ", -3, "new", 7));
+
+		assertThat(operation.apply("hello old world!")).isEqualTo("hello brave new world!");
+		assertThat(operation.getBaseLength()).isEqualTo(16);
+	}
+
+	@Test
+	void concurrentOperationsConverge() {
+		Random random = new Random(42);
+		for (int i = 0; i < 500; i++) {
+			String doc = randomString(random, random.nextInt(40));
+			TextOperation a = randomOperation(random, doc);
+			TextOperation b = randomOperation(random, doc);
+
+			TextOperation[] primes = TextOperation.transform(a, b);
+
+			assertThat(primes[1].apply(a.apply(doc))).isEqualTo(primes[0].apply(b.apply(doc)));
+		}
+	}
+
+	@Test
+	void documentRebasesStaleEdits() {
+		CollabDocument document = new CollabDocument(1L, 1L, "abc", 0, 10);
+
+		document.apply(0, new TextOperation().insert("x").retain(3));
+		document.apply(0, new TextOperation().retain(3).insert("y"));
+
+		assertThat(document.snapshot().getContent()).isEqualTo("xabcy");
+		assertThat(document.getRevision()).isEqualTo(2);
+	}
+
+	@Test
+	void reportsLengthAtEarlierRevisions() {
+		CollabDocument document = new CollabDocument(1L, 1L, "abc", 5, 10);
+		document.apply(5, new TextOperation().retain(3).insert("defg"));
+
+		assertThat(document.lengthAt(5)).isEqualTo(3);
+		assertThat(document.lengthAt(6)).isEqualTo(7);
+	}
+
+	@Test
+	void rejectsRevisionsOutsideHistory() {
+		CollabDocument document = new CollabDocument(1L, 1L, "", 0, 2);
+		for (int i = 0; i < 3; i++) {
+			document.apply(i, new TextOperation().retain(i).insert("x"));
+		}
+
+		assertThatThrownBy(() -> document.apply(0, new TextOperation().insert("y")))
+				.isInstanceOf(StaleRevisionException.class);
+	}
+
+	private static TextOperation randomOperation(Random random, String doc) {
+		TextOperation operation = new TextOperation();
+		int index = 0;
+		while (index < doc.length()) {
+			int n = 1 + random.nextInt(doc.length() - index);
+			switch (random.nextInt(3)) {
+				case 0 -> operation.insert(randomString(random, 1 + random.nextInt(4)));
+				case 1 -> {
+					operation.retain(n);
+					index += n;
+				}
+				default -> {
+					operation.delete(n);
+					index += n;
+				}
+			}
+		}
+		if (random.nextBoolean()) {
+			operation.insert(randomString(random, 3));
+		}
+		return operation;
+	}
+
+	private static String randomString(Random random, int length) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			builder.append((char) ('a' + random.nextInt(26)));
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,76 @@
+package com.codecollab.compression;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentCompressorTest {
+
+	private final ContentCompressor compressor = new ContentCompressor(List.of(new DeflateCodec()), "deflate", 64);
+
+	@Test
+	void compressesLargeValuesAndRoundTrips() {
+		byte[] raw = "public class Main {}\n".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+		byte[] stored = compressor.encode(raw);
+
+		assertThat(stored.length).isLessThan(raw.length / 4);
+		assertThat(stored[0]).isEqualTo(ContentCompressor.MARKER);
+		assertThat(compressor.decode(stored)).isEqualTo(raw);
+	}
+
+	@Test
+	void streamingDecodeMatchesArrayDecode() throws IOException {
+		byte[] raw = "public class Main {}\n".repeat(5000).getBytes(StandardCharsets.UTF_8);
+		byte[] small = "hi".getBytes(StandardCharsets.UTF_8);
+
+		try (InputStream in = compressor.decode(new ByteArrayInputStream(compressor.encode(raw)))) {
+			assertThat(in.readAllBytes()).isEqualTo(raw);
+		}
+		try (InputStream in = compressor.decode(new ByteArrayInputStream(small))) {
+			assertThat(in.readAllBytes()).isEqualTo(small);
+		}
+	}
+
+	@Test
+	void leavesSmallAndLegacyValuesUntouched() {
+		byte[] small = "hi".getBytes(StandardCharsets.UTF_8);
+		byte[] legacy = "x".repeat(1000).getBytes(StandardCharsets.UTF_8);
+
+		assertThat(compressor.encode(small)).isSameAs(small);
+		assertThat(compressor.decode(legacy)).isSameAs(legacy);
+	}
+
+	@Test
+	void textFormRoundTripsIncludingMarkerPrefixedInput() {
+		String large = "SELECT * FROM files;\n".repeat(100);
+		String tricky = ContentCompressor.TEXT_MARKER + "short";
+
+		assertThat(compressor.encodeText("plain")).isEqualTo("plain");
+		assertThat(compressor.encodeText(large)).hasSizeLessThan(large.length() / 2);
+		assertThat(compressor.decodeText(compressor.encodeText(large))).isEqualTo(large);
+		assertThat(compressor.decodeText(compressor.encodeText(tricky))).isEqualTo(tricky);
+	}
+
+	@Test
+	void keepsTextRawWhenBase64WouldOutgrowTheSaving() {
+		String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+		Random random = new Random(42);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		byte[] raw = text.toString().getBytes(StandardCharsets.UTF_8);
+
+		// Six bits of entropy per byte: the binary form still shrinks, by less than Base64 adds back
+		assertThat(compressor.encode(raw).length).isLessThan(raw.length).isGreaterThan(raw.length * 3 / 4);
+		assertThat(compressor.encodeText(text.toString())).isEqualTo(text.toString());
+	}
+}
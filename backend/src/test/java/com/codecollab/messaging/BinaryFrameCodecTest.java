@@ -0,0 +1,110 @@
+package com.codecollab.messaging;
+
+import com.codecollab.dto.collab.AwarenessDiff;
+import com.codecollab.dto.collab.AwarenessState;
+import com.codecollab.dto.collab.AwarenessUpdate;
+import com.codecollab.dto.collab.EditBroadcast;
+import com.codecollab.dto.collab.EditOperationMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryFrameCodecTest {
+
+	private static final EditBroadcast EDIT = EditBroadcast.builder()
+			.fileId(1234L)
+			.revision(98_765L)
+			.clientId("c-7f3a")
+			.username("alice")
+			.ops(List.of(120, "x", -2, 40))
+			.build();
+
+	private static final AwarenessDiff AWARENESS = AwarenessDiff.builder()
+			.roomId(42L)
+			.updated(List.of(
+					AwarenessState.builder().sessionId("s1").userId(7L).username("alice").fileId(1234L).cursor(512).build(),
+					AwarenessState.builder().sessionId("s2").userId(8L).username("bob").fileId(1234L)
+							.cursor(80).selectionStart(60).selectionEnd(80).build()))
+			.removed(List.of("s3"))
+			.build();
+
+	@Test
+	void roundTripsEveryFrameType() {
+		EditOperationMessage operation = EditOperationMessage.builder()
+				.clientId("c-1").revision(3).ops(List.of(5, "héllo ✓", -1)).build();
+		AwarenessUpdate update = AwarenessUpdate.builder().cursor(9).build();
+
+		assertThat(BinaryFrameCodec.decode(BinaryFrameCodec.encode(EDIT))).isEqualTo(EDIT);
+		assertThat(BinaryFrameCodec.decode(BinaryFrameCodec.encode(AWARENESS))).isEqualTo(AWARENESS);
+		assertThat(BinaryFrameCodec.decode(BinaryFrameCodec.encode(operation))).isEqualTo(operation);
+		assertThat(BinaryFrameCodec.decode(BinaryFrameCodec.encode(update))).isEqualTo(update);
+	}
+
+	@Test
+	void rejectsTruncatedAndCorruptFrames() {
+		byte[] frame = BinaryFrameCodec.encode(AWARENESS);
+		for (int length = 0; length < frame.length; length++) {
+			byte[] truncated = Arrays.copyOf(frame, length);
+			assertThatThrownBy(() -> BinaryFrameCodec.decode(truncated))
+					.as("frame cut to %d bytes", length)
+					.isInstanceOf(IllegalArgumentException.class);
+		}
+
+		byte[] endlessVarint = new byte[12];
+		Arrays.fill(endlessVarint, (byte) 0x80);
+		endlessVarint[0] = BinaryFrameCodec.EDIT_BROADCAST;
+		assertThatThrownBy(() -> BinaryFrameCodec.decode(endlessVarint)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	// Prints a size and speed comparison; run with -Pbenchmark
+	@Test
+	@Tag("benchmark")
+	void benchmarkAgainstJson() throws Exception {
+		ObjectMapper json = new ObjectMapper();
+		for (Object payload : List.of(EDIT, AWARENESS)) {
+			Class<?> type = payload.getClass();
+			byte[] jsonBytes = json.writeValueAsBytes(payload);
+			byte[] binaryBytes = BinaryFrameCodec.encode(payload);
+
+			double jsonEncode = nsPerOp(() -> json.writeValueAsBytes(payload));
+			double binaryEncode = nsPerOp(() -> BinaryFrameCodec.encode(payload));
+			double jsonDecode = nsPerOp(() -> json.readValue(jsonBytes, type));
+			double binaryDecode = nsPerOp(() -> BinaryFrameCodec.decode(binaryBytes));
+
+			System.out.printf("%s: json %d bytes, encode %.0f ns/op, decode %.0f ns/op | "
+							+ "binary %d bytes, encode %.0f ns/op, decode %.0f ns/op%n",
+					type.getSimpleName(), jsonBytes.length, jsonEncode, jsonDecode,
+					binaryBytes.length, binaryEncode, binaryDecode);
+
+			assertThat(binaryBytes.length).isLessThan(jsonBytes.length / 2);
+		}
+	}
+
+	private static double nsPerOp(Operation operation) throws Exception {
+		int iterations = 20_000;
+		// Warm up the JIT before measuring
+		for (int i = 0; i < iterations; i++) {
+			operation.run();
+		}
+		long best = Long.MAX_VALUE;
+		for (int run = 0; run < 5; run++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++) {
+				operation.run();
+			}
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return (double) best / iterations;
+	}
+
+	@FunctionalInterface
+	private interface Operation {
+		Object run() throws Exception;
+	}
+}
@@ -0,0 +1,156 @@
+package com.codecollab.messaging;
+
+import com.codecollab.dto.collab.DocumentSnapshot;
+import com.codecollab.service.CollabService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OutboundQueueSessionTest {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final List<String> delivered = new CopyOnWriteArrayList<>();
+	private final CollabService collabService = mock(CollabService.class);
+	private WebSocketSession delegate;
+	private OutboundSessionRegistry registry;
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		registry.shutdown();
+	}
+
+	@Test
+	void keepsOnlyLatestCursorFrameWhileClientIsSlow() throws Exception {
+		WebSocketSession session = connect(100);
+		session.sendMessage(frame("/topic/room/1/chat", "first"));
+		waitForBlockedWrite();
+
+		for (int i = 0; i < 50; i++) {
+			session.sendMessage(frame("/topic/room/1/awareness", "cursor-" + i));
+		}
+		session.sendMessage(frame("/topic/room/1/chat", "second"));
+		release.countDown();
+
+		awaitDelivered(3);
+		assertEquals(List.of("first", "cursor-49", "second"), delivered);
+		assertEquals(49L, registry.getMetrics().get("droppedFrames"));
+	}
+
+	@Test
+	void coalescesDocumentOperationsIntoSnapshotOnOverflow() throws Exception {
+		when(collabService.findSnapshot(9L)).thenReturn(new DocumentSnapshot(9L, 42, "latest"));
+		WebSocketSession session = connect(5);
+		session.sendMessage(frame("/topic/room/1/chat", "first"));
+		waitForBlockedWrite();
+
+		for (int i = 0; i < 6; i++) {
+			session.sendMessage(frame("/topic/room/1/file/9", "op-" + i));
+		}
+		release.countDown();
+
+		awaitDelivered(2);
+		assertEquals("first", delivered.get(0));
+		assertEquals("{\"fileId\":9,\"revision\":42,\"content\":\"latest\"}", delivered.get(1));
+		assertEquals(5L, registry.getMetrics().get("coalescedFrames"));
+	}
+
+	@Test
+	void disconnectsWhenReliableFramesOverflow() throws Exception {
+		WebSocketSession session = connect(5);
+		session.sendMessage(frame("/topic/room/1/chat", "first"));
+		waitForBlockedWrite();
+
+		for (int i = 0; i < 6; i++) {
+			session.sendMessage(frame("/topic/room/1/chat", "m" + i));
+		}
+
+		verify(delegate).close(CloseStatus.SESSION_NOT_RELIABLE);
+		assertEquals(1L, registry.getMetrics().get("disconnects"));
+	}
+
+	@Test
+	void disconnectsSessionsNoWriterCanTake() throws Exception {
+		WebSocketSession first = connect(100, 1, 1);
+		first.sendMessage(frame("/topic/room/1/chat", "first"));
+		waitForBlockedWrite();
+
+		// The only writer is blocked on the first session and the second takes the one queue slot
+		register("s2").sendMessage(frame("/topic/room/1/chat", "second"));
+		WebSocketSession third = mockSession("s3");
+		registry.register(third).sendMessage(frame("/topic/room/1/chat", "third"));
+
+		verify(third).close(CloseStatus.SESSION_NOT_RELIABLE);
+		assertEquals(1L, registry.getMetrics().get("disconnects"));
+		release.countDown();
+		awaitDelivered(2);
+		assertEquals(List.of("first", "second"), delivered);
+	}
+
+	private WebSocketSession connect(int maxQueuedFrames) throws Exception {
+		return connect(maxQueuedFrames, 4, 100);
+	}
+
+	@SuppressWarnings("unchecked")
+	private WebSocketSession connect(int maxQueuedFrames, int writerThreads, int writerQueue) throws Exception {
+		ObjectProvider<CollabService> provider = mock(ObjectProvider.class);
+		when(provider.getObject()).thenReturn(collabService);
+		registry = new OutboundSessionRegistry(provider, new ObjectMapper(), maxQueuedFrames, 1 << 20, 10_000,
+				true, true, true, writerThreads, writerQueue);
+
+		delegate = mockSession("s1");
+		return registry.register(delegate);
+	}
+
+	private WebSocketSession register(String id) throws Exception {
+		return registry.register(mockSession(id));
+	}
+
+	private WebSocketSession mockSession(String id) throws Exception {
+		WebSocketSession session = mock(WebSocketSession.class);
+		when(session.getId()).thenReturn(id);
+		when(session.isOpen()).thenReturn(true);
+		doAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			delivered.add(body(invocation.getArgument(0)));
+			return null;
+		}).when(session).sendMessage(any());
+		return session;
+	}
+
+	private void waitForBlockedWrite() throws Exception {
+		verify(delegate, timeout(1000)).sendMessage(any());
+	}
+
+	private void awaitDelivered(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (delivered.size() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(50);
+	}
+
+	private static TextMessage frame(String destination, String body) {
+		return new TextMessage("MESSAGE\ndestination:" + destination + "\nsubscription:sub-0\n"
+				+ "content-length:" + body.length() + "\n\n" + body + "\0");
+	}
+
+	private static String body(WebSocketMessage<?> message) {
+		String payload = ((TextMessage) message).getPayload();
+		return payload.substring(payload.indexOf("\n\n") + 2, payload.length() - 1);
+	}
+}
@@ -0,0 +1,111 @@
+package com.codecollab.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomBroadcasterTest {
+
+	@Test
+	void keepsPerRoomOrderAcrossShards() throws Exception {
+		int perRoom = 500;
+		CountDownLatch done = new CountDownLatch(perRoom * 2);
+		List<String> room1 = Collections.synchronizedList(new ArrayList<>());
+		List<String> room2 = Collections.synchronizedList(new ArrayList<>());
+		MessageChannel channel = (message, timeout) -> {
+			String destination = (String) message.getHeaders().get("simpDestination");
+			String body = new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+			(destination.endsWith("/1") ? room1 : room2).add(body);
+			done.countDown();
+			return true;
+		};
+		RoomBroadcaster broadcaster = new RoomBroadcaster(new SimpMessagingTemplate(channel), new ObjectMapper(), new LocalRoomEventBus(), 4, 1000, 1 << 20, 60_000);
+
+		for (int i = 0; i < perRoom; i++) {
+			broadcaster.broadcast(1L, "/topic/room/1", Map.of("seq", i));
+			broadcaster.broadcast(2L, "/topic/room/2", Map.of("seq", i));
+		}
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		for (int i = 0; i < perRoom; i++) {
+			assertEquals("{\"seq\":" + i + "}", room1.get(i));
+			assertEquals("{\"seq\":" + i + "}", room2.get(i));
+		}
+		broadcaster.shutdown();
+	}
+
+	@Test
+	void publishesPreSerializedJson() throws Exception {
+		CountDownLatch done = new CountDownLatch(1);
+		List<Message<?>> sent = new ArrayList<>();
+		MessageChannel channel = (message, timeout) -> {
+			sent.add(message);
+			done.countDown();
+			return true;
+		};
+		RoomBroadcaster broadcaster = new RoomBroadcaster(new SimpMessagingTemplate(channel), new ObjectMapper(), new LocalRoomEventBus(), 1, 1000, 1 << 20, 60_000);
+
+		broadcaster.broadcast(7L, "/topic/room/7/chat", Map.of("message", "hi"));
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertInstanceOf(byte[].class, sent.get(0).getPayload());
+		assertEquals("application/json", String.valueOf(sent.get(0).getHeaders().get("contentType")));
+		broadcaster.shutdown();
+	}
+
+	@Test
+	void recordsTheOwnersNumbersOnOtherNodes() throws Exception {
+		CountDownLatch done = new CountDownLatch(1);
+		List<Message<?>> sent = Collections.synchronizedList(new ArrayList<>());
+		MessageChannel channel = (message, timeout) -> {
+			sent.add(message);
+			done.countDown();
+			return true;
+		};
+		List<RoomEnvelope> published = new ArrayList<>();
+		List<Consumer<RoomEnvelope>> listeners = new ArrayList<>();
+		LocalRoomEventBus bus = new LocalRoomEventBus() {
+			@Override
+			public boolean isOwner(long roomId) {
+				return false;
+			}
+
+			@Override
+			public void publish(RoomEnvelope envelope) {
+				published.add(envelope);
+			}
+
+			@Override
+			public void subscribe(Consumer<RoomEnvelope> listener) {
+				listeners.add(listener);
+			}
+		};
+		RoomBroadcaster broadcaster = new RoomBroadcaster(new SimpMessagingTemplate(channel), new ObjectMapper(), bus, 1, 1000, 1 << 20, 60_000);
+
+		broadcaster.broadcast(7L, "/topic/room/7/chat", Map.of("message", "hi"));
+		assertFalse(published.get(0).isSequenced(), "the owner numbers the event");
+
+		// The owner's numbered copy comes back over the bus
+		listeners.get(0).accept(published.get(0).sequenced(42, 9));
+
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals("9", SimpMessageHeaderAccessor.wrap(sent.get(0)).getFirstNativeHeader("seq"));
+		assertEquals(42, broadcaster.getEventLog(7L).getEpoch());
+		assertEquals(9, broadcaster.getEventLog(7L).getSeq());
+		broadcaster.shutdown();
+	}
+}
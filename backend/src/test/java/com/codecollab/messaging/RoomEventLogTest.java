@@ -0,0 +1,64 @@
+package com.codecollab.messaging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomEventLogTest {
+
+	@Test
+	void replaysOnlyMissedEvents() {
+		RoomEventLog log = new RoomEventLog(100, 1 << 20);
+		for (int i = 1; i <= 5; i++) {
+			assertEquals(i, log.append("/topic/room/1/chat", new byte[]{(byte) i}));
+		}
+
+		List<RoomEventLog.LoggedEvent> missed = log.since(log.getEpoch(), 3);
+		assertEquals(List.of(4L, 5L), missed.stream().map(RoomEventLog.LoggedEvent::seq).toList());
+		assertEquals(List.of(), log.since(log.getEpoch(), 5));
+	}
+
+	@Test
+	void requiresSnapshotOnceEventsAreCompacted() {
+		RoomEventLog log = new RoomEventLog(3, 1 << 20);
+		for (int i = 1; i <= 5; i++) {
+			log.append("/topic/room/1/chat", new byte[8]);
+		}
+
+		assertNotNull(log.since(log.getEpoch(), 2), "events 3..5 are still in the log");
+		assertNull(log.since(log.getEpoch(), 1), "event 2 was compacted away");
+		assertNull(log.since(log.getEpoch() + 1, 4), "sequence numbers from another epoch");
+		assertNull(log.since(log.getEpoch(), 9), "ahead of the log");
+	}
+
+	@Test
+	void compactsByBytes() {
+		RoomEventLog log = new RoomEventLog(100, 20);
+		for (int i = 1; i <= 5; i++) {
+			log.append("/topic/room/1/file/2", new byte[8]);
+		}
+
+		assertEquals(2, log.since(log.getEpoch(), 3).size());
+		assertNull(log.since(log.getEpoch(), 2));
+	}
+
+	@Test
+	void replicaFollowsTheOwnersNumbers() {
+		RoomEventLog owner = new RoomEventLog(100, 1 << 20);
+		RoomEventLog replica = new RoomEventLog(100, 1 << 20);
+		for (int i = 1; i <= 3; i++) {
+			replica.record(owner.getEpoch(), owner.append("/topic/room/1/chat", new byte[1]), "/topic/room/1/chat", new byte[1]);
+		}
+
+		assertEquals(owner.getEpoch(), replica.getEpoch());
+		assertEquals(List.of(2L, 3L), replica.since(owner.getEpoch(), 1).stream().map(RoomEventLog.LoggedEvent::seq).toList());
+
+		// Event 4 never arrived, so the replica cannot replay from before it
+		owner.append("/topic/room/1/chat", new byte[1]);
+		replica.record(owner.getEpoch(), owner.append("/topic/room/1/chat", new byte[1]), "/topic/room/1/chat", new byte[1]);
+		assertNull(replica.since(owner.getEpoch(), 3));
+		assertEquals(List.of(), replica.since(owner.getEpoch(), 5));
+	}
+}
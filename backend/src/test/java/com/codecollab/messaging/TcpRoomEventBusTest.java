@@ -0,0 +1,247 @@
+package com.codecollab.messaging;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TcpRoomEventBusTest {
+
+	private static final String SECRET = "0123456789abcdef";
+
+	@Test
+	void deliversToEveryNodeInPerRoomOrder() throws Exception {
+		TcpRoomEventBus a = node(SECRET);
+		TcpRoomEventBus b = node(SECRET);
+		connect(a, b);
+		try {
+			int perRoom = 1000;
+			CountDownLatch done = new CountDownLatch(perRoom * 2 * 2);
+			List<String> onA = Collections.synchronizedList(new ArrayList<>());
+			List<String> onB = Collections.synchronizedList(new ArrayList<>());
+			List<RoomEnvelope> binary = Collections.synchronizedList(new ArrayList<>());
+			a.subscribe(envelope -> {
+				onA.add(envelope.roomId() + ":" + new String(envelope.json(), StandardCharsets.UTF_8));
+				done.countDown();
+			});
+			b.subscribe(envelope -> {
+				onB.add(envelope.roomId() + ":" + new String(envelope.json(), StandardCharsets.UTF_8));
+				if (envelope.binary() != null) {
+					binary.add(envelope);
+				}
+				done.countDown();
+			});
+
+			for (int i = 0; i < perRoom; i++) {
+				a.publish(envelope(1, i, null).sequenced(5, i + 1));
+				a.publish(envelope(2, i, i == 0 ? new byte[] {1, 2, 3} : null).sequenced(5, i + 1));
+			}
+
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+			assertOrdered(onA, perRoom);
+			assertOrdered(onB, perRoom);
+			assertEquals(1, binary.size());
+			assertArrayEquals(new byte[] {1, 2, 3}, binary.get(0).binary());
+			assertEquals("/topic/room/2", binary.get(0).destination());
+			assertEquals(1, binary.get(0).seq());
+			assertEquals(0, a.getDroppedCount());
+			assertEquals(perRoom * 2, b.getReceivedCount());
+		} finally {
+			a.stop();
+			b.stop();
+		}
+	}
+
+	@Test
+	void sendsUnnumberedEventsToTheOwnerOnly() throws Exception {
+		TcpRoomEventBus a = node(SECRET);
+		TcpRoomEventBus b = node(SECRET);
+		connect(a, b);
+		try {
+			long roomId = roomOwnedBy(b, a);
+			assertTrue(b.isOwner(roomId));
+			CountDownLatch done = new CountDownLatch(1);
+			List<RoomEnvelope> onA = Collections.synchronizedList(new ArrayList<>());
+			List<RoomEnvelope> onB = Collections.synchronizedList(new ArrayList<>());
+			a.subscribe(onA::add);
+			b.subscribe(envelope -> {
+				onB.add(envelope);
+				done.countDown();
+			});
+
+			a.publish(envelope(roomId, 0, null));
+
+			assertTrue(done.await(5, TimeUnit.SECONDS));
+			assertFalse(onB.get(0).isSequenced());
+			assertTrue(onA.isEmpty());
+		} finally {
+			a.stop();
+			b.stop();
+		}
+	}
+
+	@Test
+	void runsCallsOnTheOwner() throws Exception {
+		TcpRoomEventBus a = node(SECRET);
+		TcpRoomEventBus b = node(SECRET);
+		connect(a, b);
+		try {
+			a.handle("echo", payload -> ("a:" + new String(payload, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8));
+			b.handle("echo", payload -> ("b:" + new String(payload, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8));
+			b.handle("fail", payload -> {
+				throw new RuntimeException("File not found");
+			});
+			long remote = roomOwnedBy(b, a);
+			long local = roomOwnedBy(a, b);
+
+			assertEquals("b:hi", new String(a.call(remote, "echo", "hi".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+			assertEquals("a:hi", new String(a.call(local, "echo", "hi".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+			RuntimeException failure = assertThrows(RuntimeException.class, () -> a.call(remote, "fail", new byte[0]));
+			assertEquals("File not found", failure.getMessage());
+		} finally {
+			a.stop();
+			b.stop();
+		}
+	}
+
+	@Test
+	void failsCallsToAnUnreachableOwner() throws Exception {
+		TcpRoomEventBus bus = node(SECRET);
+		try {
+			bus.addPeer("127.0.0.1", 1);
+			long roomId = 1;
+			while (bus.isOwner(roomId)) {
+				roomId++;
+			}
+			long remote = roomId;
+
+			RuntimeException failure = assertThrows(RuntimeException.class, () -> bus.call(remote, "echo", new byte[0]));
+			assertTrue(failure.getMessage().contains("unreachable"));
+		} finally {
+			bus.stop();
+		}
+	}
+
+	@Test
+	void dropsEnvelopesForUnreachablePeers() throws Exception {
+		TcpRoomEventBus bus = node(SECRET);
+		try {
+			bus.addPeer("127.0.0.1", 1);
+			List<RoomEnvelope> local = new ArrayList<>();
+			bus.subscribe(local::add);
+
+			bus.publish(new RoomEnvelope(1, "/topic/room/1/awareness", new byte[0], null, false));
+
+			assertEquals(1, local.size());
+			assertEquals(1, bus.getDroppedCount());
+		} finally {
+			bus.stop();
+		}
+	}
+
+	@Test
+	void rejectsPeersWithAnotherSecret() throws Exception {
+		TcpRoomEventBus a = node(SECRET);
+		TcpRoomEventBus intruder = node("fedcba9876543210");
+		a.addPeer("127.0.0.1", intruder.getLocalPort());
+		intruder.addPeer("127.0.0.1", a.getLocalPort());
+		try {
+			List<RoomEnvelope> received = Collections.synchronizedList(new ArrayList<>());
+			a.subscribe(received::add);
+			awaitRejected(a);
+
+			intruder.publish(envelope(1, 0, null).sequenced(5, 1));
+			Thread.sleep(200);
+
+			assertTrue(received.isEmpty());
+			assertEquals(0, a.getReceivedCount());
+		} finally {
+			a.stop();
+			intruder.stop();
+		}
+	}
+
+	@Test
+	void rejectsOversizedFrames() throws Exception {
+		TcpRoomEventBus bus = node(SECRET);
+		try (Socket socket = new Socket("127.0.0.1", bus.getLocalPort())) {
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+			in.readFully(new byte[16]);
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			out.writeInt(0x43434232);
+			out.writeInt(Integer.MAX_VALUE);
+			out.flush();
+
+			assertEquals(-1, in.read(), "the bus closes the connection");
+			awaitRejected(bus);
+		} finally {
+			bus.stop();
+		}
+	}
+
+	private static TcpRoomEventBus node(String secret) throws Exception {
+		TcpRoomEventBus bus = new TcpRoomEventBus(0, "127.0.0.1", "", List.of(), secret, 1 << 20, 10_000, 64, 50, 5000);
+		bus.start();
+		return bus;
+	}
+
+	private static void connect(TcpRoomEventBus a, TcpRoomEventBus b) throws InterruptedException {
+		a.addPeer("127.0.0.1", b.getLocalPort());
+		b.addPeer("127.0.0.1", a.getLocalPort());
+		awaitConnected(a, b);
+	}
+
+	private static long roomOwnedBy(TcpRoomEventBus owner, TcpRoomEventBus other) {
+		long roomId = 1;
+		while (!owner.isOwner(roomId) || other.isOwner(roomId)) {
+			roomId++;
+		}
+		return roomId;
+	}
+
+	private static RoomEnvelope envelope(long roomId, int seq, byte[] binary) {
+		byte[] json = ("{\"seq\":" + seq + "}").getBytes(StandardCharsets.UTF_8);
+		return new RoomEnvelope(roomId, "/topic/room/" + roomId, json, binary, true);
+	}
+
+	private static void assertOrdered(List<String> received, int perRoom) {
+		int next1 = 0;
+		int next2 = 0;
+		for (String entry : received) {
+			if (entry.startsWith("1:")) {
+				assertEquals("1:{\"seq\":" + next1++ + "}", entry);
+			} else {
+				assertEquals("2:{\"seq\":" + next2++ + "}", entry);
+			}
+		}
+		assertEquals(perRoom, next1);
+		assertEquals(perRoom, next2);
+	}
+
+	private static void awaitConnected(TcpRoomEventBus... buses) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		for (TcpRoomEventBus bus : buses) {
+			while (!bus.isConnected()) {
+				assertTrue(System.currentTimeMillis() < deadline, "peers did not connect");
+				Thread.sleep(10);
+			}
+		}
+	}
+
+	private static void awaitRejected(TcpRoomEventBus bus) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (bus.getRejectedCount() == 0) {
+			assertTrue(System.currentTimeMillis() < deadline, "connection was not rejected");
+			Thread.sleep(10);
+		}
+	}
+}
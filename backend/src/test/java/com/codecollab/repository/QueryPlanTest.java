@@ -0,0 +1,185 @@
+package com.codecollab.repository;
+
+import com.codecollab.compression.ContentCompressor;
+import com.codecollab.compression.DeflateCodec;
+import com.codecollab.config.SchemaMigrationConfig;
+import com.codecollab.entity.ChatMessage;
+import com.codecollab.entity.FileNode;
+import com.codecollab.entity.Role;
+import com.codecollab.entity.Room;
+import com.codecollab.entity.RoomMember;
+import com.codecollab.entity.User;
+import com.codecollab.util.FilePaths;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the hot repository queries against the migrated schema and fails if the
+ * database plans a full table scan for any of them.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({SchemaMigrationConfig.class, ContentCompressor.class, DeflateCodec.class})
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "com.codecollab.repository.QueryPlanTest$CapturingInspector")
+class QueryPlanTest {
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private RoomMemberRepository roomMemberRepository;
+
+	@Autowired
+	private FileNodeRepository fileNodeRepository;
+
+	@Autowired
+	private ChatMessageRepository chatMessageRepository;
+
+	private User user;
+	private Room room;
+	private FileNode folder;
+
+	@BeforeEach
+	void seed() {
+		user = userRepository.save(User.builder().username("alice").email("alice@example.com").password("x").role(Role.USER).build());
+		room = roomRepository.save(Room.builder().name("room").inviteCode("invite").owner(user).memberCount(1).build());
+		roomMemberRepository.save(RoomMember.builder().room(room).user(user).build());
+		folder = fileNodeRepository.save(FileNode.builder().id(1L).path("/1/").room(room).name("src").type(FileNode.FileType.FOLDER).build());
+		fileNodeRepository.save(FileNode.builder().id(2L).path("/1/2/").room(room).parent(folder).name("a.txt").type(FileNode.FileType.FILE).build());
+		chatMessageRepository.save(ChatMessage.builder().id(1L).room(room).user(user).message("hi").createdAt(LocalDateTime.now()).build());
+		fileNodeRepository.flush();
+	}
+
+	@Test
+	void hotQueriesUseIndexes() throws SQLException {
+		Map<String, Runnable> queries = new LinkedHashMap<>();
+		queries.put("findTreeRowsByRoomId", () -> fileNodeRepository.findTreeRowsByRoomId(room.getId()));
+		queries.put("findByRoomOrderBySortOrder", () -> fileNodeRepository.findByRoomOrderBySortOrder(room));
+		queries.put("findByParent", () -> fileNodeRepository.findByParent(folder));
+		queries.put("findMetadataById", () -> fileNodeRepository.findMetadataById(folder.getId()));
+		queries.put("existsByRoomAndUser", () -> roomMemberRepository.existsByRoomAndUser(room, user));
+		queries.put("existsByRoomIdAndUserId", () -> roomMemberRepository.existsByRoomIdAndUserId(room.getId(), user.getId()));
+		queries.put("findRoomIdsByUserId", () -> roomMemberRepository.findRoomIdsByUserId(user.getId()));
+		queries.put("findUserIdsByRoomId", () -> roomMemberRepository.findUserIdsByRoomId(room.getId()));
+		queries.put("findSummaryById", () -> roomRepository.findSummaryById(room.getId()));
+		queries.put("findSummariesByMember", () -> roomRepository.findSummariesByMember(user.getId(), 0L, PageRequest.of(0, 50)));
+		queries.put("findSummariesByMember unpaged", () -> roomRepository.findSummariesByMember(user.getId(), 0L, Pageable.unpaged()));
+		queries.put("findByInviteCode", () -> roomRepository.findByInviteCode("invite"));
+		queries.put("findLatest", () -> chatMessageRepository.findLatest(room.getId(), PageRequest.of(0, 50)));
+		queries.put("findBefore", () -> chatMessageRepository.findBefore(room.getId(), 10L, PageRequest.of(0, 50)));
+
+		for (Map.Entry<String, Runnable> query : queries.entrySet()) {
+			CapturingInspector.STATEMENTS.clear();
+			query.getValue().run();
+			assertFalse(CapturingInspector.STATEMENTS.isEmpty(), query.getKey() + " ran no SQL");
+			for (String sql : CapturingInspector.STATEMENTS) {
+				String plan = explain(sql);
+				assertFalse(isFullScan(plan), query.getKey() + " does a full scan:\n" + plan);
+			}
+		}
+	}
+
+	@Test
+	void membershipQueriesUseCompositeIndexes() throws SQLException {
+		Map<String, Runnable> queries = new LinkedHashMap<>();
+		queries.put("uk_room_members_room_user", () -> roomMemberRepository.existsByRoomAndUser(room, user));
+		queries.put("idx_room_members_user_room", () -> roomRepository.findSummariesByMember(user.getId(), 0L, PageRequest.of(0, 50)));
+
+		for (Map.Entry<String, Runnable> query : queries.entrySet()) {
+			CapturingInspector.STATEMENTS.clear();
+			query.getValue().run();
+			String plan = explain(CapturingInspector.STATEMENTS.get(0));
+			assertTrue(plan.toLowerCase().contains(query.getKey()), "expected " + query.getKey() + " in:\n" + plan);
+		}
+	}
+
+	@Test
+	void subtreeStatementsUsePathIndex() throws SQLException {
+		String subtree = FilePaths.subtreePattern(folder.getPath());
+
+		// H2 only plans a LIKE as an index range when the pattern is a literal
+		CapturingInspector.STATEMENTS.clear();
+		fileNodeRepository.findMaxPathLength(room.getId(), subtree);
+		String plan = explain(CapturingInspector.STATEMENTS.get(0).replace("like ?", "like '" + subtree + "'"));
+		assertTrue(plan.toLowerCase().contains("idx_files_room_path"), "findMaxPathLength plan:\n" + plan);
+
+		// H2 picks the room index for small updates, so writes are only required to stay within the room
+		Map<String, Runnable> statements = new LinkedHashMap<>();
+		statements.put("movePaths", () -> fileNodeRepository.movePaths(room.getId(), subtree, "/9/1/", folder.getPath().length() + 1));
+		statements.put("detachSubtree", () -> fileNodeRepository.detachSubtree(room.getId(), subtree));
+		statements.put("deleteSubtree", () -> fileNodeRepository.deleteSubtree(room.getId(), subtree));
+		for (Map.Entry<String, Runnable> statement : statements.entrySet()) {
+			CapturingInspector.STATEMENTS.clear();
+			statement.getValue().run();
+			plan = explain(CapturingInspector.STATEMENTS.get(0).replace("like ?", "like '" + subtree + "'"));
+			assertFalse(isFullScan(plan), statement.getKey() + " does a full scan:\n" + plan);
+		}
+	}
+
+	@Test
+	void detectsFullScans() throws SQLException {
+		assertTrue(isFullScan(explain("select id from files where name = ?")));
+	}
+
+	private String explain(String sql) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+			 PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+			// Plans only depend on which columns are bound, not on the values
+			for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+				statement.setObject(i, 1L);
+			}
+			try (ResultSet plan = statement.executeQuery()) {
+				plan.next();
+				return plan.getString(1);
+			}
+		}
+	}
+
+	private static boolean isFullScan(String plan) {
+		return plan.toLowerCase().contains(".tablescan");
+	}
+
+	public static class CapturingInspector implements StatementInspector {
+
+		static final List<String> STATEMENTS = new ArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			String statement = sql.trim().toLowerCase();
+			if (statement.startsWith("select") || statement.startsWith("update") || statement.startsWith("delete")) {
+				STATEMENTS.add(sql);
+			}
+			return sql;
+		}
+	}
+}
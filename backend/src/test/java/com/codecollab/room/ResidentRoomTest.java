@@ -0,0 +1,79 @@
+package com.codecollab.room;
+
+import com.codecollab.dto.FileNodeRow;
+import com.codecollab.entity.FileNode;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResidentRoomTest {
+
+	@Test
+	void removesWholeSubtreeRegardlessOfRowOrder() {
+		// Child rows listed before their parents, as display order allows
+		ResidentRoom room = room(List.of(
+				row(4L, 3L, "/1/3/4/", FileNode.FileType.FILE),
+				row(3L, 1L, "/1/3/", FileNode.FileType.FOLDER),
+				row(1L, null, "/1/", FileNode.FileType.FOLDER),
+				row(2L, null, "/2/", FileNode.FileType.FILE),
+				row(12L, null, "/12/", FileNode.FileType.FILE)));
+
+		assertEquals(List.of(4L, 3L, 1L), room.findSubtreeIds(1L));
+		Set<Long> removed = room.removeSubtree(1L);
+
+		assertEquals(Set.of(1L, 3L, 4L), removed);
+		assertEquals(List.of(2L, 12L), room.getFiles().stream().map(FileNodeRow::getId).toList());
+	}
+
+	@Test
+	void movesSubtreeByRewritingPathPrefix() {
+		ResidentRoom room = room(List.of(
+				row(1L, null, "/1/", FileNode.FileType.FOLDER),
+				row(2L, 1L, "/1/2/", FileNode.FileType.FOLDER),
+				row(3L, 2L, "/1/2/3/", FileNode.FileType.FILE),
+				row(4L, null, "/4/", FileNode.FileType.FOLDER)));
+
+		room.moveSubtree(2L, 4L, "/4/2/");
+
+		assertEquals(4L, room.findFile(2L).getParentId());
+		assertEquals("/4/2/", room.findFile(2L).getPath());
+		assertEquals(2L, room.findFile(3L).getParentId());
+		assertEquals("/4/2/3/", room.findFile(3L).getPath());
+		assertEquals("/1/", room.findFile(1L).getPath());
+		assertEquals(List.of(2L, 3L, 4L), room.findSubtreeIds(4L));
+	}
+
+	@Test
+	void keepsLaterContentVersion() {
+		ResidentRoom room = room(List.of(row(1L, null, "/1/", FileNode.FileType.FILE)));
+
+		room.updateContent(1L, "b", 2, 5, LocalDateTime.now());
+		room.updateContent(1L, "a", 1, 4, LocalDateTime.now());
+
+		assertEquals("b", room.findFile(1L).getContentHash());
+		assertEquals(5L, room.findFile(1L).getVersion());
+	}
+
+	@Test
+	void ignoresDuplicateRows() {
+		ResidentRoom room = room(List.of(row(1L, null, "/1/", FileNode.FileType.FILE)));
+
+		room.addFile(row(1L, null, "/1/", FileNode.FileType.FILE));
+		room.addFile(row(2L, null, "/2/", FileNode.FileType.FILE));
+
+		assertEquals(2, room.getFileCount());
+		assertTrue(room.estimateBytes() > 0);
+	}
+
+	private static ResidentRoom room(List<FileNodeRow> files) {
+		return new ResidentRoom(1L, "room", null, "invite", "owner", files);
+	}
+
+	private static FileNodeRow row(Long id, Long parentId, String path, FileNode.FileType type) {
+		return new FileNodeRow(id, 1L, parentId, path, "node-" + id, type, null, null, null, 0L, null, null);
+	}
+}
@@ -0,0 +1,64 @@
+package com.codecollab.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+	private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+
+	private final UserDetails alice = User.withUsername("alice").password("x").build();
+	private final UserDetails mallory = User.withUsername("mallory").password("x").build();
+
+	@Test
+	void servesRepeatedVerificationsFromTheCache() {
+		JwtService jwtService = jwtService(60_000);
+		String token = jwtService.generateToken(alice);
+
+		Claims first = jwtService.extractAllClaims(token);
+
+		assertSame(first, jwtService.extractAllClaims(token));
+		assertTrue(jwtService.isTokenValid(token, alice));
+		assertFalse(jwtService.isTokenValid(token, mallory));
+	}
+
+	@Test
+	void stopsServingATokenAtItsExpiry() throws Exception {
+		JwtService jwtService = jwtService(2000);
+		String token = jwtService.generateToken(alice);
+		Claims claims = jwtService.extractAllClaims(token);
+
+		Thread.sleep(Math.max(0, claims.getExpiration().getTime() - System.currentTimeMillis()) + 100);
+
+		assertThrows(ExpiredJwtException.class, () -> jwtService.extractAllClaims(token));
+	}
+
+	@Test
+	void tamperedTokensMissTheCache() {
+		JwtService jwtService = jwtService(60_000);
+		String[] token = jwtService.generateToken(alice).split("\\.");
+		String[] other = jwtService.generateToken(mallory).split("\\.");
+		jwtService.extractAllClaims(String.join(".", token));
+
+		// Mallory's claims under Alice's signature
+		String tampered = token[0] + "." + other[1] + "." + token[2];
+
+		assertThrows(JwtException.class, () -> jwtService.extractAllClaims(tampered));
+	}
+
+	private static JwtService jwtService(long expiration) {
+		JwtService jwtService = new JwtService();
+		ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+		ReflectionTestUtils.setField(jwtService, "expiration", expiration);
+		ReflectionTestUtils.setField(jwtService, "cacheSize", 100);
+		jwtService.init();
+		return jwtService;
+	}
+}
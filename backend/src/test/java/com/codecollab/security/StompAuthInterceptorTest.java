@@ -0,0 +1,88 @@
+package com.codecollab.security;
+
+import com.codecollab.entity.Role;
+import com.codecollab.entity.User;
+import com.codecollab.repository.RoomMemberRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StompAuthInterceptorTest {
+
+	private final JwtService jwtService = mock(JwtService.class);
+	private final PrincipalCache principalCache = mock(PrincipalCache.class);
+	private final RoomMemberRepository roomMemberRepository = mock(RoomMemberRepository.class);
+	private final MessageChannel channel = mock(MessageChannel.class);
+	private final Map<String, Object> sessionAttributes = new HashMap<>();
+	private final User user = User.builder().id(7L).username("alice").role(Role.USER).build();
+	private StompAuthInterceptor interceptor;
+
+	@BeforeEach
+	void setUp() {
+		Claims claims = Jwts.claims().subject("alice").build();
+		when(jwtService.extractAllClaims("good")).thenReturn(claims);
+		when(jwtService.isTokenValid(claims, user)).thenReturn(true);
+		when(principalCache.get(eq("alice"), any())).thenReturn(user);
+		when(roomMemberRepository.findRoomIdsByUserId(7L)).thenReturn(List.of(1L));
+		interceptor = new StompAuthInterceptor(jwtService, mock(UserDetailsService.class), principalCache, roomMemberRepository,
+				new MembershipCache(roomMemberRepository, 100, 60_000));
+	}
+
+	@Test
+	void pinsPrincipalAndRoomsOnConnect() {
+		StompHeaderAccessor connect = accessor(StompCommand.CONNECT, null);
+		connect.addNativeHeader("Authorization", "Bearer good");
+		interceptor.preSend(message(connect), channel);
+
+		assertSame(user, ((Authentication) connect.getUser()).getPrincipal());
+
+		interceptor.preSend(message(accessor(StompCommand.SUBSCRIBE, "/topic/room/1/chat")), channel);
+		interceptor.preSend(message(accessor(StompCommand.SEND, "/app/room/1/awareness")), channel);
+		interceptor.preSend(message(accessor(StompCommand.SUBSCRIBE, "/user/queue/errors")), channel);
+		verify(roomMemberRepository, never()).existsByRoomIdAndUserId(any(), any());
+
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(message(accessor(StompCommand.SUBSCRIBE, "/topic/room/2/chat")), channel));
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(message(accessor(StompCommand.SEND, "/topic/room/1/chat")), channel));
+	}
+
+	@Test
+	void rejectsConnectWithoutValidToken() {
+		assertThrows(BadCredentialsException.class,
+				() -> interceptor.preSend(message(accessor(StompCommand.CONNECT, null)), channel));
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(message(accessor(StompCommand.SUBSCRIBE, "/topic/room/1/chat")), channel));
+	}
+
+	private StompHeaderAccessor accessor(StompCommand command, String destination) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+		accessor.setSessionAttributes(sessionAttributes);
+		accessor.setDestination(destination);
+		accessor.setLeaveMutable(true);
+		return accessor;
+	}
+
+	private static Message<byte[]> message(StompHeaderAccessor accessor) {
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+}
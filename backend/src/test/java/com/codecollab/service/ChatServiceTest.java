@@ -0,0 +1,74 @@
+package com.codecollab.service;
+
+import com.codecollab.chat.ChatIngestor;
+import com.codecollab.dto.ChatMessageDTO;
+import com.codecollab.entity.User;
+import com.codecollab.messaging.RoomBroadcaster;
+import com.codecollab.messaging.RoomEventBus;
+import com.codecollab.repository.ChatMessageRepository;
+import com.codecollab.room.ResidentRoom;
+import com.codecollab.storage.IdAllocator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ChatServiceTest {
+
+	private final ChatMessageRepository chatMessageRepository = mock(ChatMessageRepository.class);
+	private final RoomRuntimeService roomRuntimeService = mock(RoomRuntimeService.class);
+	private final IdAllocator idAllocator = mock(IdAllocator.class);
+	private final Map<String, Function<byte[], byte[]>> ownerHandlers = new HashMap<>();
+	private final User alice = User.builder().id(7L).username("alice").build();
+	private final User bob = User.builder().id(8L).username("bob").build();
+
+	@Test
+	void messagesSentThroughAnotherNodeReachTheOwnersTail() {
+		AtomicLong ids = new AtomicLong();
+		when(idAllocator.nextId("chat_messages")).thenAnswer(invocation -> ids.incrementAndGet());
+		when(chatMessageRepository.findLatest(eq(1L), any())).thenReturn(List.of());
+		when(roomRuntimeService.getAuthorizedRoom(eq(1L), any())).thenReturn(new ResidentRoom(1L, "room", null, "invite", "alice", List.of()));
+
+		RoomEventBus ownerBus = mock(RoomEventBus.class);
+		when(ownerBus.isOwner(anyLong())).thenReturn(true);
+		doAnswer(invocation -> ownerHandlers.put(invocation.getArgument(0), invocation.getArgument(1)))
+				.when(ownerBus).handle(anyString(), any());
+		RoomEventBus peerBus = mock(RoomEventBus.class);
+		when(peerBus.call(anyLong(), anyString(), any())).thenAnswer(invocation ->
+				ownerHandlers.get(invocation.<String>getArgument(1)).apply(invocation.getArgument(2)));
+		ChatService owner = service(ownerBus);
+		ChatService peer = service(peerBus);
+
+		// The owner's tail is loaded before the peer's sends and must still see them
+		assertThat(owner.getHistory(1L, null, null, alice).getMessages()).isEmpty();
+		owner.sendMessage(1L, "first", alice);
+		ChatMessageDTO sent = peer.sendMessage(1L, "second", bob);
+
+		assertThat(sent.getUsername()).isEqualTo("bob");
+		assertThat(owner.getHistory(1L, null, null, alice).getMessages()).extracting(ChatMessageDTO::getMessage)
+				.containsExactly("first", "second");
+		assertThat(peer.getHistory(1L, null, null, bob).getMessages()).extracting(ChatMessageDTO::getMessage)
+				.containsExactly("first", "second");
+		assertThat(peer.getResidentTailCount()).isZero();
+		verify(chatMessageRepository, times(1)).findLatest(eq(1L), any());
+	}
+
+	private ChatService service(RoomEventBus eventBus) {
+		ChatService service = new ChatService(chatMessageRepository, mock(RoomBroadcaster.class), mock(ChatIngestor.class),
+				idAllocator, roomRuntimeService, eventBus, new ObjectMapper());
+		ReflectionTestUtils.setField(service, "tailSize", 200);
+		ReflectionTestUtils.setField(service, "defaultPageSize", 50);
+		ReflectionTestUtils.setField(service, "maxPageSize", 200);
+		service.registerHandlers();
+		return service;
+	}
+}
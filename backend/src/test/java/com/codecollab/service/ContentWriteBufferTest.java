@@ -0,0 +1,110 @@
+package com.codecollab.service;
+
+import com.codecollab.RoomFixture;
+import com.codecollab.dto.CreateFileRequest;
+import com.codecollab.entity.FileNode;
+import com.codecollab.storage.BlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(RoomFixture.class)
+class ContentWriteBufferTest {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private BlobStore blobStore;
+
+	@Autowired
+	private FileService fileService;
+
+	@Autowired
+	private RoomFixture roomFixture;
+
+	private final RoomRuntimeService roomRuntimeService = mock(RoomRuntimeService.class);
+	private Long roomId;
+	private Long fileId;
+
+	@BeforeEach
+	void seed() {
+		RoomFixture.Member member = roomFixture.create("buffer");
+		roomId = member.room().getId();
+		fileId = fileService.createFile(roomId, CreateFileRequest.builder()
+				.name("a.js")
+				.type(FileNode.FileType.FILE)
+				.content("original")
+				.build(), member.user()).getId();
+	}
+
+	@Test
+	void keepsTheLatestWriteOfEachFile() {
+		ContentWriteBuffer buffer = buffer(jdbcTemplate);
+
+		buffer.put(roomId, fileId, "second", 2);
+		buffer.put(roomId, fileId, "third", 3);
+		buffer.put(roomId, fileId, "late", 1);
+
+		assertThat(buffer.getPendingCount()).isEqualTo(1);
+		assertThat(buffer.get(fileId).content()).isEqualTo("third");
+		buffer.flush();
+
+		assertThat(stored()).containsEntry("version", 3L);
+		assertThat(blobStore.read((String) stored().get("content_hash"))).isEqualTo("third");
+		assertThat(buffer.getPendingCount()).isZero();
+		assertThat(buffer.getDirtyBytes()).isZero();
+		verify(roomRuntimeService).contentPersisted(eq(roomId), eq(fileId), anyString(), eq(5L), eq(3L), any());
+	}
+
+	@Test
+	void neverOverwritesANewerVersion() {
+		ContentWriteBuffer buffer = buffer(jdbcTemplate);
+		buffer.put(roomId, fileId, "newer", 5);
+		buffer.flush();
+
+		buffer.put(roomId, fileId, "older", 4);
+		buffer.flush();
+
+		assertThat(stored()).containsEntry("version", 5L);
+		assertThat(blobStore.read((String) stored().get("content_hash"))).isEqualTo("newer");
+	}
+
+	@Test
+	void writesRowByRowOnShutdownWhenTheBatchKeepsFailing() {
+		JdbcTemplate failingBatches = spy(jdbcTemplate);
+		doThrow(new DataAccessResourceFailureException("batch rejected"))
+				.when(failingBatches).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+		ContentWriteBuffer buffer = buffer(failingBatches);
+		buffer.put(roomId, fileId, "unsaved", 2);
+
+		buffer.flush();
+		assertThat(buffer.getPendingCount()).isEqualTo(1);
+		buffer.shutdown();
+
+		assertThat(stored()).containsEntry("version", 2L);
+		assertThat(blobStore.read((String) stored().get("content_hash"))).isEqualTo("unsaved");
+		assertThat(buffer.getPendingCount()).isZero();
+	}
+
+	private ContentWriteBuffer buffer(JdbcTemplate jdbc) {
+		return new ContentWriteBuffer(jdbc, blobStore, roomRuntimeService, Long.MAX_VALUE, 100);
+	}
+
+	private Map<String, Object> stored() {
+		return jdbcTemplate.queryForMap("SELECT content_hash, version FROM files WHERE id = ?", fileId);
+	}
+}
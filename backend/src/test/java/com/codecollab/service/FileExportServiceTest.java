@@ -0,0 +1,161 @@
+package com.codecollab.service;
+
+import com.codecollab.RoomFixture;
+import com.codecollab.dto.FileImportResponse;
+import com.codecollab.entity.Room;
+import com.codecollab.entity.User;
+import com.codecollab.storage.BlobStore;
+import com.codecollab.util.ContentHash;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(RoomFixture.class)
+class FileExportServiceTest {
+
+	@Autowired
+	private FileExportService fileExportService;
+
+	@Autowired
+	private FileImportService fileImportService;
+
+	@Autowired
+	private ContentWriteBuffer contentWriteBuffer;
+
+	@Autowired
+	private FileService fileService;
+
+	@Autowired
+	private BlobStore blobStore;
+
+	@Autowired
+	private RoomFixture roomFixture;
+
+	private User user;
+	private Room room;
+
+	@BeforeEach
+	void seed() {
+		RoomFixture.Member member = roomFixture.create("exporter");
+		user = member.user();
+		room = member.room();
+	}
+
+	@Test
+	void exportsStoredAndCompressedContent() throws IOException {
+		// Large blobs are stored compressed and inflated as a stream; small ones are stored raw and transferred as-is
+		String compressible = "console.log('hello');\n".repeat(10_000);
+		String incompressible = randomText(200_000);
+		fileImportService.importFiles(room.getId(), null, null, List.of(
+				part("app/src/index.js", compressible),
+				part("app/data.txt", incompressible),
+				part("README.md", "# Export")), user);
+
+		Map<String, String> entries = unzip(export(null));
+
+		assertThat(entries.keySet()).containsExactly("app/", "app/src/", "app/src/index.js", "app/data.txt", "README.md");
+		assertThat(entries.get("app/src/index.js")).isEqualTo(compressible);
+		assertThat(entries.get("app/data.txt")).isEqualTo(incompressible);
+		assertThat(entries.get("README.md")).isEqualTo("# Export");
+	}
+
+	@Test
+	void exportsFolderWithUnflushedEdits() throws IOException {
+		FileImportResponse imported = fileImportService.importFiles(room.getId(), null, null, List.of(
+				part("lib/a.js", "old"), part("other.js", "x")), user);
+		Long lib = imported.getFiles().get(0).getId();
+		Long a = imported.getFiles().get(0).getChildren().get(0).getId();
+		contentWriteBuffer.put(room.getId(), a, "new", 1);
+		try {
+			assertThat(unzip(export(lib))).containsExactly(Map.entry("a.js", "new"));
+		} finally {
+			contentWriteBuffer.discard(a);
+		}
+	}
+
+	@Test
+	void writesContentSavedAfterPrepare() throws IOException {
+		FileImportResponse imported = fileImportService.importFiles(room.getId(), null, null, List.of(
+				part("a.js", "before-" + room.getId())), user);
+		Long a = imported.getFiles().get(0).getId();
+		FileExportService.RoomExport export = fileExportService.prepare(room.getId(), null, user);
+
+		// The snapshot's blob is collected once the new content is flushed
+		fileService.updateFileContent(a, "after", user);
+		contentWriteBuffer.flush();
+		Files.delete(blobStore.pathOf(ContentHash.sha256Hex("before-" + room.getId())));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		fileExportService.write(export, out);
+		assertThat(unzip(out.toByteArray())).containsExactly(Map.entry("a.js", "after"));
+	}
+
+	@Test
+	void failsBeforeStreamingWhenABlobIsMissing() throws IOException {
+		fileImportService.importFiles(room.getId(), null, null, List.of(part("lost.js", "lost-" + room.getId())), user);
+		Files.delete(blobStore.pathOf(ContentHash.sha256Hex("lost-" + room.getId())));
+
+		assertThatThrownBy(() -> fileExportService.prepare(room.getId(), null, user))
+				.hasMessageContaining("lost.js is missing");
+	}
+
+	@Test
+	void rejectsFilesAsExportRoot() {
+		FileImportResponse imported = fileImportService.importFiles(room.getId(), null, null, List.of(
+				part("a.js", "a")), user);
+
+		assertThatThrownBy(() -> fileExportService.prepare(room.getId(), imported.getFiles().get(0).getId(), user))
+				.hasMessageContaining("Folder not found");
+	}
+
+	private byte[] export(Long folderId) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		fileExportService.write(fileExportService.prepare(room.getId(), folderId, user), out);
+		return out.toByteArray();
+	}
+
+	private static Map<String, String> unzip(byte[] archive) throws IOException {
+		Map<String, String> entries = new LinkedHashMap<>();
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+			}
+		}
+		return entries;
+	}
+
+	private static String randomText(int length) {
+		Random random = new Random(42);
+		StringBuilder text = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			text.append((char) (33 + random.nextInt(94)));
+		}
+		return text.toString();
+	}
+
+	private static MockMultipartFile part(String path, String content) {
+		return new MockMultipartFile("files", path, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+	}
+}
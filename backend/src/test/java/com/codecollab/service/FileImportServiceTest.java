@@ -0,0 +1,130 @@
+package com.codecollab.service;
+
+import com.codecollab.RoomFixture;
+import com.codecollab.dto.FileImportResponse;
+import com.codecollab.dto.FileNodeResponse;
+import com.codecollab.dto.FileNodeRow;
+import com.codecollab.entity.Room;
+import com.codecollab.entity.User;
+import com.codecollab.repository.FileNodeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(RoomFixture.class)
+class FileImportServiceTest {
+
+	@Autowired
+	private FileImportService fileImportService;
+
+	@Autowired
+	private FileService fileService;
+
+	@Autowired
+	private FileNodeRepository fileNodeRepository;
+
+	@Autowired
+	private RoomFixture roomFixture;
+
+	private User user;
+	private Room room;
+
+	@BeforeEach
+	void seed() {
+		RoomFixture.Member member = roomFixture.create("importer");
+		user = member.user();
+		room = member.room();
+	}
+
+	@Test
+	void importsArchiveAsOneTree() throws IOException {
+		byte[] archive = zip(Map.of(
+				"demo/src/Main.java", "class Main {}".getBytes(StandardCharsets.UTF_8),
+				"demo/README.md", "# Demo".getBytes(StandardCharsets.UTF_8),
+				"demo/logo.png", new byte[]{(byte) 0x89, 'P', 'N', 'G', 0, 0},
+				"__MACOSX/demo/._README.md", new byte[]{1}
+		));
+
+		FileImportResponse response = fileImportService.importArchive(room.getId(), null, null,
+				new ByteArrayInputStream(archive), user);
+
+		assertThat(response.getFileCount()).isEqualTo(2);
+		assertThat(response.getFolderCount()).isEqualTo(2);
+		assertThat(response.getSkipped()).containsExactly("demo/logo.png");
+		assertThat(response.getFiles()).extracting(FileNodeResponse::getName).containsExactly("demo");
+		assertThat(response.getFiles().get(0).getChildren()).extracting(FileNodeResponse::getName)
+				.containsExactly("src", "README.md");
+
+		Map<String, FileNodeRow> rows = fileNodeRepository.findTreeRowsByRoomId(room.getId()).stream()
+				.collect(Collectors.toMap(FileNodeRow::getName, row -> row));
+		assertThat(rows).containsOnlyKeys("demo", "src", "Main.java", "README.md");
+		assertThat(rows.get("Main.java").getParentId()).isEqualTo(rows.get("src").getId());
+		assertThat(rows.get("Main.java").getLanguage()).isEqualTo("java");
+		assertThat(rows.get("Main.java").getSize()).isEqualTo(13L);
+
+		// Imported files are served from the resident room like any other
+		List<FileNodeResponse> tree = fileService.getFileTree(room.getId(), user);
+		FileNodeResponse main = tree.get(0).getChildren().get(0).getChildren().get(0);
+		assertThat(main.getContent()).isEqualTo("class Main {}");
+	}
+
+	@Test
+	void importsIntoFolderAlongsideCreatedFiles() {
+		FileImportResponse first = fileImportService.importFiles(room.getId(), null, "first", List.of(
+				part("lib/a.js", "a")), user);
+		Long lib = first.getFiles().get(0).getId();
+
+		FileImportResponse second = fileImportService.importFiles(room.getId(), lib, "second", List.of(
+				part("b.js", "b"), part("nested/c.js", "c")), user);
+
+		assertThat(second.getImportId()).isEqualTo("second");
+		assertThat(second.getFiles()).extracting(FileNodeResponse::getParentId).containsOnly(lib);
+		assertThat(fileService.getFileTreeMetadata(room.getId(), user).get(0).getChildren())
+				.extracting(FileNodeResponse::getName).containsExactly("a.js", "nested", "b.js");
+	}
+
+	@Test
+	void failedImportLeavesRoomUntouched() {
+		assertThatThrownBy(() -> fileImportService.importFiles(room.getId(), null, null, List.of(
+				part("x/a.txt", "a"), part("x/a.txt", "b")), user))
+				.hasMessageContaining("Duplicate path");
+
+		assertThat(fileNodeRepository.findTreeRowsByRoomId(room.getId())).isEmpty();
+	}
+
+	private static byte[] zip(Map<String, byte[]> entries) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(out)) {
+			for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+				zip.putNextEntry(new ZipEntry(entry.getKey()));
+				zip.write(entry.getValue());
+				zip.closeEntry();
+			}
+		}
+		return out.toByteArray();
+	}
+
+	private static MockMultipartFile part(String path, String content) {
+		return new MockMultipartFile("files", path, "text/plain",
+				content.getBytes(StandardCharsets.UTF_8));
+	}
+}
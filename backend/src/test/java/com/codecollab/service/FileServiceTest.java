@@ -0,0 +1,166 @@
+package com.codecollab.service;
+
+import com.codecollab.RoomFixture;
+import com.codecollab.dto.FileContentResponse;
+import com.codecollab.dto.FileImportResponse;
+import com.codecollab.dto.FileNodeResponse;
+import com.codecollab.dto.FileNodeRow;
+import com.codecollab.dto.MoveFileRequest;
+import com.codecollab.entity.Room;
+import com.codecollab.entity.User;
+import com.codecollab.repository.FileNodeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(RoomFixture.class)
+class FileServiceTest {
+
+	@Autowired
+	private FileService fileService;
+
+	@Autowired
+	private FileImportService fileImportService;
+
+	@Autowired
+	private CollabService collabService;
+
+	@Autowired
+	private FileNodeRepository fileNodeRepository;
+
+	@Autowired
+	private RoomFixture roomFixture;
+
+	private User user;
+	private Room room;
+	private Map<String, Long> ids;
+
+	@BeforeEach
+	void seed() {
+		RoomFixture.Member member = roomFixture.create("files");
+		user = member.user();
+		room = member.room();
+
+		FileImportResponse imported = fileImportService.importFiles(room.getId(), null, null, List.of(
+				part("app/node_modules/left-pad/index.js"),
+				part("app/node_modules/left-pad/package.json"),
+				part("app/src/main.js"),
+				part("docs/guide.md")), user);
+		ids = imported.getFiles().stream()
+				.flatMap(FileServiceTest::flatten)
+				.collect(Collectors.toMap(FileNodeResponse::getName, FileNodeResponse::getId));
+	}
+
+	@Test
+	void deletesWholeSubtree() {
+		fileService.deleteFile(ids.get("node_modules"), user);
+
+		assertThat(names(fileNodeRepository.findTreeRowsByRoomId(room.getId())))
+				.containsExactlyInAnyOrder("app", "src", "main.js", "docs", "guide.md");
+		assertThat(names(fileService.getFileTreeMetadata(room.getId(), user).stream()
+				.flatMap(FileServiceTest::flatten).toList(), FileNodeResponse::getName))
+				.containsExactlyInAnyOrder("app", "src", "main.js", "docs", "guide.md");
+	}
+
+	@Test
+	void movesSubtreeAndRewritesPaths() {
+		Long docs = ids.get("docs");
+		Long src = ids.get("src");
+
+		FileNodeResponse moved = fileService.moveFile(src, new MoveFileRequest(docs), user);
+
+		assertThat(moved.getParentId()).isEqualTo(docs);
+		Map<String, FileNodeRow> rows = fileNodeRepository.findTreeRowsByRoomId(room.getId()).stream()
+				.collect(Collectors.toMap(FileNodeRow::getName, row -> row));
+		assertThat(rows.get("src").getPath()).isEqualTo("/" + docs + "/" + src + "/");
+		assertThat(rows.get("main.js").getPath()).isEqualTo("/" + docs + "/" + src + "/" + ids.get("main.js") + "/");
+		assertThat(rows.get("index.js").getPath()).startsWith("/" + ids.get("app") + "/");
+
+		// The resident room follows the move, so deleting the new parent takes the moved subtree along
+		fileService.deleteFile(docs, user);
+		assertThat(names(fileNodeRepository.findTreeRowsByRoomId(room.getId())))
+				.doesNotContain("docs", "src", "main.js")
+				.contains("app", "index.js");
+		assertThat(fileService.getFileTreeMetadata(room.getId(), user)).extracting(FileNodeResponse::getName)
+				.containsExactly("app");
+	}
+
+	@Test
+	void movesToRoot() {
+		fileService.moveFile(ids.get("left-pad"), new MoveFileRequest(null), user);
+
+		assertThat(fileService.getFileTreeMetadata(room.getId(), user)).extracting(FileNodeResponse::getName)
+				.containsExactlyInAnyOrder("app", "docs", "left-pad");
+		assertThat(fileNodeRepository.findMetadataById(ids.get("index.js")).orElseThrow().getPath())
+				.isEqualTo("/" + ids.get("left-pad") + "/" + ids.get("index.js") + "/");
+	}
+
+	@Test
+	void rejectsMoveIntoOwnSubtree() {
+		assertThatThrownBy(() -> fileService.moveFile(ids.get("app"), new MoveFileRequest(ids.get("left-pad")), user))
+				.hasMessageContaining("into itself");
+		assertThatThrownBy(() -> fileService.moveFile(ids.get("docs"), new MoveFileRequest(ids.get("guide.md")), user))
+				.hasMessageContaining("Parent folder not found");
+	}
+
+	@Test
+	void readsContentWithoutOpeningADocument() {
+		Long file = ids.get("guide.md");
+		int open = collabService.getOpenDocumentCount();
+
+		assertThat(fileService.getFileContent(file, user).getContent()).isEqualTo("docs/guide.md");
+		assertThat(collabService.getOpenDocumentCount()).isEqualTo(open);
+
+		fileService.updateFileContent(file, "edited", user);
+		assertThat(fileService.getFileContent(file, user).getContent()).isEqualTo("edited");
+	}
+
+	@Test
+	void undoneEditChangesTheEtag() {
+		Long file = ids.get("main.js");
+		FileContentResponse original = fileService.getFileContent(file, user);
+
+		fileService.updateFileContent(file, "edited", user);
+		FileContentResponse edited = fileService.getFileContent(file, user);
+		fileService.updateFileContent(file, original.getContent(), user);
+		FileContentResponse undone = fileService.getFileContent(file, user);
+
+		assertThat(undone.getContent()).isEqualTo(original.getContent());
+		assertThat(undone.getVersion()).isGreaterThan(original.getVersion());
+		assertThat(List.of(original.getEtag(), edited.getEtag(), undone.getEtag())).doesNotHaveDuplicates();
+		assertThat(fileService.getFileContent(file, user).getEtag()).isEqualTo(undone.getEtag());
+	}
+
+	private static Stream<FileNodeResponse> flatten(FileNodeResponse node) {
+		return Stream.concat(Stream.of(node),
+				node.getChildren() == null ? Stream.empty() : node.getChildren().stream().flatMap(FileServiceTest::flatten));
+	}
+
+	private static List<String> names(List<FileNodeRow> rows) {
+		return names(rows, FileNodeRow::getName);
+	}
+
+	private static <T> List<String> names(List<T> rows, Function<T, String> name) {
+		return rows.stream().map(name).toList();
+	}
+
+	private static MockMultipartFile part(String path) {
+		return new MockMultipartFile("files", path, "text/plain", path.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,111 @@
+package com.codecollab.service;
+
+import com.codecollab.dto.FileNodeResponse;
+import com.codecollab.dto.FileNodeRow;
+import com.codecollab.entity.FileNode;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileTreeBuilderTest {
+
+	@Test
+	void buildsNestedTreeInRowOrder() {
+		List<FileNodeRow> rows = List.of(
+				row(1L, null, FileNode.FileType.FOLDER),
+				row(2L, 1L, FileNode.FileType.FILE),
+				row(3L, null, FileNode.FileType.FILE),
+				row(4L, 1L, FileNode.FileType.FOLDER),
+				row(5L, 4L, FileNode.FileType.FILE)
+		);
+
+		List<FileNodeResponse> roots = FileTreeBuilder.build(rows);
+
+		assertThat(roots).extracting(FileNodeResponse::getId).containsExactly(1L, 3L);
+		assertThat(roots.get(0).getChildren()).extracting(FileNodeResponse::getId).containsExactly(2L, 4L);
+		assertThat(roots.get(0).getChildren().get(1).getChildren()).extracting(FileNodeResponse::getId).containsExactly(5L);
+		assertThat(roots.get(1).getChildren()).isEmpty();
+	}
+
+	@Test
+	void readsEachRowAConstantNumberOfTimes() {
+		for (int size : new int[]{1_000, 50_000}) {
+			CountingList rows = new CountingList(generate(size));
+
+			List<FileNodeResponse> roots = FileTreeBuilder.build(rows);
+
+			assertThat(roots).hasSize(10);
+			// One pass to index the rows and one to link them; a nested scan would read n^2 rows
+			assertThat(rows.reads).isEqualTo(2L * size);
+		}
+	}
+
+	// Times the build from 1k to 50k nodes; run with -Pbenchmark
+	@Test
+	@Tag("benchmark")
+	void buildTimePerNodeStaysFlatUpTo50kNodes() {
+		int[] sizes = {1_000, 5_000, 10_000, 50_000};
+		double[] nsPerNode = new double[sizes.length];
+		for (int i = 0; i < sizes.length; i++) {
+			List<FileNodeRow> rows = generate(sizes[i]);
+			// Warm up the JIT before measuring
+			for (int run = 0; run < 20; run++) {
+				FileTreeBuilder.build(rows);
+			}
+			long best = Long.MAX_VALUE;
+			for (int run = 0; run < 10; run++) {
+				long start = System.nanoTime();
+				FileTreeBuilder.build(rows);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			nsPerNode[i] = (double) best / sizes[i];
+		}
+
+		// A nested scan would cost 50 times more per node at 50k than at 1k
+		assertThat(nsPerNode[sizes.length - 1])
+				.as("ns per node for %s nodes: %s", Arrays.toString(sizes), Arrays.toString(nsPerNode))
+				.isLessThan(nsPerNode[0] * 4);
+	}
+
+	private static List<FileNodeRow> generate(int count) {
+		List<FileNodeRow> rows = new ArrayList<>(count);
+		for (long id = 1; id <= count; id++) {
+			// Every tenth node is a folder; each group of ten hangs off the previous group's folder
+			boolean folder = id % 10 == 1;
+			Long parentId = id <= 10 ? null : ((id - 1) / 10) * 10 + 1 - 10;
+			rows.add(row(id, parentId, folder ? FileNode.FileType.FOLDER : FileNode.FileType.FILE));
+		}
+		return rows;
+	}
+
+	private static FileNodeRow row(Long id, Long parentId, FileNode.FileType type) {
+		return new FileNodeRow(id, 1L, parentId, "node-" + id, type, null, null, null, null, null);
+	}
+
+	private static final class CountingList extends AbstractList<FileNodeRow> {
+
+		private final List<FileNodeRow> rows;
+		private long reads;
+
+		CountingList(List<FileNodeRow> rows) {
+			this.rows = rows;
+		}
+
+		@Override
+		public FileNodeRow get(int index) {
+			reads++;
+			return rows.get(index);
+		}
+
+		@Override
+		public int size() {
+			return rows.size();
+		}
+	}
+}
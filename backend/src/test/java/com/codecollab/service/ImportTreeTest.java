@@ -0,0 +1,63 @@
+package com.codecollab.service;
+
+import com.codecollab.entity.FileNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImportTreeTest {
+
+	@Test
+	void createsMissingFoldersAndOrdersParentsFirst() {
+		ImportTree tree = new ImportTree(100);
+		tree.addFile("app/src/Main.java", "h1", 10);
+		tree.addFile("app/README.md", "h2", 5);
+		tree.addFolder("app/docs/");
+		tree.addFile("app/src/a/Util.java", "h3", 7);
+
+		List<ImportTree.Node> nodes = tree.nodes();
+
+		assertThat(nodes).extracting(node -> node.name)
+				.containsExactly("app", "docs", "src", "a", "Util.java", "Main.java", "README.md");
+		assertThat(nodes.get(0).parent).isNull();
+		assertThat(nodes.get(3).parent).isSameAs(nodes.get(2));
+		assertThat(nodes.get(4).type).isEqualTo(FileNode.FileType.FILE);
+		assertThat(nodes.get(4).contentHash).isEqualTo("h3");
+		for (int i = 0; i < nodes.size(); i++) {
+			if (nodes.get(i).parent != null) {
+				assertThat(nodes.indexOf(nodes.get(i).parent)).isLessThan(i);
+			}
+		}
+	}
+
+	@Test
+	void ignoresArchiveClutterAndNormalizesSeparators() {
+		ImportTree tree = new ImportTree(100);
+		tree.addFile("__MACOSX/app/._Main.java", "h1", 1);
+		tree.addFile("app/.DS_Store", "h2", 1);
+		tree.addFile("./app\\Main.java", "h3", 1);
+
+		assertThat(tree.nodes()).extracting(node -> node.name).containsExactly("app", "Main.java");
+	}
+
+	@Test
+	void rejectsInvalidPaths() {
+		ImportTree tree = new ImportTree(100);
+		tree.addFile("app/Main.java", "h1", 1);
+
+		assertThatThrownBy(() -> tree.addFile("app/Main.java", "h2", 1)).hasMessageContaining("Duplicate path");
+		assertThatThrownBy(() -> tree.addFile("app/Main.java/inner.txt", "h2", 1)).hasMessageContaining("Duplicate path");
+		assertThatThrownBy(() -> tree.addFile("../etc/passwd", "h2", 1)).hasMessageContaining("Invalid path");
+	}
+
+	@Test
+	void enforcesNodeLimit() {
+		ImportTree tree = new ImportTree(3);
+		tree.addFile("a/b/c.txt", "h1", 1);
+
+		assertThatThrownBy(() -> tree.addFile("a/d.txt", "h2", 1)).hasMessageContaining("exceeds 3");
+	}
+}
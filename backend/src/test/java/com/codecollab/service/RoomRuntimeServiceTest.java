@@ -0,0 +1,106 @@
+package com.codecollab.service;
+
+import com.codecollab.dto.FileNodeRow;
+import com.codecollab.dto.RoomSummary;
+import com.codecollab.entity.FileNode;
+import com.codecollab.entity.User;
+import com.codecollab.messaging.LocalRoomEventBus;
+import com.codecollab.messaging.RoomEventBus;
+import com.codecollab.repository.FileNodeRepository;
+import com.codecollab.repository.RoomRepository;
+import com.codecollab.security.MembershipCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RoomRuntimeServiceTest {
+
+	private final RoomRepository roomRepository = mock(RoomRepository.class);
+	private final FileNodeRepository fileNodeRepository = mock(FileNodeRepository.class);
+	private final MembershipCache membershipCache = mock(MembershipCache.class);
+	private final RoomRuntimeService service = new RoomRuntimeService(roomRepository, fileNodeRepository, membershipCache, new LocalRoomEventBus());
+	private final User user = User.builder().id(7L).username("alice").build();
+
+	@Test
+	void rejectsNonMembersWithoutLoadingTheRoom() {
+		when(membershipCache.isMember(1L, 7L)).thenReturn(false);
+
+		assertThatThrownBy(() -> service.getAuthorizedRoom(1L, user)).hasMessageContaining("not a member");
+
+		verifyNoInteractions(roomRepository, fileNodeRepository);
+		assertThat(service.getResidentRoomCount()).isZero();
+	}
+
+	@Test
+	void noticeDuringALoadIsAppliedOnceTheLoadFinishes() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(membershipCache.isMember(1L, 7L)).thenReturn(true);
+		when(roomRepository.findSummaryById(1L)).thenReturn(Optional.of(new RoomSummary(1L, "room", null, "code", "alice", 1)));
+		when(fileNodeRepository.findTreeRowsByRoomId(1L)).thenAnswer(invocation -> {
+			loading.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			// Read before the content below was committed
+			return List.of(new FileNodeRow(10L, 1L, null, "/10/", "a.js", FileNode.FileType.FILE, "old", null, 3L, 1L, null, null));
+		});
+
+		CompletableFuture<Void> load = CompletableFuture.runAsync(() -> service.getAuthorizedRoom(1L, user));
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<Void> notice = CompletableFuture.runAsync(() ->
+				service.contentPersisted(1L, 10L, "new", 3L, 2L, LocalDateTime.now()));
+		release.countDown();
+		load.get(5, TimeUnit.SECONDS);
+		notice.get(5, TimeUnit.SECONDS);
+
+		assertThat(service.getAuthorizedRoom(1L, user).findFile(10L).getContentHash()).isEqualTo("new");
+		verify(fileNodeRepository, times(1)).findTreeRowsByRoomId(1L);
+	}
+
+	@Test
+	void peersApplyPersistedContentAndReloadOnlyForStructuralChanges() {
+		Map<String, Function<byte[], byte[]>> peerHandlers = new HashMap<>();
+		RoomEventBus peerBus = mock(RoomEventBus.class);
+		doAnswer(invocation -> peerHandlers.put(invocation.getArgument(0), invocation.getArgument(1)))
+				.when(peerBus).handle(anyString(), any());
+		RoomEventBus ownerBus = mock(RoomEventBus.class);
+		doAnswer(invocation -> peerHandlers.get(invocation.<String>getArgument(0)).apply(invocation.getArgument(1)))
+				.when(ownerBus).notifyPeers(anyString(), any());
+		RoomRuntimeService owner = new RoomRuntimeService(roomRepository, fileNodeRepository, membershipCache, ownerBus);
+		RoomRuntimeService peer = new RoomRuntimeService(roomRepository, fileNodeRepository, membershipCache, peerBus);
+		owner.registerHandlers();
+		peer.registerHandlers();
+		when(membershipCache.isMember(1L, 7L)).thenReturn(true);
+		when(roomRepository.findSummaryById(1L)).thenReturn(Optional.of(new RoomSummary(1L, "room", null, "code", "alice", 1)));
+		when(fileNodeRepository.findTreeRowsByRoomId(1L)).thenReturn(
+				List.of(new FileNodeRow(10L, 1L, null, "/10/", "a.js", FileNode.FileType.FILE, "old", null, 3L, 1L, null, null)));
+		peer.getAuthorizedRoom(1L, user);
+
+		LocalDateTime persistedAt = LocalDateTime.of(2026, 10, 18, 12, 30, 15, 123_456_789);
+		owner.contentPersisted(1L, 10L, "new", 5L, 2L, persistedAt);
+
+		FileNodeRow file = peer.getAuthorizedRoom(1L, user).findFile(10L);
+		assertThat(file.getContentHash()).isEqualTo("new");
+		assertThat(file.getSize()).isEqualTo(5L);
+		assertThat(file.getVersion()).isEqualTo(2L);
+		assertThat(file.getUpdatedAt()).isEqualTo(persistedAt);
+		verify(fileNodeRepository, times(1)).findTreeRowsByRoomId(1L);
+
+		owner.fileDeleted(1L, 10L);
+		peer.getAuthorizedRoom(1L, user);
+		verify(fileNodeRepository, times(2)).findTreeRowsByRoomId(1L);
+	}
+}
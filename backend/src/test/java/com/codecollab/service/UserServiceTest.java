@@ -0,0 +1,79 @@
+package com.codecollab.service;
+
+import com.codecollab.entity.Role;
+import com.codecollab.entity.User;
+import com.codecollab.repository.UserRepository;
+import com.codecollab.security.PrincipalCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserServiceTest {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private UserDetailsService userDetailsService;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private PrincipalCache principalCache;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private String username;
+
+	@BeforeEach
+	void seed() {
+		username = "user-" + UUID.randomUUID().toString().substring(0, 8);
+		userRepository.save(User.builder().username(username).email(username + "@example.com")
+				.password(passwordEncoder.encode("old-password")).role(Role.USER).build());
+	}
+
+	@Test
+	void renamedUserIsNotServedFromTheCache() {
+		principalCache.get(username, userDetailsService::loadUserByUsername);
+		String renamed = username + "-renamed";
+
+		userService.updateUsername(username, renamed);
+
+		assertThat(principalCache.get(renamed, userDetailsService::loadUserByUsername).getUsername()).isEqualTo(renamed);
+		assertThatThrownBy(() -> principalCache.get(username, userDetailsService::loadUserByUsername))
+				.isInstanceOf(UsernameNotFoundException.class);
+	}
+
+	@Test
+	void passwordChangeEvictsAPrincipalCachedDuringTheTransaction() {
+		UserDetails before = principalCache.get(username, userDetailsService::loadUserByUsername);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			userService.changePassword(username, "old-password", "new-password");
+			// A request racing the update re-caches the row it still sees
+			principalCache.get(username, name -> before);
+		});
+
+		UserDetails after = principalCache.get(username, userDetailsService::loadUserByUsername);
+		assertThat(passwordEncoder.matches("new-password", after.getPassword())).isTrue();
+	}
+}
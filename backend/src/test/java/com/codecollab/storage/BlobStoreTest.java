@@ -0,0 +1,77 @@
+package com.codecollab.storage;
+
+import com.codecollab.compression.ContentCompressor;
+import com.codecollab.compression.DeflateCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlobStoreTest {
+
+	private static final long HOUR = 3_600_000L;
+
+	@TempDir
+	Path root;
+
+	private BlobStore blobStore;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		blobStore = new BlobStore(new ContentCompressor(List.of(new DeflateCodec()), "deflate", 512));
+		ReflectionTestUtils.setField(blobStore, "rootDirectory", root.toString());
+		blobStore.init();
+	}
+
+	@Test
+	void collectsOnlyStaleUnreferencedBlobs() throws IOException {
+		String stale = blobStore.put("stale");
+		String referenced = blobStore.put("referenced");
+		String fresh = blobStore.put("fresh");
+		age(stale);
+		age(referenced);
+
+		List<String> candidates = blobStore.findUnreferenced(Set.of(referenced), HOUR);
+
+		assertThat(candidates).containsExactly(stale);
+		assertThat(blobStore.deleteIfUnused(stale, HOUR)).isTrue();
+		assertThat(blobStore.exists(stale)).isFalse();
+		assertThat(blobStore.exists(fresh)).isTrue();
+	}
+
+	@Test
+	void putBetweenScanAndDeleteKeepsTheBlob() throws IOException {
+		String hash = blobStore.put("shared");
+		age(hash);
+		assertThat(blobStore.findUnreferenced(Set.of(), HOUR)).containsExactly(hash);
+
+		assertThat(blobStore.put("shared")).isEqualTo(hash);
+
+		assertThat(blobStore.deleteIfUnused(hash, HOUR)).isFalse();
+		assertThat(blobStore.read(hash)).isEqualTo("shared");
+	}
+
+	@Test
+	void putRecreatesACollectedBlob() throws IOException {
+		String hash = blobStore.put("gone");
+		age(hash);
+		assertThat(blobStore.deleteIfUnused(hash, HOUR)).isTrue();
+
+		assertThat(blobStore.put("gone")).isEqualTo(hash);
+
+		assertThat(blobStore.read(hash)).isEqualTo("gone");
+	}
+
+	private void age(String hash) throws IOException {
+		Files.setLastModifiedTime(blobStore.pathOf(hash), FileTime.fromMillis(System.currentTimeMillis() - 2 * HOUR));
+	}
+}
@@ -0,0 +1,67 @@
+package com.codecollab.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SchemaMigratorTest {
+
+	private static final String LOCATION = "classpath:db/migration/V*__*.sql";
+	private static final String COLUMNS = "SELECT table_name || '.' || column_name || ' ' || data_type || '(' "
+			+ "|| COALESCE(character_maximum_length, 0) || ') ' || is_nullable FROM information_schema.columns "
+			+ "WHERE table_schema = CURRENT_SCHEMA ORDER BY 1";
+
+	@Test
+	void upgradesADatabaseCreatedByHibernate() {
+		DataSource legacy = dataSource();
+		new ResourceDatabasePopulator(new ClassPathResource("db/hibernate_baseline.sql")).execute(legacy);
+		DataSource fresh = dataSource();
+
+		migrator(legacy).migrate();
+		migrator(fresh).migrate();
+
+		JdbcTemplate jdbc = new JdbcTemplate(legacy);
+		assertThat(jdbc.queryForList(COLUMNS, String.class)).isEqualTo(new JdbcTemplate(fresh).queryForList(COLUMNS, String.class));
+		assertThat(jdbc.queryForList("SELECT index_name FROM information_schema.indexes WHERE table_schema = CURRENT_SCHEMA", String.class))
+				.contains("idx_chat_messages_room_id", "uk_room_members_room_user", "idx_files_room_parent_sort", "idx_files_room_path");
+		assertThat(jdbc.queryForList("SELECT version FROM schema_version WHERE version > 0 ORDER BY version", Integer.class))
+				.containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+		assertThat(jdbc.queryForObject("SELECT member_count FROM rooms WHERE id = 1", Integer.class)).isEqualTo(2);
+		assertThat(jdbc.queryForList("SELECT id FROM room_members ORDER BY id", Long.class)).containsExactly(1L, 2L);
+		assertThat(jdbc.queryForList("SELECT path FROM files ORDER BY id", String.class)).containsExactly("/1/", "/1/2/");
+		// Left for LegacyContentMigrator, which moves it into the blob store at startup
+		assertThat(jdbc.queryForObject("SELECT content FROM files WHERE id = 2", String.class)).isEqualTo("console.log(1);");
+	}
+
+	@Test
+	void nodesStartingTogetherApplyEachMigrationOnce() throws Exception {
+		DataSource shared = dataSource();
+
+		CompletableFuture<Void> first = CompletableFuture.runAsync(() -> migrator(shared).migrate());
+		CompletableFuture<Void> second = CompletableFuture.runAsync(() -> migrator(shared).migrate());
+		first.get(30, TimeUnit.SECONDS);
+		second.get(30, TimeUnit.SECONDS);
+
+		assertThat(new JdbcTemplate(shared).queryForList("SELECT version FROM schema_version WHERE version > 0 ORDER BY version", Integer.class))
+				.containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+	}
+
+	private static SchemaMigrator migrator(DataSource dataSource) {
+		return new SchemaMigrator(dataSource, LOCATION, List.of(new FilePathBackfill()));
+	}
+
+	private static DataSource dataSource() {
+		return new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+	}
+}
@@ -0,0 +1,28 @@
+-- DDL Hibernate generated for the original entities (ddl-auto: update) before schema
+-- migrations existed, with its generated constraint names, plus a little data.
+
+create table users (created_at datetime(6), id bigint not null auto_increment, email varchar(255) not null, password varchar(255) not null, role enum ('USER','ADMIN') not null, username varchar(255) not null, primary key (id));
+create table rooms (created_at datetime(6), id bigint not null auto_increment, owner_id bigint not null, updated_at datetime(6), description varchar(1000), invite_code varchar(255) not null, name varchar(255) not null, primary key (id));
+create table room_members (id bigint not null auto_increment, joined_at datetime(6), room_id bigint not null, user_id bigint not null, primary key (id));
+create table files (sort_order integer, created_at datetime(6), id bigint not null auto_increment, parent_id bigint, room_id bigint not null, updated_at datetime(6), content TEXT, language varchar(255), name varchar(255) not null, type enum ('FILE','FOLDER') not null, primary key (id));
+create table chat_messages (created_at datetime(6), id bigint not null auto_increment, room_id bigint not null, user_id bigint not null, message TEXT not null, primary key (id));
+alter table rooms add constraint UK_4g3cq1hkfbkuyiq7obnrtuvnn unique (invite_code);
+alter table users add constraint UK_6dotkott2kjsp8vw4d0m25fb7 unique (email);
+alter table users add constraint UK_r43af9ap4edm43mmtq01oddj6 unique (username);
+alter table chat_messages add constraint FKdqq2bb6eibt5d2lxmprpyv5da foreign key (room_id) references rooms (id);
+alter table chat_messages add constraint FKgiqeap8ays4lf684x7m0r2729 foreign key (user_id) references users (id);
+alter table files add constraint FK5y6ohnh7gxlxwxo3sxh9xcd0u foreign key (parent_id) references files (id);
+alter table files add constraint FKq1hdfmbeq3r6jx1gsm1gbr5ca foreign key (room_id) references rooms (id);
+alter table room_members add constraint FKfs7ag4avlrj5gk7wbq0xmvjk3 foreign key (room_id) references rooms (id);
+alter table room_members add constraint FK2xqmenm7x7k8p6yaqwp5uhqbw foreign key (user_id) references users (id);
+alter table rooms add constraint FKjiqmdbt7nq3rm8s1qh8pr2n6a foreign key (owner_id) references users (id);
+
+insert into users (id, username, email, password, role) values (1, 'alice', 'alice@example.com', 'x', 'USER');
+insert into users (id, username, email, password, role) values (2, 'bob', 'bob@example.com', 'x', 'USER');
+insert into rooms (id, name, invite_code, owner_id) values (1, 'room', 'invite', 1);
+insert into room_members (id, room_id, user_id) values (1, 1, 1);
+insert into room_members (id, room_id, user_id) values (2, 1, 2);
+insert into room_members (id, room_id, user_id) values (3, 1, 2);
+insert into files (id, room_id, parent_id, name, type, content) values (1, 1, null, 'src', 'FOLDER', null);
+insert into files (id, room_id, parent_id, name, type, content) values (2, 1, 1, 'main.js', 'FILE', 'console.log(1);');
+insert into chat_messages (id, room_id, user_id, message) values (1, 1, 2, 'hi');
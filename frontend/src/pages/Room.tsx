@@ -33,7 +33,7 @@ export function Room() {
 
   const loadFiles = async () => {
     try {
-      const response = await fileAPI.getFileTree(Number(roomId));
+      const response = await fileAPI.getFileTreeMetadata(Number(roomId));
       setFiles(response.data);
     } catch (err: any) {
       setError('Failed to load files');
@@ -43,6 +43,19 @@ export function Room() {
     }
   };
 
+  const selectFile = async (file: FileNode) => {
+    setSelectedFile(file);
+    try {
+      const response = await fileAPI.getFileContent(file.id);
+      setSelectedFile((current) =>
+        current?.id === file.id ? { ...current, content: response.data.content } : current
+      );
+    } catch (err: any) {
+      setError('Failed to load file');
+      console.error(err);
+    }
+  };
+
   if (loading) {
     return (
       <div className="min-h-screen flex items-center justify-center bg-gray-50 dark:bg-gray-900">
@@ -130,7 +143,7 @@ export function Room() {
                     key={file.id}
                     file={file}
                     selectedFile={selectedFile}
-                    onSelect={setSelectedFile}
+                    onSelect={selectFile}
                   />
                 ))}
               </div>
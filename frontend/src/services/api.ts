@@ -32,17 +32,39 @@ export const roomAPI = {
     api.post('/rooms', data),
   joinRoom: (inviteCode: string) =>
     api.post('/rooms/join', { inviteCode }),
-  getMyRooms: () => api.get('/rooms'),
+  getMyRooms: (after?: number, limit?: number) =>
+    api.get('/rooms', { params: { after, limit } }),
   getRoom: (roomId: number) => api.get(`/rooms/${roomId}`),
 };
 
 // File API
 export const fileAPI = {
   getFileTree: (roomId: number) => api.get(`/files/room/${roomId}`),
+  getFileTreeMetadata: (roomId: number) => api.get(`/files/room/${roomId}/tree`),
+  getFileContent: (fileId: number) => api.get(`/files/${fileId}/content`),
   createFile: (roomId: number, data: any) => api.post(`/files/room/${roomId}`, data),
   updateFile: (fileId: number, content: string) =>
     api.put(`/files/${fileId}`, { content }),
+  moveFile: (fileId: number, parentId: number | null) =>
+    api.patch(`/files/${fileId}/parent`, { parentId }),
   deleteFile: (fileId: number) => api.delete(`/files/${fileId}`),
+  importFiles: (roomId: number, data: FormData) =>
+    api.post(`/files/room/${roomId}/import`, data, {
+      headers: { 'Content-Type': 'multipart/form-data' },
+    }),
+  exportFiles: (roomId: number, folderId?: number) =>
+    api.get(`/files/room/${roomId}/export`, {
+      params: { folderId },
+      responseType: 'blob',
+    }),
+};
+
+// Chat API
+export const chatAPI = {
+  getMessages: (roomId: number, before?: number, limit?: number) =>
+    api.get(`/chat/room/${roomId}/messages`, { params: { before, limit } }),
+  sendMessage: (roomId: number, message: string) =>
+    api.post(`/chat/room/${roomId}/messages`, { message }),
 };
 
 // User API
@@ -26,6 +26,7 @@ export interface FileNode {
   content?: string;
   language?: string;
   parentId?: number;
+  size?: number;
   children: FileNode[];
   createdAt: string;
   updatedAt: string;